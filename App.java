@@ -6,31 +6,34 @@ import javax.swing.table.DefaultTableModel;
 import com.fantastic.restaurant.Reservation.Status;
 
 import java.awt.*;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class App extends JFrame {
     /**
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private UserDAO userDAO = new UserDAOImplement();
-    private StaffTaskDAO staffTaskDAO = new StaffTaskDAOImplement();
-    private RestaurantTableDAO tableDAO = new RestaurantTableDAOImplement();
-    private MenuDAO menuDAO = new MenuDAOImplement();
-    private InventoryDAO inventoryDAO = new InventoryDAOImplement();
+	// Set by the constructor, so DAOs that are passed in are the only ones ever built
+	private final UserDAO userDAO;
+    private final StaffTaskDAO staffTaskDAO;
+    private final RestaurantTableDAO tableDAO;
+    private final MenuDAO menuDAO;
+    private final InventoryDAO inventoryDAO;
+    private final ReservationDAO reservationDAO = new ReservationDAOImplement();
+    private final AvailabilityEngine availability;
 
 
     private JTable userTable;
     private JTable restaurantTable;
     private DefaultTableModel tableModel;
-    private DefaultTableModel restaurantTableModel;
+    private PagedTableModel<RestaurantTable> restaurantTableModel;
     private JTable reservationTable;
-    private DefaultTableModel reservationTableModel;
+    private PagedTableModel<Reservation> reservationTableModel;
     private JTextField customerNameField;
     private JTextField customerEmailField;
     private JTextField customerPhoneField;
@@ -52,16 +55,17 @@ public class App extends JFrame {
     private JTextField itemUnitField;
     private JTextField itemThresholdField;
     private JButton addInventoryButton;
+    private JButton addReservationButton;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
 
+    // The load currently filling each table model; a new load of the same model cancels the old one
+    private final Map<DefaultTableModel, SwingWorker<?, ?>> loads = new HashMap<>();
 
-    public App() {
-        setTitle("Restaurant Management App");
-        setSize(1300, 750);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
 
-        initComponents();
-        loadAllUsers();
+    public App() {
+        this(new UserDAOImplement(), new StaffTaskDAOImplement(), new FloorState(new RestaurantTableDAOImplement()),
+                new CachingMenuDAO(new MenuDAOImplement()), new InventoryDAOImplement());
     }
     
     public App(UserDAO userDAO, StaffTaskDAO staffTaskDAO, RestaurantTableDAO tableDAO, 
@@ -71,6 +75,7 @@ public class App extends JFrame {
      this.tableDAO = tableDAO;
      this.menuDAO = menuDAO;
      this.inventoryDAO = inventoryDAO;
+     this.availability = new AvailabilityEngine(reservationDAO, tableDAO);
      
      setTitle("Restaurant Management App");
      setSize(1300, 750);
@@ -78,6 +83,7 @@ public class App extends JFrame {
      setLocationRelativeTo(null);
 
      initComponents(); // Initialize your components
+     loadAvailability(); // Index existing bookings for conflict checks
      loadAllUsers();   // Example of loading users
  }
 
@@ -118,7 +124,8 @@ public class App extends JFrame {
         JButton searchButton = new JButton("Find User");
         searchButton.addActionListener(e -> findUser());
         
-        JButton addReservationButton = new JButton("Add Reservation");
+        addReservationButton = new JButton("Add Reservation");
+        addReservationButton.setEnabled(false); // Enabled once existing bookings are indexed
         addReservationButton.addActionListener(e -> {
 			try {
 				addReservation();
@@ -150,14 +157,7 @@ public class App extends JFrame {
 
         
         JButton viewMenuButton = new JButton("View Menu");
-        viewMenuButton.addActionListener(e -> {
-            try {
-                loadMenu();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error loading menu.");
-            }
-        });
+        viewMenuButton.addActionListener(e -> loadMenu());
         
         JButton viewInventoryButton = new JButton("View Inventory");
         viewInventoryButton.addActionListener(e -> {
@@ -230,15 +230,23 @@ public class App extends JFrame {
         formPanel.add(addInventoryButton);
 
         // Initialize table models and tables
-        tableModel = new DefaultTableModel(new String[]{"ID", "Username", "Password", "Role", "Email", "Phone"}, 0);
+        tableModel = new DefaultTableModel(new String[]{"ID", "Username", "Role", "Email", "Phone"}, 0);
         userTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(userTable);
 
-        restaurantTableModel = new DefaultTableModel(new String[]{"Table ID", "Number", "Capacity", "Status"}, 0);
+        restaurantTableModel = TableModels.restaurantTables(tableDAO, this::setStatus);
         restaurantTable = new JTable(restaurantTableModel);
         JScrollPane restaurantScrollPane = new JScrollPane(restaurantTable);
         restaurantScrollPane.setBorder(BorderFactory.createTitledBorder("Restaurant Tables"));
         
+        reservationTableModel = TableModels.reservations(reservationDAO, this::setStatus);
+        reservationTable = new JTable(reservationTableModel);
+
+        // Writes made anywhere in this process are applied to the rows shown, without reloading
+        ChangeFeed feed = ChangeFeed.getInstance();
+        feed.subscribe(RestaurantTable.class, change -> SwingUtilities.invokeLater(() -> restaurantTableModel.apply(change)));
+        feed.subscribe(Reservation.class, change -> SwingUtilities.invokeLater(() -> reservationTableModel.apply(change)));
+        feed.subscribe(User.class, change -> SwingUtilities.invokeLater(() -> showAddedUser(change)));
         JScrollPane reservationScrollPane = new JScrollPane(reservationTable);
         reservationScrollPane.setBorder(BorderFactory.createTitledBorder("Reservations"));
 
@@ -254,16 +262,13 @@ public class App extends JFrame {
         getStaffIDsButton.addActionListener(e -> getStaffIDs());
         
         JButton viewReservationsButton = new JButton("View Reservations");
-        viewReservationsButton.addActionListener(e -> {
-            try {
-                loadReservations();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this, "Error loading reservations.");
-            }
-        });
+        viewReservationsButton.addActionListener(e -> loadReservations());
+
+        JButton viewTablesButton = new JButton("View Tables");
+        viewTablesButton.addActionListener(e -> loadRestaurantTables());
         
         buttonPanel.add(viewReservationsButton);
+        buttonPanel.add(viewTablesButton);
         buttonPanel.add(loadAllButton);
         buttonPanel.add(showStaffButton);
         buttonPanel.add(getStaffIDsButton);
@@ -287,6 +292,16 @@ public class App extends JFrame {
         
         mainPanel.add(rightPanel, BorderLayout.EAST);
 
+        // Status bar showing background loads
+        JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+        statusLabel = new JLabel(" ");
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(progressBar, BorderLayout.EAST);
+        mainPanel.add(statusPanel, BorderLayout.SOUTH);
+
         // Set the content pane
         setContentPane(mainPanel);
     }
@@ -317,7 +332,7 @@ public class App extends JFrame {
 			} catch (DAOException e) {
 				e.printStackTrace();
 			}
-            loadAllUsers();  // Reload the user list after adding the user
+            // The new row is added to the user list through the change feed
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -336,17 +351,72 @@ public class App extends JFrame {
     }
 
     private void loadAllUsers() {
-        try {
-            tableModel.setRowCount(0);
-            JOptionPane.showMessageDialog(this, "Viewing all users in console. GUI view not implemented for DB fetch.");
-            try {
-				userDAO.view();
-			} catch (DAOException e) {
-				e.printStackTrace();
-			}
-        } catch (SQLException e) {
-            e.printStackTrace();
+        startLoad(tableModel, userDAO::forEach, App::toUserRow, "users");
+    }
+
+    // Appends a new user to the list; new user_ids sort last, as in a full load
+    private void showAddedUser(ChangeFeed.Change<? extends User> change) {
+        if (change.getKind() != ChangeFeed.Kind.ADDED || !change.hasKey() || loads.containsKey(tableModel)) {
+            return; // Batches are shown by the next load, and a load in progress reads the row itself
         }
+        tableModel.addRow(toUserRow(change.getKey(), change.getEntity()));
+    }
+
+    private static Object[] toUserRow(int id, User user) {
+        return new Object[]{id, user.getUsername(), user.getRole(), user.getEmail(), user.getPhone()};
+    }
+
+    // Indexes existing bookings in the background; reservations can be added once it is done
+    private void loadAvailability() {
+        setStatus("Loading table availability...");
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws DAOException {
+                availability.load();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    addReservationButton.setEnabled(true);
+                    setStatus("Table availability loaded.");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    setStatus("Error loading table availability.");
+                    JOptionPane.showMessageDialog(App.this, "Error loading table availability.");
+                }
+            }
+        }.execute();
+    }
+
+    // Clears the model and fills it on a background thread, cancelling any earlier load of the same model
+    private <T> void startLoad(DefaultTableModel model, TableModelLoader.Source<T> source,
+            TableModelLoader.RowFormatter<T> formatter, String description) {
+        SwingWorker<?, ?> previous = loads.remove(model);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        model.setRowCount(0);
+
+        TableModelLoader<T> loader = new TableModelLoader<>(model, source, formatter, description, this::setStatus);
+        loader.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                loads.remove(model, loader);
+                progressBar.setVisible(!loads.isEmpty());
+            }
+        });
+        loads.put(model, loader);
+        progressBar.setVisible(true);
+        setStatus("Loading " + description + "...");
+        loader.execute();
+    }
+
+    private void setStatus(String message) {
+        statusLabel.setText(message);
     }
 
     private void showStaff() {
@@ -379,7 +449,24 @@ public class App extends JFrame {
 
 
     private void findUser() {
-        JOptionPane.showMessageDialog(this, "Feature not yet implemented. Requires a `getUserByUsername()` method.");
+        String username = searchField.getText().trim();
+        if (username.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Enter a username to search for.");
+            return;
+        }
+
+        try {
+            User user = userDAO.getUserByUsername(username);
+            if (user == null) {
+                JOptionPane.showMessageDialog(this, "No user found with username \"" + username + "\".");
+                return;
+            }
+            JOptionPane.showMessageDialog(this, "ID: " + user.getId() + "\nUsername: " + user.getUsername()
+                    + "\nRole: " + user.getRole() + "\nEmail: " + user.getEmail() + "\nPhone: " + user.getPhone());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error searching for user.");
+        }
     }
 
     public static void main(String[] args) {
@@ -388,8 +475,13 @@ public class App extends JFrame {
                 // Create instances of the DAOs (dependencies)
                 UserDAO userDAO = new UserDAOImplement();
                 StaffTaskDAO staffTaskDAO = new StaffTaskDAOImplement();
-                RestaurantTableDAO tableDAO = new RestaurantTableDAOImplement();
-                MenuDAO menuDAO = new MenuDAOImplement();
+                long writeBehindMs = Database.getWriteBehindMillis();
+                if (writeBehindMs > 0) {
+                    // Task status changes are written in batches (restaurant.db.writeBehindMs)
+                    staffTaskDAO = new WriteBehindStaffTaskDAO(staffTaskDAO, writeBehindMs);
+                }
+                RestaurantTableDAO tableDAO = new FloorState(new RestaurantTableDAOImplement());
+                MenuDAO menuDAO = new CachingMenuDAO(new MenuDAOImplement());
                 InventoryDAO inventoryDAO = new InventoryDAOImplement();
                 
                 // Create the App object with all dependencies
@@ -402,56 +494,13 @@ public class App extends JFrame {
     }
 
 
-    private void loadRestaurantTables() throws SQLException {
-        restaurantTableModel.setRowCount(0);
-        Connection connect = Database.getConnection();
-
-        String sql = "SELECT * FROM Tables";
-        try (PreparedStatement stmt = connect.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                int id = rs.getInt("table_id");
-                int number = rs.getInt("table_number");
-                int capacity = rs.getInt("capacity");
-                String status = rs.getString("status");
-
-                restaurantTableModel.addRow(new Object[]{id, number, capacity, status});
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw e;
-        } finally {
-            connect.close();
-        }
+    // The paged models read the first page now and later pages as the table is scrolled;
+    // refreshing again only applies the rows that changed
+    private void loadRestaurantTables() {
+        restaurantTableModel.refresh();
     }
-    private void loadReservations() throws SQLException {
-        reservationTableModel.setRowCount(0);
-        Connection connect = Database.getConnection();
-
-        String sql = "SELECT * FROM Reservations";
-        try (PreparedStatement stmt = connect.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                int id = rs.getInt("reservation_id");
-                String name = rs.getString("customer_name");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                int tableid = rs.getInt("table_id");
-                String datetime = rs.getString("date_time");
-                String status = rs.getString("status");
-
-                reservationTableModel.addRow(new Object[]{id, name, email, phone, tableid, datetime, status});
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw e;
-        } finally {
-            connect.close();
-        }
+    private void loadReservations() {
+        reservationTableModel.refresh();
     }
     private void addReservation() throws DAOException {
         try {
@@ -471,11 +520,10 @@ public class App extends JFrame {
             }
 
             Reservation reservation = new Reservation(name, email, phone, tableId, reservationTime, Status.valueOf(status.toUpperCase()).ordinal() + 1);
-            ReservationDAO reservationDAO = new ReservationDAOImplement();
-            reservationDAO.add(reservation);
+            availability.book(reservation); // Rejects double bookings before they reach the database
 
             JOptionPane.showMessageDialog(this, "Reservation Added!");
-            loadReservations(); // Refresh reservation table
+            // The new row is added to the reservation table through the change feed
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -508,38 +556,9 @@ public class App extends JFrame {
             JOptionPane.showMessageDialog(this, "Invalid input for cost or availability.");
         }
     }
-    private void loadMenu() throws SQLException {
-        DefaultTableModel menuTableModel = new DefaultTableModel(
-                new String[]{"ID", "Name", "Description", "Price", "Category", "Availability"}, 0);
-        JTable menuTable = new JTable(menuTableModel);
-        JScrollPane menuScrollPane = new JScrollPane(menuTable);
-        menuScrollPane.setBorder(BorderFactory.createTitledBorder("Menu"));
-
-        Connection connect = Database.getConnection();
-
-        String sql = "SELECT * FROM Menu_Items";
-        try (PreparedStatement stmt = connect.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                int id = rs.getInt("menu_item_id");
-                String name = rs.getString("name");
-                String description = rs.getString("description");
-                double cost = rs.getDouble("price");
-                String category = rs.getString("category");
-                int availability = rs.getInt("availability");
-
-                menuTableModel.addRow(new Object[]{id, name, description, cost, category, availability});
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw e;
-        } finally {
-            connect.close();
-        }
-
-        JOptionPane.showMessageDialog(this, menuScrollPane);
+    private void loadMenu() {
+        // The dialog opens at once and the rows appear as they are read
+        showPagedTable(Menu.class, TableModels.menu(menuDAO, this::setStatus), "Menu");
     }
     private void addInventoryItem() throws DAOException {
         try {
@@ -564,11 +583,20 @@ public class App extends JFrame {
         }
     }
     private void loadInventory() throws DAOException {
+        showPagedTable(Inventory.class, TableModels.inventory(inventoryDAO, this::setStatus), "Inventory");
+    }
+
+    // Shows a paged model in a dialog; its pages are only read, and its rows kept current, while the dialog is open
+    private <T> void showPagedTable(Class<T> type, PagedTableModel<T> model, String title) {
+        JScrollPane scrollPane = new JScrollPane(new JTable(model));
+        scrollPane.setBorder(BorderFactory.createTitledBorder(title));
+        ChangeFeed.Listener<T> listener = change -> SwingUtilities.invokeLater(() -> model.apply(change));
+        ChangeFeed.getInstance().subscribe(type, listener);
         try {
-            inventoryDAO.view();
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error loading inventory.");
+            model.refresh();
+            JOptionPane.showMessageDialog(this, scrollPane);
+        } finally {
+            ChangeFeed.getInstance().unsubscribe(type, listener);
         }
     }
 
@@ -0,0 +1,560 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers "which tables are free" questions from memory instead of from the Reservations table.
+ *
+ * For every table the engine keeps the booked reservations as non-overlapping intervals in a
+ * TreeMap ordered by start time, so whether a slot is free is a single floor lookup, and
+ * finding free tables for a party is one lookup per table large enough to seat it. The index
+ * is loaded once from the database and then kept current by {@link #reserve(Reservation)} and
+ * {@link #release(int)}, so conflicting bookings are rejected before they reach MySQL.
+ *
+ * A claimed slot stays in the index across a {@link #load()} until its reservation is known to be
+ * committed before the load read the database, so a reload never frees a slot that a host is
+ * still saving.
+ *
+ * - Efficiency: Lookups take microseconds and hold only a read lock, so many host terminals can query at once.
+ * - Dependability: A slot is claimed in the index before the INSERT is sent, so two hosts cannot double-book a table.
+ */
+public class AvailabilityEngine {
+
+    // Reservations have no end time, so each booking is assumed to hold its table this long.
+    public static final int DEFAULT_DURATION_MINUTES = Integer.getInteger("restaurant.reservation.durationMinutes", 90);
+
+    private final ReservationDAO reservationDAO;
+    private final RestaurantTableDAO tableDAO;
+    private final int durationMinutes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // table_id -> capacity, ordered by capacity so a party can skip tables that are too small
+    private final TreeMap<Integer, List<Integer>> tablesByCapacity = new TreeMap<>();
+    private final Map<Integer, Integer> capacities = new HashMap<>();
+    private final Map<Integer, Integer> tableNumbers = new HashMap<>(); // table_id -> table_number
+    // table_id -> bookings keyed by start minute
+    private final Map<Integer, TreeMap<Long, Booking>> schedules = new HashMap<>();
+    // reservation_id -> booking, for reservations whose database key is known
+    private final Map<Integer, Booking> bookingsById = new HashMap<>();
+    // Claimed bookings that a load() might not read yet: unsaved, uncommitted, or committed during a load
+    private final Set<Booking> claims = new HashSet<>();
+    private boolean loading; // Guarded by lock
+    private final Object loadLock = new Object(); // One load() at a time
+
+    /**
+     * Constructs an engine using the default booking duration. Call {@link #load()} before querying it.
+     *
+     * @param reservationDAO the source of existing reservations.
+     * @param tableDAO the source of table capacities.
+     */
+    public AvailabilityEngine(ReservationDAO reservationDAO, RestaurantTableDAO tableDAO) {
+        this(reservationDAO, tableDAO, DEFAULT_DURATION_MINUTES);
+    }
+
+    /**
+     * Constructs an engine. Call {@link #load()} before querying it.
+     *
+     * @param reservationDAO the source of existing reservations.
+     * @param tableDAO the source of table capacities.
+     * @param durationMinutes how long each reservation holds its table.
+     * @throws IllegalArgumentException if the duration is not positive.
+     */
+    public AvailabilityEngine(ReservationDAO reservationDAO, RestaurantTableDAO tableDAO, int durationMinutes) {
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("Reservation duration must be positive.");
+        }
+        this.reservationDAO = reservationDAO;
+        this.tableDAO = tableDAO;
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * (Re)builds the index from the Tables and Reservations tables. Only reservations with
+     * status "booked" that have not yet ended occupy a table; past, cancelled and completed
+     * ones are ignored, so the load is a date_time range scan rather than the whole history.
+     * Slots claimed but not yet committed, or committed while the load ran, are kept.
+     *
+     * @throws DAOException if the tables or reservations cannot be read.
+     */
+    public void load() throws DAOException {
+        synchronized (loadLock) {
+            lock.writeLock().lock();
+            try {
+                loading = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                loadSnapshot();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    loading = false;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // Reads the tables and bookings, then swaps them in together with the claims the read may have missed.
+    private void loadSnapshot() throws DAOException {
+        Map<Integer, Integer> newCapacities = new HashMap<>();
+        Map<Integer, Integer> newNumbers = new HashMap<>();
+        Map<Integer, TreeMap<Long, Booking>> newSchedules = new HashMap<>();
+        Map<Integer, Booking> newBookings = new HashMap<>();
+
+        try {
+            tableDAO.forEach((id, table) -> {
+                newCapacities.put(id, table.getTableCapacity());
+                newNumbers.put(id, table.getTableNumber());
+            });
+            LocalDateTime earliest = LocalDateTime.now().minusMinutes(durationMinutes);
+            for (Reservation reservation : reservationDAO.getBetween(earliest, null)) {
+                if (!Reservation.Status.booked.toString().equals(reservation.getStatus())) {
+                    continue;
+                }
+                long start = toMinute(reservation.getReservationTime());
+                Booking booking = new Booking(reservation.getTableId(), start, start + durationMinutes);
+                newSchedules.computeIfAbsent(booking.tableId, t -> new TreeMap<>()).put(start, booking);
+                newBookings.put(reservation.getReservationId(), booking);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while loading reservation availability.", e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            capacities.clear();
+            capacities.putAll(newCapacities);
+            tableNumbers.clear();
+            tableNumbers.putAll(newNumbers);
+            tablesByCapacity.clear();
+            for (Map.Entry<Integer, Integer> table : newCapacities.entrySet()) {
+                tablesByCapacity.computeIfAbsent(table.getValue(), c -> new ArrayList<>()).add(table.getKey());
+            }
+            for (Iterator<Booking> it = claims.iterator(); it.hasNext(); ) {
+                Booking claim = it.next();
+                newSchedules.computeIfAbsent(claim.tableId, t -> new TreeMap<>()).put(claim.start, claim);
+                if (claim.reservationId > 0) {
+                    newBookings.put(claim.reservationId, claim);
+                }
+                if (claim.committed) {
+                    it.remove(); // Any later load reads it from the database
+                }
+            }
+            schedules.clear();
+            schedules.putAll(newSchedules);
+            bookingsById.clear();
+            bookingsById.putAll(newBookings);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tells whether a table exists in the index.
+     *
+     * @param tableId the table_id to look up.
+     * @return true if the table is known.
+     */
+    public boolean hasTable(int tableId) {
+        lock.readLock().lock();
+        try {
+            return capacities.containsKey(tableId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets how many guests a table seats, as the index knows it.
+     *
+     * @param tableId the table_id to look up.
+     * @return the capacity, or 0 if the table is not known.
+     */
+    public int getCapacity(int tableId) {
+        lock.readLock().lock();
+        try {
+            return capacities.getOrDefault(tableId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number a table is known by on the floor.
+     *
+     * @param tableId the table_id to look up.
+     * @return the table number, or 0 if the table is not known.
+     */
+    public int getTableNumber(int tableId) {
+        lock.readLock().lock();
+        try {
+            return tableNumbers.getOrDefault(tableId, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tells whether a table is free for the whole of a time window.
+     *
+     * @param tableId the table_id to check.
+     * @param time the start of the window.
+     * @param minutes the length of the window.
+     * @return true if no booked reservation on that table overlaps the window.
+     */
+    public boolean isFree(int tableId, LocalDateTime time, int minutes) {
+        long start = toMinute(time);
+        lock.readLock().lock();
+        try {
+            return isFree(tableId, start, start + minutes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the tables that can seat a party for a whole time window.
+     *
+     * @param partySize the number of guests.
+     * @param time the start of the window.
+     * @param minutes the length of the window.
+     * @return the free table_ids with capacity of at least partySize, smallest tables first.
+     */
+    public List<Integer> findFreeTables(int partySize, LocalDateTime time, int minutes) {
+        long start = toMinute(time);
+        long end = start + minutes;
+        List<Integer> free = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (List<Integer> tables : tablesByCapacity.tailMap(partySize, true).values()) {
+                for (int tableId : tables) {
+                    if (isFree(tableId, start, end)) {
+                        free.add(tableId);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Lists every table that is free for a whole time window, with how long it stands idle
+     * before and after the window. Used by {@link SeatingOptimizer}.
+     *
+     * @param time the start of the window.
+     * @param minutes the length of the window.
+     * @return the free tables, in no particular order.
+     */
+    List<FreeTable> getFreeTables(LocalDateTime time, int minutes) {
+        long start = toMinute(time);
+        long end = start + minutes;
+        List<FreeTable> free = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Integer> table : capacities.entrySet()) {
+                int tableId = table.getKey();
+                if (!isFree(tableId, start, end)) {
+                    continue;
+                }
+                long idleBefore = Long.MAX_VALUE;
+                long idleAfter = Long.MAX_VALUE;
+                TreeMap<Long, Booking> schedule = schedules.get(tableId);
+                if (schedule != null) {
+                    Map.Entry<Long, Booking> previous = schedule.lowerEntry(start);
+                    if (previous != null) {
+                        idleBefore = start - previous.getValue().end;
+                    }
+                    Long next = schedule.ceilingKey(end);
+                    if (next != null) {
+                        idleAfter = next - end;
+                    }
+                }
+                free.add(new FreeTable(tableId, tableNumbers.getOrDefault(tableId, 0), table.getValue(),
+                        idleBefore, idleAfter));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Claims the reservation's table and time slot in the index without writing to the database.
+     * The caller saves the reservation afterwards and calls {@link #cancel(Reservation)} if that fails.
+     * Reservations that are not "booked" do not occupy a table and are always accepted.
+     *
+     * @param reservation the reservation to claim a slot for.
+     * @return true if the slot was free and is now claimed, false if it conflicts with another booking.
+     */
+    public boolean reserve(Reservation reservation) {
+        return reserveAll(Collections.singletonList(reservation));
+    }
+
+    /**
+     * Claims the slots of several reservations at once, e.g. one per table when tables are pushed
+     * together for a party. Either every slot is claimed or, if any conflicts, none is; no other
+     * caller sees some of them claimed in between. Cancel each reservation that is not saved.
+     *
+     * @param reservations the reservations to claim slots for.
+     * @return true if every slot was free and is now claimed, false if any conflicts and nothing was claimed.
+     */
+    public boolean reserveAll(List<Reservation> reservations) {
+        List<Booking> wanted = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            if (Reservation.Status.booked.toString().equals(reservation.getStatus())) {
+                long start = toMinute(reservation.getReservationTime());
+                wanted.add(new Booking(reservation.getTableId(), start, start + durationMinutes));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Booking> claimed = new ArrayList<>();
+            for (Booking booking : wanted) {
+                if (!isFree(booking.tableId, booking.start, booking.end)) {
+                    for (Booking undo : claimed) {
+                        schedules.get(undo.tableId).remove(undo.start, undo);
+                        claims.remove(undo);
+                    }
+                    return false;
+                }
+                // Claimed one by one, so the same table twice in the list conflicts with itself
+                schedules.computeIfAbsent(booking.tableId, t -> new TreeMap<>()).put(booking.start, booking);
+                claims.add(booking);
+                claimed.add(booking);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Claims the slot and saves the reservation, rejecting it without touching the database if the
+     * slot is already taken.
+     *
+     * @param reservation the reservation to book.
+     * @throws DAOException if the slot conflicts with another booking, or the insert fails.
+     */
+    public void book(Reservation reservation) throws DAOException {
+        FlightEvents.ReservationBooking conflict = new FlightEvents.ReservationBooking();
+        conflict.begin();
+        if (!reserve(reservation)) {
+            conflict.record(reservation, true); // A saved booking is recorded by the DAO instead
+            throw new DAOException("Table " + reservation.getTableId() + " is already booked at "
+                    + reservation.getReservationTime() + ".");
+        }
+        try {
+            reservationDAO.add(reservation);
+        } catch (SQLException | DAOException | RuntimeException e) {
+            cancel(reservation);
+            throw e instanceof DAOException ? (DAOException) e : new DAOException("Error while booking reservation.", e);
+        }
+        saved(reservation);
+    }
+
+    /**
+     * Saves reservations whose slots were claimed with {@link #reserve(Reservation)}, in batches.
+     * If a batch fails, the slots of the reservations that were not saved are freed; those in
+     * batches committed before it stay booked.
+     *
+     * @param reservations the claimed reservations.
+     * @throws DAOException if a batch cannot be saved.
+     */
+    public void saveAll(List<Reservation> reservations) throws DAOException {
+        try {
+            reservationDAO.addAll(reservations);
+        } catch (SQLException | DAOException | RuntimeException e) {
+            for (Reservation reservation : reservations) {
+                if (reservation.getReservationId() > 0) {
+                    saved(reservation);
+                } else {
+                    cancel(reservation);
+                }
+            }
+            throw e instanceof DAOException ? (DAOException) e : new DAOException("Error while saving reservations.", e);
+        }
+        for (Reservation reservation : reservations) {
+            saved(reservation);
+        }
+    }
+
+    /**
+     * Frees the slot claimed for a reservation that was never saved.
+     *
+     * @param reservation the reservation passed to {@link #reserve(Reservation)}.
+     */
+    public void cancel(Reservation reservation) {
+        if (!Reservation.Status.booked.toString().equals(reservation.getStatus())) {
+            return; // It claimed no slot
+        }
+        long start = toMinute(reservation.getReservationTime());
+        lock.writeLock().lock();
+        try {
+            TreeMap<Long, Booking> schedule = schedules.get(reservation.getTableId());
+            Booking booking = schedule == null ? null : schedule.remove(start);
+            if (booking != null) {
+                claims.remove(booking);
+                bookingsById.remove(booking.reservationId, booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a saved reservation, e.g. after it was cancelled or completed.
+     * If the reservation was booked after the last {@link #load()} its key is not known yet,
+     * and the index is reloaded instead.
+     *
+     * @param reservationId the reservation_id whose table is no longer held.
+     * @throws DAOException if the index has to be reloaded and that fails.
+     */
+    public void release(int reservationId) throws DAOException {
+        lock.writeLock().lock();
+        try {
+            Booking booking = bookingsById.remove(reservationId);
+            if (booking != null) {
+                TreeMap<Long, Booking> schedule = schedules.get(booking.tableId);
+                if (schedule != null) {
+                    schedule.remove(booking.start);
+                }
+                claims.remove(booking);
+                UnitOfWork.afterRollback(() -> restore(reservationId, booking));
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        load();
+    }
+
+    /**
+     * Gets the length of time each reservation holds its table.
+     *
+     * @return the booking duration in minutes.
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    // Records the key of a saved reservation. Its claim is kept until the save is known to be committed.
+    private void saved(Reservation reservation) {
+        if (!Reservation.Status.booked.toString().equals(reservation.getStatus())) {
+            return;
+        }
+        Booking booking;
+        lock.writeLock().lock();
+        try {
+            TreeMap<Long, Booking> schedule = schedules.get(reservation.getTableId());
+            booking = schedule == null ? null : schedule.get(toMinute(reservation.getReservationTime()));
+            if (booking == null) {
+                return;
+            }
+            booking.reservationId = reservation.getReservationId();
+            if (booking.reservationId > 0) {
+                bookingsById.put(booking.reservationId, booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        UnitOfWork.afterCommit(() -> committed(booking));
+        UnitOfWork.afterRollback(() -> cancel(reservation));
+    }
+
+    // A committed booking is read by every load that starts from now on, so only a running load needs its claim.
+    private void committed(Booking booking) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                booking.committed = true;
+            } else {
+                claims.remove(booking);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Puts back a booking released in a unit of work that rolled back.
+    private void restore(int reservationId, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            bookingsById.put(reservationId, booking);
+            schedules.computeIfAbsent(booking.tableId, t -> new TreeMap<>()).put(booking.start, booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Must be called with the lock held. Intervals are half-open: [start, end).
+    private boolean isFree(int tableId, long start, long end) {
+        TreeMap<Long, Booking> schedule = schedules.get(tableId);
+        if (schedule == null) {
+            return true;
+        }
+        // Bookings never overlap each other, so only the last one starting before our end can overlap us.
+        Map.Entry<Long, Booking> before = schedule.lowerEntry(end);
+        return before == null || before.getValue().end <= start;
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * A table that is free for a requested window, and the idle time around that window.
+     */
+    static final class FreeTable {
+        final int tableId;
+        final int tableNumber;
+        final int capacity;
+        final long idleBefore; // Minutes since the previous booking ended, or Long.MAX_VALUE if there is none
+        final long idleAfter;  // Minutes until the next booking starts, or Long.MAX_VALUE if there is none
+
+        private FreeTable(int tableId, int tableNumber, int capacity, long idleBefore, long idleAfter) {
+            this.tableId = tableId;
+            this.tableNumber = tableNumber;
+            this.capacity = capacity;
+            this.idleBefore = idleBefore;
+            this.idleAfter = idleAfter;
+        }
+    }
+
+    /**
+     * One booked reservation occupying a table from start (inclusive) to end (exclusive), in epoch minutes.
+     */
+    private static final class Booking {
+        private final int tableId;
+        private final long start;
+        private final long end;
+        private int reservationId;  // 0 until known; guarded by lock
+        private boolean committed;  // Set when the save commits during a load; guarded by lock
+
+        private Booking(int tableId, long start, long end) {
+            this.tableId = tableId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
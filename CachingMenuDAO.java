@@ -0,0 +1,314 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A MenuDAO that serves reads from memory and passes writes through to another MenuDAO.
+ *
+ * Single items are kept in a bounded {@link ReadThroughCache} keyed by menu_item_id, and the full
+ * menu printed by {@link #view()} and streamed by {@link #forEach(RowHandler)} is kept as one snapshot. Both expire after the same time-to-live,
+ * and every write made through this DAO, or published to the {@link ChangeFeed} by another DAO in
+ * this process, invalidates what it changed, so a terminal always sees its own edits immediately
+ * and other terminals' edits within the time-to-live. The cache holds immutable snapshots and every
+ * read hands out new Menu objects, so a caller editing an item before updating it changes nobody
+ * else's view of the menu.
+ *
+ * - Efficiency: Menu reads vastly outnumber menu writes, so most menu displays and price
+ *   lookups never reach the database.
+ * - Maintainability: The cache wraps any MenuDAO; the JDBC code in {@link MenuDAOImplement} is unchanged.
+ *
+ * The cache stays subscribed to the change feed until {@link #close()} is called; close a cache
+ * that is discarded before the program ends, or the feed keeps it reachable.
+ */
+public class CachingMenuDAO implements MenuDAO, AutoCloseable {
+
+    public static final int DEFAULT_MAX_SIZE = Integer.getInteger("restaurant.cache.menu.maxSize", 1000);
+    public static final long DEFAULT_TTL_MS = Long.getLong("restaurant.cache.menu.ttlMs", 300_000L);
+
+    private final MenuDAO delegate;
+    private final long ttlNanos;
+    private final ReadThroughCache<Integer, CachedMenu> items;
+
+    // The whole menu in menu_item_id order, or null until it is next needed
+    private volatile List<CachedMenu> menu;
+    private volatile long menuLoadedAt;
+    private final AtomicLong menuVersion = new AtomicLong(); // Bumped by every write
+    private final ChangeFeed.Listener<Menu> listener = this::changed; // The same instance unsubscribes
+
+    /**
+     * Constructs a cache in front of a MenuDAO using the default size and time-to-live.
+     *
+     * @param delegate the DAO that reads and writes the database.
+     */
+    public CachingMenuDAO(MenuDAO delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL_MS);
+    }
+
+    /**
+     * Constructs a cache in front of a MenuDAO.
+     *
+     * @param delegate the DAO that reads and writes the database.
+     * @param maxSize the maximum number of single items cached.
+     * @param ttlMillis how long a cached item or menu may be served.
+     */
+    public CachingMenuDAO(MenuDAO delegate, int maxSize, long ttlMillis) {
+        this.delegate = delegate;
+        this.items = new ReadThroughCache<>(maxSize, ttlMillis);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        ChangeFeed.getInstance().subscribe(Menu.class, listener);
+    }
+
+    /**
+     * Stops listening to the change feed and drops everything cached. Reads still work afterwards,
+     * but only writes made through this DAO invalidate what they read.
+     */
+    @Override
+    public void close() {
+        ChangeFeed.getInstance().unsubscribe(Menu.class, listener);
+        invalidateAll();
+    }
+
+    /**
+     * Adds a menu item and drops the cached menu so the next listing includes it.
+     *
+     * @param item the menu item to add.
+     * @throws SQLException if the item cannot be added.
+     * @throws DAOException if the delegate rejects the item.
+     */
+    @Override
+    public void add(Menu item) throws SQLException, DAOException {
+        try {
+            delegate.add(item);
+        } finally {
+            invalidateMenu();
+        }
+    }
+
+    /**
+     * Adds several menu items and drops the cached menu.
+     *
+     * @param entities the menu items to add.
+     * @throws SQLException if a batch cannot be added.
+     * @throws DAOException if the delegate rejects the items.
+     */
+    @Override
+    public void addAll(Collection<Menu> entities) throws SQLException, DAOException {
+        try {
+            delegate.addAll(entities);
+        } finally {
+            invalidateMenu();
+        }
+    }
+
+    /**
+     * Prints the menu from the cached snapshot, reading it from the database only if it has
+     * expired or was invalidated.
+     *
+     * @throws SQLException if the menu has to be read and that fails.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public void view() throws SQLException, DAOException {
+        StringBuilder output = new StringBuilder(MenuDAOImplement.HEADER);
+        for (CachedMenu item : snapshot()) {
+            output.append(MenuDAOImplement.format(item.toMenu()));
+        }
+        System.out.print(output);
+    }
+
+    /**
+     * Gets the whole menu, from the cached snapshot when it is still fresh.
+     *
+     * @return a new list of all menu items in menu_item_id order, which the caller may change.
+     * @throws SQLException if the menu has to be read and that fails.
+     * @throws DAOException if the delegate fails.
+     */
+    public List<Menu> getMenu() throws SQLException, DAOException {
+        List<CachedMenu> snapshot = snapshot();
+        List<Menu> copy = new ArrayList<>(snapshot.size());
+        for (CachedMenu item : snapshot) {
+            copy.add(item.toMenu());
+        }
+        return copy;
+    }
+
+    // Returns the cached menu, reading it again if it has expired or was invalidated.
+    private List<CachedMenu> snapshot() throws SQLException, DAOException {
+        List<CachedMenu> snapshot = menu;
+        if (snapshot != null && System.nanoTime() - menuLoadedAt < ttlNanos) {
+            return snapshot;
+        }
+
+        long version = menuVersion.get();
+        List<CachedMenu> loaded = new ArrayList<>();
+        delegate.forEach((id, item) -> loaded.add(CachedMenu.of(item)));
+        snapshot = Collections.unmodifiableList(loaded);
+
+        // Only keep the snapshot if no write happened while it was being read
+        synchronized (this) {
+            if (menuVersion.get() == version) {
+                menuLoadedAt = System.nanoTime();
+                menu = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Passes every menu item to the handler from the cached snapshot, like {@link #view()}.
+     *
+     * @param handler receives each menu item and its menu_item_id.
+     * @throws SQLException if the menu has to be read and that fails.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public void forEach(RowHandler<? super Menu> handler) throws SQLException, DAOException {
+        for (CachedMenu item : snapshot()) {
+            handler.handle(item.id, item.toMenu());
+        }
+    }
+
+    /**
+     * Retrieves one page of menu items straight from the delegate.
+     *
+     * @param afterKey the menu_item_id to start after, or 0 for the first page.
+     * @param pageSize the maximum number of menu items to return.
+     * @return the requested page of menu items.
+     * @throws SQLException if the menu items cannot be read.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public Page<Menu> viewPage(int afterKey, int pageSize) throws SQLException, DAOException {
+        return delegate.viewPage(afterKey, pageSize);
+    }
+
+    /**
+     * Retrieves a menu item, from the cache when it is still fresh.
+     *
+     * @param id the menu_item_id to look up.
+     * @return a new copy of the menu item, or null if not found.
+     * @throws DAOException if the item has to be read and that fails.
+     */
+    @Override
+    public Menu getMenuItemById(int id) throws DAOException {
+        CachedMenu cached = items.get(id, key -> CachedMenu.of(delegate.getMenuItemById(key)));
+        return cached == null ? null : cached.toMenu();
+    }
+
+    /**
+     * Updates a menu item and drops it, and the cached menu, from the cache.
+     *
+     * @param item the updated menu item.
+     * @return true if the item was updated.
+     * @throws DAOException if the update fails.
+     */
+    @Override
+    public boolean updateMenuItem(Menu item) throws DAOException {
+        try {
+            return delegate.updateMenuItem(item);
+        } finally {
+            if (item != null) {
+                invalidate(item.getMenuItemId());
+            }
+        }
+    }
+
+    /**
+     * Deletes a menu item and drops it, and the cached menu, from the cache.
+     *
+     * @param id the menu_item_id to delete.
+     * @return true if the item was deleted.
+     * @throws DAOException if the delete fails.
+     */
+    @Override
+    public boolean deleteMenuItem(int id) throws DAOException {
+        try {
+            return delegate.deleteMenuItem(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    /**
+     * Retrieves the recipes straight from the delegate; callers keep them themselves.
+     *
+     * @return a map from menu_item_id to the quantity used per inventory item name.
+     * @throws DAOException if the recipes cannot be read.
+     */
+    @Override
+    public Map<Integer, Map<String, Integer>> getIngredients() throws DAOException {
+        return delegate.getIngredients();
+    }
+
+    /**
+     * Drops everything cached, e.g. after the menu was edited outside this application.
+     */
+    public void invalidateAll() {
+        items.invalidateAll();
+        invalidateMenu();
+    }
+
+    /**
+     * Gets the cache of single menu items, for its hit and miss counters.
+     *
+     * @return the item cache.
+     */
+    public ReadThroughCache<Integer, ?> getItemCache() {
+        return items;
+    }
+
+    // Drops what another MenuDAO in this process wrote.
+    private void changed(ChangeFeed.Change<? extends Menu> change) {
+        if (change.hasKey()) {
+            invalidate(change.getKey());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    private void invalidate(int id) {
+        items.invalidate(id);
+        invalidateMenu();
+    }
+
+    private synchronized void invalidateMenu() {
+        menuVersion.incrementAndGet();
+        menu = null;
+    }
+
+    // A menu item as it was read; never changed, so it can be shared by every reader.
+    private static final class CachedMenu {
+        private final int id;
+        private final String name;
+        private final String description;
+        private final double cost;
+        private final String category;
+        private final int availability;
+
+        private CachedMenu(Menu item) {
+            this.id = item.getMenuItemId();
+            this.name = item.getName();
+            this.description = item.getDescription();
+            this.cost = item.getCost();
+            this.category = item.getCategory();
+            this.availability = item.getAvailability();
+        }
+
+        // Null for an item that was not found
+        private static CachedMenu of(Menu item) {
+            return item == null ? null : new CachedMenu(item);
+        }
+
+        private Menu toMenu() {
+            Menu item = new Menu(name, description, cost, category, availability);
+            item.setMenuItemId(id);
+            return item;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fantastic.restaurant;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-process feed of the rows written by the DAO implementations.
+ *
+ * Every DAO implementation publishes a {@link Change} after each add, update or delete has been
+ * committed, and screens subscribe to the entity types they show, so they can update the rows
+ * that changed in place instead of polling or re-reading whole tables.
+ *
+ * A change names the entity type, what happened, the row's primary key and, where the writer has
+ * it, the row's new state. Writers that address a row by another column (e.g. an inventory item
+ * by name) look its key up before publishing. Writers that inserted many rows at once publish a
+ * change without a key; subscribers then re-read what they show.
+ *
+ * Subscribers are called on the writer's thread, after its connection has been closed, so they
+ * must be quick and must not assume they run on the event dispatch thread. A write made in a
+ * {@link UnitOfWork} is published when the unit of work commits, and not at all if it rolls back.
+ *
+ * - Maintainability: DAOs know nothing about the CLI or GUI, and screens know nothing about which DAO wrote a row.
+ * - Dependability: A failing subscriber is logged and does not stop the write or the other subscribers.
+ */
+public final class ChangeFeed {
+
+    /**
+     * What happened to a row.
+     */
+    public enum Kind {
+        ADDED, UPDATED, DELETED
+    }
+
+    /**
+     * One committed write.
+     *
+     * @param <T> the type of entity written.
+     */
+    public static final class Change<T> {
+        private final Class<T> type;
+        private final Kind kind;
+        private final int key;
+        private final T entity;
+
+        private Change(Class<T> type, Kind kind, int key, T entity) {
+            this.type = type;
+            this.kind = kind;
+            this.key = key;
+            this.entity = entity;
+        }
+
+        /**
+         * Gets the type of entity written.
+         *
+         * @return the entity class.
+         */
+        public Class<T> getType() {
+            return type;
+        }
+
+        /**
+         * Gets what happened to the row.
+         *
+         * @return the kind of change.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the primary key of the row written.
+         *
+         * @return the key, or 0 if the writer does not know it.
+         */
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Tells whether the change names the row written.
+         *
+         * @return false if subscribers must re-read to find out what changed.
+         */
+        public boolean hasKey() {
+            return key > 0;
+        }
+
+        /**
+         * Gets the row's new state.
+         *
+         * @return the entity as written, or null for a delete or if the writer only knows what
+         *         changed, e.g. a status update by key.
+         */
+        public T getEntity() {
+            return entity;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + (hasKey() ? " #" + key : "") + " " + kind.name().toLowerCase();
+        }
+    }
+
+    /**
+     * Receives the changes to one entity type.
+     *
+     * @param <T> the type of entity subscribed to.
+     */
+    @FunctionalInterface
+    public interface Listener<T> {
+        void onChange(Change<T> change);
+    }
+
+    private static final Logger logger = Logger.getLogger(ChangeFeed.class.getName());
+
+    private static final ChangeFeed INSTANCE = new ChangeFeed();
+
+    private final Map<Class<?>, List<Listener<?>>> listeners = new ConcurrentHashMap<>();
+
+    // Private constructor; every DAO in the process publishes to the same feed
+    private ChangeFeed() {}
+
+    /**
+     * Gets the feed the DAO implementations publish to.
+     *
+     * @return the process-wide feed.
+     */
+    public static ChangeFeed getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a subscriber for the changes to one entity type.
+     *
+     * @param type the entity class, e.g. Reservation.class.
+     * @param listener the subscriber to notify.
+     */
+    public <T> void subscribe(Class<T> type, Listener<T> listener) {
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Removes a subscriber.
+     *
+     * @param type the entity class it subscribed to.
+     * @param listener the subscriber to stop notifying.
+     */
+    public <T> void unsubscribe(Class<T> type, Listener<T> listener) {
+        List<Listener<?>> subscribers = listeners.get(type);
+        if (subscribers != null) {
+            subscribers.remove(listener);
+        }
+    }
+
+    /**
+     * Tells whether anyone subscribed to an entity type, so a writer can skip working out a
+     * change's key or new state when no one would receive it.
+     *
+     * @param type the entity class.
+     * @return true if at least one subscriber is registered.
+     */
+    public boolean hasSubscribers(Class<?> type) {
+        List<Listener<?>> subscribers = listeners.get(type);
+        return subscribers != null && !subscribers.isEmpty();
+    }
+
+    /**
+     * Notifies the subscribers of a committed write.
+     *
+     * @param type the entity class.
+     * @param kind what happened to the row.
+     * @param key the row's primary key, or 0 if it is not known.
+     * @param entity the row's new state, or null if it is not known or the row was deleted.
+     */
+    public <T> void publish(Class<T> type, Kind kind, int key, T entity) {
+        List<Listener<?>> subscribers = listeners.get(type);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Change<T> change = new Change<>(type, kind, key, kind == Kind.DELETED ? null : entity);
+        UnitOfWork.afterCommit(() -> deliver(subscribers, change));
+    }
+
+    /**
+     * Notifies the subscribers that rows of a type were written without saying which,
+     * e.g. after a batch insert.
+     *
+     * @param type the entity class.
+     * @param kind what happened to the rows.
+     */
+    public <T> void publish(Class<T> type, Kind kind) {
+        publish(type, kind, 0, null);
+    }
+
+    private static <T> void deliver(List<Listener<?>> subscribers, Change<T> change) {
+        for (Listener<?> subscriber : subscribers) {
+            @SuppressWarnings("unchecked") // Subscribed with the same type
+            Listener<T> listener = (Listener<T>) subscriber;
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Change subscriber " + listener + " failed on " + change, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.fantastic.restaurant;
+
+/**
+ * Thrown by a versioned update when the row was changed by someone else after it was read.
+ *
+ * Every updatable row carries a version that each write increments. A versioned update only
+ * applies if the row still has the version the caller read; otherwise nothing is written and
+ * this exception reports which row moved on and to which version, so the caller can re-read it
+ * and decide again, e.g. through {@link OptimisticRetry}.
+ */
+@SuppressWarnings("serial")
+public class ConcurrentUpdateException extends DAOException {
+
+    private final String entity;
+    private final Object key;
+    private final int expectedVersion;
+    private final int actualVersion;
+
+    /**
+     * Constructs the exception for a row whose version no longer matches.
+     *
+     * @param entity the kind of row, e.g. "Reservation".
+     * @param key the key the row was updated by.
+     * @param expectedVersion the version the caller read.
+     * @param actualVersion the version the row has now.
+     */
+    public ConcurrentUpdateException(String entity, Object key, int expectedVersion, int actualVersion) {
+        super(entity + " " + key + " was changed by someone else (expected version " + expectedVersion
+                + ", found " + actualVersion + ").");
+        this.entity = entity;
+        this.key = key;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    /**
+     * Gets the kind of row that was changed.
+     *
+     * @return the entity name, e.g. "RestaurantTable".
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets the key the row was updated by.
+     *
+     * @return the table number, reservation ID, task ID or item name.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the version the caller read and expected to replace.
+     *
+     * @return the expected version.
+     */
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * Gets the version the row had when the update was rejected.
+     *
+     * @return the current version.
+     */
+    public int getActualVersion() {
+        return actualVersion;
+    }
+}
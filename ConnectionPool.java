@@ -0,0 +1,582 @@
+package com.fantastic.restaurant;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of physical JDBC connections handed out by {@link Database#getConnection()}.
+ * Callers keep using try-with-resources exactly as before: closing a borrowed connection
+ * returns it to the pool instead of tearing down the TCP session and MySQL authentication.
+ *
+ * - Dependability: Connections are validated on borrow, retired after a maximum lifetime,
+ *   and evicted once they sit idle for too long, so stale sockets are never handed out.
+ * - Efficiency: Idle connections are reused most-recently-used first, which keeps a small
+ *   hot set of connections and lets the evictor shrink the pool after the rush.
+ * - Maintainability: The pool only depends on java.sql and java.util.concurrent.
+ * - Observability: Active, idle and pending counts, borrow wait times and per-call-site hold
+ *   times are tracked, and an optional leak detector logs the borrowing stack of any
+ *   connection held longer than a threshold. Every statement executed on a borrowed connection
+ *   is timed, with latency, rows and errors kept per SQL text (see {@link StatementStats}), and
+ *   executions slower than a threshold are logged.
+ * - Efficiency: Each connection can keep its recently used prepared statements open (see
+ *   {@link StatementCache}), so the same SQL is not parsed again on every DAO call.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    // Connections used more recently than this are handed out without a validation ping.
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    // SQL texts tracked separately; statements built at run time beyond this share one entry.
+    private static final int MAX_TRACKED_STATEMENTS = 500;
+    private static final String UNTRACKED_SQL = "(other statements)";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> holdTimes = new ConcurrentHashMap<>();
+    private final Map<Lease, Boolean> leases = new ConcurrentHashMap<>();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private volatile long leakDetectionThresholdMillis;
+    private final Map<String, StatementStats> statementStats = new ConcurrentHashMap<>();
+    private volatile long slowQueryThresholdNanos;
+    private volatile int statementCacheSize;
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Creates a pool for the given database. No connection is opened until the first borrow.
+     *
+     * @param url the JDBC URL of the database.
+     * @param username the database user.
+     * @param password the database password.
+     * @param maxSize the maximum number of connections open at the same time.
+     * @param idleTimeoutMillis how long an unused connection may stay in the pool.
+     * @param maxLifetimeMillis how long a physical connection may live before it is replaced.
+     * @param borrowTimeoutMillis how long a caller waits for a free connection before failing.
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)} on borrow.
+     * @throws IllegalArgumentException if any size or timeout is not positive.
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize,
+                          long idleTimeoutMillis, long maxLifetimeMillis,
+                          long borrowTimeoutMillis, int validationTimeoutSeconds) {
+        if (maxSize <= 0 || idleTimeoutMillis <= 0 || maxLifetimeMillis <= 0
+                || borrowTimeoutMillis <= 0 || validationTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("Pool size and timeouts must be positive.");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        evictor.scheduleWithFixedDelay(this::detectLeaks, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Enables leak detection. Any connection held longer than the threshold is reported once,
+     * at WARNING level, together with the stack trace of the code that borrowed it.
+     * Capturing that stack costs a little on every borrow, so detection is off by default.
+     *
+     * @param thresholdMillis the maximum expected hold time, or 0 to disable detection.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setLeakDetectionThreshold(long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Leak detection threshold cannot be negative.");
+        }
+        this.leakDetectionThresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Enables the slow-query log. Any statement execution that takes at least the threshold is
+     * logged at WARNING level with its SQL, the shape of its parameters and the call site that
+     * borrowed the connection. Statement statistics are kept either way.
+     *
+     * @param thresholdMillis the slowest acceptable execution, or 0 to disable the log.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setSlowQueryThreshold(long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Slow query threshold cannot be negative.");
+        }
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /**
+     * Enables prepared statement caching for connections opened from now on. Each connection
+     * then keeps up to this many prepared statements open, and preparing the same SQL again on
+     * it reuses the open statement.
+     *
+     * @param size the number of statements cached per connection, or 0 to disable caching.
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public void setStatementCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative.");
+        }
+        this.statementCacheSize = size;
+    }
+
+    /**
+     * Borrows a connection, reusing an idle one when possible. The returned connection must be
+     * closed by the caller; closing it gives it back to the pool.
+     *
+     * @return a valid connection.
+     * @throws SQLTransientConnectionException if no connection frees up within the borrow timeout.
+     * @throws SQLException if the pool is closed or a new physical connection cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        FlightEvents.ConnectionBorrow event = new FlightEvents.ConnectionBorrow();
+        event.begin();
+        event.active = getActiveCount();
+        try {
+            long waitStart = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    timeouts.incrementAndGet();
+                    event.timedOut = true;
+                    throw new SQLTransientConnectionException(
+                            "Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a database connection.", e);
+            } finally {
+                borrowWait.record(System.nanoTime() - waitStart);
+            }
+
+            try {
+                PooledConnection pooled;
+                while ((pooled = idle.pollFirst()) != null) {
+                    if (isUsable(pooled)) {
+                        return pooled.lease();
+                    }
+                    pooled.closePhysical();
+                }
+                event.opened = true;
+                return open().lease();
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Connections still borrowed
+     * are closed when their borrowers return them.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * Gets the maximum number of connections this pool keeps open.
+     *
+     * @return the maximum pool size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of connections currently lent out.
+     *
+     * @return the number of borrowed connections.
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Gets the number of open connections waiting in the pool.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Gets the number of callers blocked waiting for a connection.
+     *
+     * @return the number of pending borrowers (an estimate, as it changes constantly).
+     */
+    public int getPendingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Gets how long callers waited to obtain a connection, including successful and timed-out borrows.
+     *
+     * @return the live borrow wait-time histogram.
+     */
+    public LatencyHistogram getBorrowWaitHistogram() {
+        return borrowWait;
+    }
+
+    /**
+     * Gets how long connections were held, keyed by the class, method and line that borrowed them.
+     *
+     * @return a snapshot of the per-call-site hold-time histograms.
+     */
+    public Map<String, LatencyHistogram> getHoldTimes() {
+        return new TreeMap<>(holdTimes);
+    }
+
+    /**
+     * Gets the execution statistics of every statement run on this pool's connections, keyed by SQL text.
+     *
+     * @return a snapshot of the per-statement statistics.
+     */
+    public Map<String, StatementStats> getStatementStats() {
+        return new TreeMap<>(statementStats);
+    }
+
+    /**
+     * Gets the number of prepared statements served from a connection's statement cache.
+     *
+     * @return the number of cache hits.
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHits.get();
+    }
+
+    /**
+     * Gets the number of prepared statements created because none was cached.
+     *
+     * @return the number of cache misses, including every prepare while caching is disabled.
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMisses.get();
+    }
+
+    /**
+     * Gets the share of prepareStatement calls served from a statement cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing was prepared yet.
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHits.get();
+        long total = hits + statementCacheMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the number of borrows that failed because no connection freed up in time.
+     *
+     * @return the number of borrow timeouts.
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * Gets the number of connections reported by the leak detector.
+     *
+     * @return the number of detected leaks.
+     */
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    /**
+     * Summarizes the pool state on one line, suitable for periodic logging.
+     *
+     * @return the active, idle and pending counts, the statement cache hit rate and the borrow wait distribution.
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, pending=%d, max=%d, timeouts=%d, leaks=%d, "
+                        + "statement cache hits=%.1f%%, wait: %s]",
+                getActiveCount(), getIdleCount(), getPendingCount(), maxSize, getTimeoutCount(), getLeakCount(),
+                getStatementCacheHitRate() * 100, borrowWait);
+    }
+
+    // Called by instrumented statements.
+    long getSlowQueryThresholdNanos() {
+        return slowQueryThresholdNanos;
+    }
+
+    // Called by instrumented statements to find where to record an execution.
+    StatementStats statsFor(String sql) {
+        StatementStats stats = statementStats.get(sql);
+        if (stats == null) {
+            String key = statementStats.size() < MAX_TRACKED_STATEMENTS ? sql : UNTRACKED_SQL;
+            stats = statementStats.computeIfAbsent(key, StatementStats::new);
+        }
+        return stats;
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        logger.info("Database connection established successfully.");
+        return new PooledConnection(physical);
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (now - pooled.createdAt >= maxLifetimeMillis) {
+            return false;
+        }
+        if (now - pooled.lastReturnedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Called by a lease when its borrower closes it.
+    private void release(PooledConnection pooled, Lease lease) {
+        leases.remove(lease);
+        holdTimes.computeIfAbsent(lease.callSite, key -> new LatencyHistogram())
+                .record(System.nanoTime() - lease.borrowedAtNanos);
+        try {
+            boolean reusable = !closed && pooled.reset()
+                    && System.currentTimeMillis() - pooled.createdAt < maxLifetimeMillis;
+            if (reusable) {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                pooled.closePhysical();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        // Oldest idle connections sit at the tail because returns are pushed to the head.
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastReturnedAt >= idleTimeoutMillis || now - pooled.createdAt >= maxLifetimeMillis) {
+                if (idle.remove(pooled)) {
+                    pooled.closePhysical();
+                }
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = leakDetectionThresholdMillis;
+        if (threshold == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Lease lease : leases.keySet()) {
+            if (!lease.reported && lease.borrowStack != null
+                    && TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAtNanos) >= threshold) {
+                lease.reported = true;
+                leaks.incrementAndGet();
+                logger.log(Level.WARNING, "Possible connection leak: connection borrowed at " + lease.callSite
+                        + " has been held for more than " + threshold + " ms.", lease.borrowStack);
+            }
+        }
+    }
+
+    // Finds the first caller outside the pool and Database, e.g. "InventoryDAOImplement.add:31".
+    private static String findCallSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(ConnectionPool.class.getName())
+                        && !f.getClassName().startsWith(ConnectionPool.class.getName() + "$")
+                        && !f.getClassName().equals(Database.class.getName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    /**
+     * A physical connection together with the bookkeeping the pool needs to reuse it.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private final long createdAt;
+        private volatile long lastReturnedAt;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private final StatementCache statements; // Null if caching was disabled when the connection was opened
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+            int cacheSize = statementCacheSize;
+            this.statements = cacheSize > 0
+                    ? new StatementCache(physical, cacheSize, statementCacheHits, statementCacheMisses) : null;
+        }
+
+        private Connection lease() {
+            Lease lease = new Lease(this);
+            leases.put(lease, Boolean.TRUE);
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    lease);
+        }
+
+        // Restores the connection to a clean state; returns false if it should be discarded.
+        // Cached statements left open are handed back to the cache rather than closed.
+        private boolean reset() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    logger.log(Level.FINE, "Failed to close a statement left open by the borrower.", e);
+                }
+            }
+            openStatements.clear();
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Discarding a pooled connection that could not be reset.", e);
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close(); // Also closes any cached statements
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Failed to close a pooled database connection.", e);
+            }
+            if (statements != null) {
+                statements.clear();
+            }
+        }
+    }
+
+    /**
+     * The connection a borrower sees. Closing it returns the physical connection to the pool;
+     * any other call after that fails as it would on a closed connection.
+     */
+    private final class Lease implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final String callSite = findCallSite();
+        private final long borrowedAtNanos = System.nanoTime();
+        private final Throwable borrowStack = leakDetectionThresholdMillis > 0
+                ? new Throwable("Connection borrowed here") : null;
+        private volatile boolean reported;
+        private boolean returned;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(pooled, this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            try {
+                Object result;
+                if (pooled.statements != null && method.getName().equals("prepareStatement")) {
+                    result = pooled.statements.prepare(method, args);
+                } else {
+                    result = method.invoke(pooled.physical, args);
+                }
+                if (result instanceof Statement) {
+                    pooled.openStatements.add((Statement) result);
+                    // prepareStatement and prepareCall name their SQL up front; createStatement does not
+                    StatementStats prepared = args != null && args.length > 0 && args[0] instanceof String
+                            ? statsFor((String) args[0]) : null;
+                    return StatementStats.instrument((Statement) result, method.getReturnType(), prepared,
+                            ConnectionPool.this, callSite);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
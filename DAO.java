@@ -1,6 +1,7 @@
 package com.fantastic.restaurant;
 
 import java.sql.SQLException;
+import java.util.Collection;
 
 
 /**
@@ -23,6 +24,17 @@ public interface DAO <T>
      */
 	void add(T t) throws SQLException, DAOException;
 	
+	/**
+     * Adds several entities to the database in as few round trips as possible.
+     * Implementations send the rows as JDBC batches of {@link Database#getBatchSize()} rows,
+     * each committed as a single transaction, instead of one INSERT and commit per entity.
+     * 
+     * @param entities The entities to be added.
+     * @throws SQLException if a batch cannot be inserted; that batch is rolled back.
+     * @throws DAOException if there is a business logic violation or other operational error.
+     */
+	void addAll(Collection<T> entities) throws SQLException, DAOException;
+	
 
     /**
      * Retrieves all entities from the database.
@@ -34,5 +46,45 @@ public interface DAO <T>
      * @throws DAOException if there is a business logic violation or other operational error.
      */
 	void view() throws SQLException, DAOException; 
+	
+	/**
+     * Streams every entity in primary key order to the given handler without loading the
+     * whole table into memory. Rows are read in keyset-paginated chunks of
+     * {@link Database#getFetchSize()} rows, so memory use stays constant however large the table is.
+     * 
+     * @param handler receives each entity together with its primary key.
+     * @throws SQLException if there is an error with the database connection or SQL query execution.
+     * @throws DAOException if there is a business logic violation or other operational error.
+     */
+	void forEach(RowHandler<? super T> handler) throws SQLException, DAOException;
+	
+	/**
+     * Retrieves one page of entities in primary key order using keyset pagination.
+     * Pass {@link Page#getLastKey()} as afterKey to continue with the next page.
+     * 
+     * @param afterKey only entities with a greater primary key are returned; 0 starts from the first entity.
+     * @param pageSize the maximum number of entities to return.
+     * @return the requested page.
+     * @throws SQLException if there is an error with the database connection or SQL query execution.
+     * @throws DAOException if there is a business logic violation or other operational error.
+     */
+	Page<T> viewPage(int afterKey, int pageSize) throws SQLException, DAOException;
+	
+	/**
+     * Receives entities streamed by {@link DAO#forEach(RowHandler)}.
+     * 
+     * @param <T> The type of the entity being streamed.
+     */
+	@FunctionalInterface
+	interface RowHandler<T>
+	{
+		/**
+	     * Handles one entity.
+	     * 
+	     * @param key the primary key of the entity's row.
+	     * @param entity the entity read from that row.
+	     */
+		void handle(int key, T entity);
+	}
 
 }
@@ -12,27 +12,64 @@ import java.util.logging.Logger;
  */
 public class Database {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/restaurant_db";
-    private static final String USERNAME = "user";
-    private static final String PASSWORD = "password";
+    // Connection settings; each can be overridden with a system property, e.g. to point the
+    // benchmarks at an embedded database.
+    private static final String URL = System.getProperty("restaurant.db.url",
+            "jdbc:mysql://localhost:3306/restaurant_db?rewriteBatchedStatements=true&useServerPrepStmts=true");
+    private static final String USERNAME = System.getProperty("restaurant.db.user", "user");
+    private static final String PASSWORD = System.getProperty("restaurant.db.password", "password");
     private static final Logger logger = Logger.getLogger(Database.class.getName());
 
+    // Pool sizing; each value can be overridden with a system property of the same name.
+    private static final int POOL_MAX_SIZE = Integer.getInteger("restaurant.db.pool.maxSize", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("restaurant.db.pool.idleTimeoutMs", 600_000L);
+    private static final long POOL_MAX_LIFETIME_MS = Long.getLong("restaurant.db.pool.maxLifetimeMs", 1_800_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("restaurant.db.pool.borrowTimeoutMs", 30_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("restaurant.db.pool.validationTimeoutS", 5);
+    private static final long POOL_LEAK_DETECTION_MS = Long.getLong("restaurant.db.pool.leakDetectionMs", 0L);
+
+    // Prepared statements kept open per pooled connection; 0 turns statement caching off.
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("restaurant.db.statementCacheSize", 64);
+
+    // Statement executions at least this slow are logged; 0 turns the slow-query log off.
+    private static final long SLOW_QUERY_MS = Long.getLong("restaurant.db.slowQueryMs", 250L);
+
+    // Rows per executeBatch/commit in the DAO bulk-insert paths.
+    private static final int BATCH_SIZE = Integer.getInteger("restaurant.db.batchSize", 500);
+
+    // How long table and staff task status changes may wait to be written in a batch; 0 writes them at once.
+    private static final long WRITE_BEHIND_MS = Long.getLong("restaurant.db.writeBehindMs", 0L);
+
+    // Pending rows at which a write-behind buffer makes writers flush it themselves.
+    private static final int WRITE_BEHIND_MAX_PENDING = Integer.getInteger("restaurant.db.writeBehindMaxPending", 10_000);
+
+    // Flushes a held-back row may fail before it is dropped and logged.
+    private static final int WRITE_BEHIND_ATTEMPTS = Integer.getInteger("restaurant.db.writeBehindAttempts", 5);
+
+    // Rows per round trip when the DAO forEach methods stream a table.
+    private static final int FETCH_SIZE = Integer.getInteger("restaurant.db.fetchSize", 500);
+
+    private static volatile ConnectionPool pool;
+
     // Private constructor to prevent instantiation
     private Database() {}
 
     /**
-     * Returns a connection to the database. This method handles database connection 
-     * creation in a secure and reliable manner.
+     * Returns a connection to the database. Connections come from a shared pool, so
+     * closing the returned connection hands it back for reuse instead of disconnecting.
+     * While a {@link UnitOfWork} is open on the calling thread, its connection is returned
+     * instead, so the caller's statements join its transaction.
      * 
      * @return a Connection object to interact with the database.
      * @throws SQLException if the database connection fails.
      */
     public static Connection getConnection() throws SQLException {
+        Connection shared = UnitOfWork.currentConnection();
+        if (shared != null) {
+            return shared;
+        }
         try {
-            // Attempt to establish a database connection
-            Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            logger.info("Database connection established successfully.");
-            return connection;
+            return getPool().borrow();
         } catch (SQLException e) {
             // Log the error and rethrow the exception
             logger.log(Level.SEVERE, "Failed to establish a database connection.", e);
@@ -40,6 +77,89 @@ public class Database {
         }
     }
 
+    /**
+     * Returns the pool behind {@link #getConnection()}, creating it on first use.
+     * 
+     * @return the shared connection pool.
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Database.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, USERNAME, PASSWORD, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS,
+                            POOL_MAX_LIFETIME_MS, POOL_BORROW_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S);
+                    current.setLeakDetectionThreshold(POOL_LEAK_DETECTION_MS);
+                    current.setSlowQueryThreshold(SLOW_QUERY_MS);
+                    current.setStatementCacheSize(STATEMENT_CACHE_SIZE);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns how many rows the DAO addAll methods send per batch and commit.
+     * 
+     * @return the configured batch size, at least 1.
+     */
+    public static int getBatchSize() {
+        return Math.max(1, BATCH_SIZE);
+    }
+
+    /**
+     * Returns how many rows the DAO forEach methods read per query while streaming a table.
+     * 
+     * @return the configured fetch size, at least 1.
+     */
+    public static int getFetchSize() {
+        return Math.max(1, FETCH_SIZE);
+    }
+
+    /**
+     * Returns how long status updates may be held back by the write-behind DAOs, e.g.
+     * {@link WriteBehindTableDAO}, before they are written in a batch.
+     * 
+     * @return the configured window in milliseconds, or 0 if updates are written at once.
+     */
+    public static long getWriteBehindMillis() {
+        return Math.max(0, WRITE_BEHIND_MS);
+    }
+
+    /**
+     * Returns how many rows a write-behind buffer may hold before a writer has to wait for a flush.
+     * 
+     * @return the configured limit, at least the batch size.
+     */
+    public static int getWriteBehindMaxPending() {
+        return Math.max(getBatchSize(), WRITE_BEHIND_MAX_PENDING);
+    }
+
+    /**
+     * Returns how many flushes may fail to write a held-back row before it is dropped.
+     * 
+     * @return the configured number of attempts, at least 1.
+     */
+    public static int getWriteBehindAttempts() {
+        return Math.max(1, WRITE_BEHIND_ATTEMPTS);
+    }
+
+    /**
+     * Writes any held-back updates, then closes the shared pool and every idle connection in it.
+     * A later call to {@link #getConnection()} starts a fresh pool.
+     */
+    public static void shutdown() {
+        WriteBehindBuffer.flushAll();
+        synchronized (Database.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+        }
+    }
+
     /**
      * Closes the provided database connection to release resources.
      * 
@@ -49,7 +169,7 @@ public class Database {
         if (connection != null) {
             try {
                 connection.close();
-                logger.info("Database connection closed successfully.");
+                logger.fine("Database connection returned to the pool.");
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "Failed to close the database connection.", e);
             }
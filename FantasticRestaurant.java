@@ -8,10 +8,22 @@ import java.util.*;
 public class FantasticRestaurant 
 {
 	public static Scanner scnr = new Scanner(System.in);
+	
+	private static AvailabilityEngine availability; //Loaded on first use, then kept current in memory
+	
+	private static FloorState floorState; //Loaded on first use; every table lookup and status change goes through it
+	
+	private static LowStockMonitor lowStockMonitor; //Loaded on first use, then kept current by inventory writes
+	
+	private static final MenuDAO menuDAO = new CachingMenuDAO(new MenuDAOImplement()); //Menu reads are served from memory
+	
+	private static OrderPipeline orderPipeline; //Loaded on first use, holds menu prices and recipes in memory
 
 	public static void main(String[] args) throws SQLException, InterruptedException 
 	{
 	    int option;//Holds user's choice for interacting with the system
+	    
+	    subscribeToChanges();
 		    
 		while(true)
 		{
@@ -52,8 +64,7 @@ public class FantasticRestaurant
 		   		   addMenuItem();
 		   	       break;
 		       case 2:
-		    	   MenuDAO menu = new MenuDAOImplement();
-		    	   menu.view();
+		    	   menuDAO.view();
 		    	   System.out.println("\n\n\n");
 	    		   Thread.sleep(5000);
 		           break;
@@ -75,6 +86,20 @@ public class FantasticRestaurant
 	    		   System.out.println("\n\n\n");
 	    		   Thread.sleep(5000);
 	    		   break;
+	    	   case 7:
+	    		   modifyOrderItem();
+	    		   break;
+	    	   case 8:
+	    		   updateOrderStatus();
+	    		   break;
+	    	   case 9:
+	    		   checkInventory();
+	    		   System.out.println("\n\n\n");
+	    		   Thread.sleep(5000);
+	    		   break;
+	    	   case 10:
+	    		   placeOrder();
+	    		   break;
 	    	   case 11:
 	    		   addReservation();
 	    		   break;
@@ -135,6 +160,144 @@ public class FantasticRestaurant
 		return time;
 	}
 	
+	//Drops the in-memory state that a write makes stale, so it is read again on next use
+	private static void subscribeToChanges()
+	{
+		ChangeFeed feed = ChangeFeed.getInstance();
+		
+		//New or removed tables and new capacities change what can be booked; seating and freeing a table do not
+		feed.subscribe(RestaurantTable.class, change ->
+		{
+			AvailabilityEngine engine = availability;
+			
+			if(engine != null && changesBookings(engine, change))
+			{
+				availability = null;
+			}
+		});
+		
+		//Menu prices and recipes are read again for the next order
+		feed.subscribe(Menu.class, change -> orderPipeline = null);
+	}
+	
+	//Tells whether a table change makes the availability index stale
+	private static boolean changesBookings(AvailabilityEngine engine, ChangeFeed.Change<RestaurantTable> change)
+	{
+		if(change.getKind() != ChangeFeed.Kind.UPDATED || !change.hasKey() || change.getEntity() == null)
+		{
+			return true; //Added, removed, or not known which table changed
+		}
+		
+		return change.getEntity().getTableCapacity() != engine.getCapacity(change.getKey());
+	}
+	
+	//Returns the reservation availability index, loading it from the database the first time
+	public static AvailabilityEngine getAvailability() throws SQLException
+	{
+		if(availability == null)
+		{
+			AvailabilityEngine engine = new AvailabilityEngine(new ReservationDAOImplement(), getFloorState());
+			
+			try
+			{
+				engine.load();
+			}
+			catch(DAOException e)
+			{
+				throw new SQLException("Unable to load table availability", e);
+			}
+			
+			availability = engine;
+		}
+		
+		return availability;
+	}
+	
+	//Returns the tables on the floor, loading them from the database the first time
+	public static FloorState getFloorState() throws SQLException
+	{
+		if(floorState == null)
+		{
+			FloorState floor;
+			long writeBehindMs = Database.getWriteBehindMillis();
+			
+			if(writeBehindMs > 0)
+			{
+				//Seating and freeing tables is written in batches (restaurant.db.writeBehindMs);
+				//a change that loses to another terminal when written makes the floor load again
+				WriteBehindTableDAO tables = new WriteBehindTableDAO(new RestaurantTableDAOImplement(), writeBehindMs);
+				floor = new FloorState(tables);
+				tables.setConflictListener(tableNumber -> floor.invalidate());
+			}
+			else
+			{
+				floor = new FloorState(new RestaurantTableDAOImplement());
+			}
+			
+			try
+			{
+				floor.load();
+			}
+			catch(DAOException e)
+			{
+				throw new SQLException("Unable to load the tables", e);
+			}
+			
+			floorState = floor;
+		}
+		
+		return floorState;
+	}
+	
+	//Returns the low stock monitor, loading the current alerts from the database the first time
+	public static LowStockMonitor getLowStockMonitor() throws SQLException
+	{
+		if(lowStockMonitor == null)
+		{
+			LowStockMonitor monitor = new LowStockMonitor(new InventoryDAOImplement());
+			
+			//Prints an alert whenever an item drops below its threshold while the program runs
+			monitor.subscribe(item -> System.out.println("LOW STOCK: " + item.getItemName() + " has "
+					+ item.getQuantity() + " " + item.getUnit() + " left (threshold " + item.getThreshold() + ")"));
+			
+			try
+			{
+				monitor.load();
+			}
+			catch(DAOException e)
+			{
+				throw new SQLException("Unable to load low stock alerts", e);
+			}
+			
+			lowStockMonitor = monitor;
+		}
+		
+		return lowStockMonitor;
+	}
+	
+	//Returns the order pipeline, reading menu prices and recipes from the database the first time
+	public static OrderPipeline getOrderPipeline() throws SQLException
+	{
+		if(orderPipeline == null)
+		{
+			OrderPipeline pipeline = new OrderPipeline(new OrderDAOImplement(), new MenuDAOImplement(), 
+					new InventoryDAOImplement(getLowStockMonitor()));
+			
+			try
+			{
+				pipeline.load();
+			}
+			catch(DAOException e)
+			{
+				throw new SQLException("Unable to load menu for ordering", e);
+			}
+			
+			orderPipeline = pipeline;
+		}
+		
+		return orderPipeline;
+	}
+	
 	//Case 1
 	public static void addMenuItem() throws SQLException
 	{
@@ -223,8 +386,7 @@ public class FantasticRestaurant
 			
 			Menu newItem = new Menu(name, description, cost, category, available);
 			
-			MenuDAO menu = new MenuDAOImplement();
-	   		menu.add(newItem);
+	   		menuDAO.add(newItem);
 			
 			//Asks the user if they would like to add more items to the table before exiting
 			System.out.println("Would you like to add another item?");
@@ -367,8 +529,8 @@ public class FantasticRestaurant
 			//Adds item to the inventory
 			Inventory item = new Inventory(itemName, quantity, unit, threshold);
 			
-			//Adds to the Inventory Table in the database
-			InventoryDAO inventoryDAO = new InventoryDAOImplement();
+			//Adds to the Inventory Table in the database, reporting it to the low stock monitor
+			InventoryDAO inventoryDAO = new InventoryDAOImplement(getLowStockMonitor());
 			inventoryDAO.add(item);
 			
 			scnr.nextLine();
@@ -379,6 +541,144 @@ public class FantasticRestaurant
 		
 	}
 	
+	//Case 7
+	public static void modifyOrderItem() throws SQLException
+	{
+		System.out.print("Enter Order ID: ");
+		int orderId = scnr.nextInt();
+		
+		try
+		{
+			//Shows the lines of the order so the right one can be picked
+			Order order = new OrderDAOImplement().getOrderById(orderId);
+			
+			if(order == null)
+			{
+				System.out.println("No order found with ID " + orderId);
+				return;
+			}
+			
+			for(OrderItem item : order.getItems())
+			{
+				System.out.println("Item " + item.getOrderItemId() + ": " + item);
+			}
+			
+			System.out.print("Enter Item ID to modify: ");
+			int orderItemId = scnr.nextInt();
+			
+			System.out.print("New Quantity: ");
+			int quantity = scnr.nextInt();
+			scnr.nextLine();
+			
+			getOrderPipeline().modifyItem(orderId, orderItemId, quantity);
+			System.out.println("Order item updated!");
+		}
+		catch(DAOException | IllegalArgumentException e)
+		{
+			System.out.println("Order item was not changed: " + e.getMessage());
+		}
+	}
+	
+	//Case 8
+	public static void updateOrderStatus() throws SQLException
+	{
+		System.out.print("Enter Order ID: ");
+		int orderId = scnr.nextInt();
+		
+		System.out.println("\n1. placed\n2. preparing\n3. served\n4. paid\n5. cancelled");
+		System.out.print("Order Status: ");
+		int num = scnr.nextInt();
+		scnr.nextLine();
+		
+		try
+		{
+			Order.Status next = Order.Status.of(num);
+			OrderPipeline pipeline = getOrderPipeline();
+			
+			//A paid order frees its table in the same transaction
+			UnitOfWork.run(() -> 
+			{
+				pipeline.updateStatus(orderId, next);
+				if(next == Order.Status.paid)
+				{
+					freeTable(orderId);
+				}
+				return null;
+			});
+			System.out.println("Order status updated!");
+		}
+		catch(DAOException | IllegalArgumentException e)
+		{
+			System.out.println("Order status was not changed: " + e.getMessage());
+		}
+	}
+	
+	//Case 9
+	public static void checkInventory() throws SQLException
+	{
+		List<Inventory> alerts = getLowStockMonitor().getAlerts();
+		
+		if(alerts.isEmpty())
+		{
+			System.out.println("All inventory items are above their threshold.");
+			return;
+		}
+		
+		System.out.println("Items that need to be reordered:");
+		for(Inventory item : alerts)
+		{
+			System.out.println(item.getItemName() + ": " + item.getQuantity() + " " + item.getUnit()
+					+ " (threshold " + item.getThreshold() + ")");
+		}
+	}
+	
+	//Case 10
+	public static void placeOrder() throws SQLException
+	{
+		String add = ""; //Holds answer for adding another item question
+		
+		System.out.print("Table ID: ");
+		int tableId = scnr.nextInt();
+		
+		System.out.print("Your User ID: ");
+		int userId = scnr.nextInt();
+		scnr.nextLine();
+		
+		try
+		{
+			Order order = new Order(tableId, userId);
+			
+			menuDAO.view();
+			
+			//Adds items to the order until the server is done
+			do
+			{
+				System.out.print("Menu Item ID: ");
+				int menuItemId = scnr.nextInt();
+				
+				System.out.print("Quantity: ");
+				int quantity = scnr.nextInt();
+				scnr.nextLine();
+				
+				System.out.print("Notes (Not Required): ");
+				String notes = scnr.nextLine();
+				
+				order.addItem(new OrderItem(menuItemId, quantity, notes));
+				
+				System.out.println("Would you like to add another item?:");
+				add = scnr.nextLine();
+				
+			}while(add.equalsIgnoreCase("yes") || add.equalsIgnoreCase("y"));
+			
+			getOrderPipeline().place(order);
+			System.out.println("Order " + order.getOrderId() + " has been placed! Total: " + String.format("$%.2f", order.getTotal()));
+		}
+		catch(DAOException | IllegalArgumentException e)
+		{
+			System.out.println("Order was not placed: " + e.getMessage());
+		}
+	}
+	
 	//Case 11
 	public static void addReservation() throws SQLException
 	{
@@ -386,6 +686,7 @@ public class FantasticRestaurant
 		String customerEmail;				//Not Required
 		String customerPhone = "";			//Not Required
 		int tableid = 0;					//Not Required
+		int partySize;						//Required, to suggest a table
 		LocalDateTime reservationDateTime;	//Required
 		int tableStatus = 0;				//Not Required(1/booked automatically)
 		
@@ -394,9 +695,11 @@ public class FantasticRestaurant
 		boolean isStatus;
 		String addAnotherReservation = "";
 		
-		ArrayList<Integer> tableID = new ArrayList<>();
+		ArrayList<Reservation> newReservations = new ArrayList<>(); //Saved together in one batch at the end
 		
-		RestaurantTableDAO tableDAO = new RestaurantTableDAOImplement();
+		RestaurantTableDAO tableDAO = getFloorState();
+		AvailabilityEngine engine = getAvailability();
+		SeatingOptimizer optimizer = new SeatingOptimizer(engine);
 		
 		do
 		{
@@ -438,55 +741,107 @@ public class FantasticRestaurant
 			}
 			System.out.println();
 			
-			//Assigns a table id(check for free tables first)
-			//ViewTables vt = new ViewTables();
-			//tableID = vt.showTables();
-			tableDAO.view();
+			//Asks for the time of reservation
+			LocalDateTime reservationTime = getTime();
 			
-			while(!isTable)
+			System.out.print("Party size: ");
+			partySize = scnr.nextInt();
+			
+			//Asks again until every table chosen could be claimed
+			List<Reservation> claimed = null;
+			while(claimed == null)
 			{
-				System.out.print("Table ID: ");
-				tableid = scnr.nextInt();
+				//Assigns a table id, suggesting the table(s) that waste the fewest seats over the evening
+				//ViewTables vt = new ViewTables();
+				//tableID = vt.showTables();
+				tableDAO.view();
 				
-				if(tableID.contains(tableid))
+				SeatingOptimizer.Seating suggested = optimizer.suggest(partySize, reservationTime);
+				if(suggested != null)
 				{
-					isTable = true;
+					System.out.println("Suggested: " + suggested);
 				}
 				else
 				{
-					System.out.println("\nTable does not exist!");
+					System.out.println("No free table or adjacent tables can seat " + partySize + " at that time.");
 				}
-			}
-			
-			//Asks for the time of reservation
-			LocalDateTime reservationTime = getTime();
-			String reserveTime = reservationTime.toString();
-			
-			//Asks for table status
-			while(!isStatus)
-			{
-				System.out.println("\n1. booked\n2. cancelled\n3. completed");
-				System.out.println("Table Status: ");
-				tableStatus = scnr.nextInt();
 				
-				if(tableStatus > 0 && tableStatus < 4)
+				List<Integer> tableIds = new ArrayList<>(); //More than one when tables are pushed together
+				isTable = false;
+				while(!isTable)
 				{
-					isStatus = true;
+					System.out.print(suggested != null ? "Table ID (0 for the suggestion): " : "Table ID: ");
+					tableid = scnr.nextInt();
+					
+					if(tableid == 0 && suggested != null)
+					{
+						tableIds.addAll(suggested.getTableIds());
+						isTable = true;
+					}
+					else if(engine.hasTable(tableid))
+					{
+						tableIds.add(tableid);
+						isTable = true;
+					}
+					else
+					{
+						System.out.println("\nTable does not exist!");
+					}
+				}
+				
+				//Asks for table status
+				while(!isStatus)
+				{
+					System.out.println("\n1. booked\n2. cancelled\n3. completed");
+					System.out.println("Table Status: ");
+					tableStatus = scnr.nextInt();
+					
+					if(tableStatus > 0 && tableStatus < 4)
+					{
+						isStatus = true;
+					}
+					else
+					{
+						System.out.println("INVALID!");
+					}
+				}
+				
+				//One reservation per table, so every table pushed together is held
+				List<Reservation> group = new ArrayList<>();
+				for(int id : tableIds)
+				{
+					group.add(new Reservation(customerName, customerEmail, customerPhone, id, reservationTime, tableStatus));
+				}
+				
+				//Claims all the tables for that time or none of them, rejecting double bookings before anything is saved
+				if(engine.reserveAll(group))
+				{
+					claimed = group;
 				}
 				else
 				{
-					System.out.println("INVALID!");
+					System.out.println(tableIds.size() == 1 ? "Table " + tableIds.get(0) + " is already booked at that time!" 
+							: "Tables " + tableIds + " are not all free at that time! None of them has been held.");
+					System.out.println("Free tables at that time: " 
+							+ engine.findFreeTables(partySize, reservationTime, engine.getDurationMinutes()));
 				}
 			}
-			Reservation newReservation = new Reservation(customerName, customerEmail, customerPhone, tableid, reserveTime, tableStatus);
-			
-			ReservationDAO reservationDAO = new ReservationDAOImplement();
-			reservationDAO.add(newReservation);
+			newReservations.addAll(claimed);
 				
 			//Ask if user wants to make another reservation
 			System.out.println("Would you like to make another reservation?: ");
 			addAnotherReservation = scnr.nextLine();
 		}while(addAnotherReservation.equalsIgnoreCase("yes") || addAnotherReservation.equalsIgnoreCase("y"));
+		
+		//Batches committed before a failure stay booked; only the unsaved reservations give their tables back
+		try
+		{
+			engine.saveAll(newReservations);
+		}
+		catch(DAOException e)
+		{
+			throw new SQLException("Unable to save the reservations", e);
+		}
 	
 		
 	}
@@ -503,6 +858,15 @@ public class FantasticRestaurant
 		System.out.println("Enter Reservation ID:");
 		int id = scnr.nextInt();
 		
+		//Remembers the version shown, so a change made at another terminal meanwhile is not overwritten
+		Reservation current = reserveDAO.getById(id);
+		if(current == null)
+		{
+			System.out.println("No reservation found with ID: " + id);
+			return;
+		}
+		System.out.println("Reservation #" + id + " is " + current.getStatus() + ".");
+		
 		//Asks for table status
 		while(!isStatus)
 		{
@@ -529,7 +893,59 @@ public class FantasticRestaurant
 			}
 		}
 		
-		reserveDAO.update(status, id);
+		AvailabilityEngine engine = getAvailability();
+		String newStatus = status;
+		
+		//The reservation, the table it seats and its release from the index commit or roll back together
+		try
+		{
+			UnitOfWork.run(() -> 
+			{
+				reserveDAO.update(newStatus, id, current.getVersion());
+				if(newStatus.equals("completed"))
+				{
+					seatParty(engine.getTableNumber(current.getTableId()));
+				}
+				//A cancelled or completed reservation no longer holds its table
+				engine.release(id);
+				return null;
+			});
+		}
+		catch(ConcurrentUpdateException e)
+		{
+			System.out.println("Reservation #" + id + " was changed at another terminal and has not been updated. Please check it and try again.");
+			return;
+		}
+		catch(DAOException e)
+		{
+			throw new SQLException("Unable to update reservation", e);
+		}
+		System.out.println("Reservation #" + id + " updated to " + status + "!");
+	}
+	
+	//Marks the table of a party that has arrived as occupied; throws so the caller's unit of work rolls back
+	private static void seatParty(int tableNumber) throws SQLException, DAOException
+	{
+		FloorState floor = getFloorState();
+		
+		//The table may have been held for the party, or left free until they came
+		if(!floor.transition(tableNumber, RestaurantTable.Status.reserved, RestaurantTable.Status.occupied)
+				&& !floor.transition(tableNumber, RestaurantTable.Status.available, RestaurantTable.Status.occupied))
+		{
+			throw new DAOException("Table " + tableNumber + " of this reservation does not exist or is already occupied.");
+		}
+	}
+	
+	//Makes the table of a paid order available again, if it is still marked occupied
+	private static void freeTable(int orderId) throws SQLException, DAOException
+	{
+		Order order = new OrderDAOImplement().getOrderById(orderId);
+		int tableNumber = getAvailability().getTableNumber(order.getTableId());
+		
+		if(tableNumber > 0)
+		{
+			getFloorState().transition(tableNumber, RestaurantTable.Status.occupied, RestaurantTable.Status.available);
+		}
 	}
 	
 	//Case 14
@@ -540,11 +956,9 @@ public class FantasticRestaurant
 		String description;
 		boolean isStaff = false;
 		boolean isStatus = false;
-		ArrayList<Integer> idFromDb;
 		
 		UserDAO userDAO = new UserDAOImplement();
 		userDAO.showStaff();
-		idFromDb = userDAO.getStaffList();
 		
 		System.out.println("\nCurrent Employee Tasks:-----------------------------------------------------------");
 		StaffTaskDAO stDAO = new StaffTaskDAOImplement();
@@ -555,20 +969,12 @@ public class FantasticRestaurant
 			System.out.println("Enter staff member's ID: ");
 			id = scnr.nextInt();
 			
-			for(int i = 0; i < idFromDb.size(); i++)//Iterates through list of id for staff members
+			//Checked against the cached staff roster, not the whole Users table
+			isStaff = userDAO.isStaff(id);
+			
+			if(!isStaff)
 			{
-				if(idFromDb.get(i) != id)
-				{
-					if(i == (idFromDb.size() - 1))//if id isn't in the list, it's not a staff member
-					{
-						System.out.println("Not a staff member!");
-					}
-				}
-				else 
-				{
-					isStaff = true;
-					break;
-				}
+				System.out.println("Not a staff member!");
 			}
 		}
 		
@@ -691,7 +1097,9 @@ public class FantasticRestaurant
 		
 		String add; //Used to hold the answer if user wants to add another table 
 		
-		RestaurantTableDAO tableDAO = new RestaurantTableDAOImplement();
+		ArrayList<RestaurantTable> newTables = new ArrayList<>(); //Saved together in one batch at the end
+		
+		RestaurantTableDAO tableDAO = getFloorState();
 		tableDAO.view();
 		
 		do
@@ -717,7 +1125,7 @@ public class FantasticRestaurant
 				{
 					if(tableStatus == 1)
 					{
-						status = "free";
+						status = "available"; //Shown as free
 						isStatus = true;
 					}
 					else if(tableStatus == 2)
@@ -741,7 +1149,7 @@ public class FantasticRestaurant
 			
 			RestaurantTable table = new RestaurantTable(tableNumber, seatCapacity, status);
 			
-			tableDAO.add(table);
+			newTables.add(table);
 			
 			//AddRestaurantTable addTable = new AddRestaurantTable(table);
 			
@@ -749,6 +1157,16 @@ public class FantasticRestaurant
 			add = scnr.nextLine();
 			
 		}while(add.equalsIgnoreCase("yes") || add.equalsIgnoreCase("y"));
+		
+		//Batches committed before a failure stay added
+		try
+		{
+			tableDAO.addAll(newTables);
+		}
+		catch(DAOException e)
+		{
+			System.out.println("Not every table was added: " + e.getMessage());
+		}
 	}
 	
 	
@@ -0,0 +1,222 @@
+package com.fantastic.restaurant;
+
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The Java Flight Recorder events emitted by the restaurant system.
+ *
+ * Each event is timed from begin() to commit() and recorded with the thread and stack that
+ * emitted it. With a continuous recording running on the terminals, e.g.
+ *
+ *   java -XX:StartFlightRecording=disk=true,maxage=1h,settings=profile ...
+ *
+ * an incident can be looked at afterwards by dumping the recording (jcmd PID JFR.dump) and
+ * opening it in JDK Mission Control, where the events appear under "Fantastic Restaurant".
+ *
+ * Database events fire on every statement, so by default only those slower than 10 ms are
+ * recorded; the business and GUI events are rare enough to record them all. Either can be
+ * changed in the recording settings under the event names below.
+ *
+ * - Efficiency: While no recording is running, emitting an event costs a field check; the
+ *   fields that take work to fill in are only computed when the event will be recorded.
+ */
+public final class FlightEvents {
+
+    private static final String CATEGORY = "Fantastic Restaurant";
+
+    // Private constructor to prevent instantiation
+    private FlightEvents() {}
+
+    /**
+     * Borrowing a connection from the {@link ConnectionPool}, including any wait for a free one
+     * and opening a new physical connection.
+     */
+    @Name("com.fantastic.restaurant.ConnectionBorrow")
+    @Label("Connection Borrow")
+    @Category({ CATEGORY, "Database" })
+    @Description("Borrowing a pooled database connection")
+    @Threshold("10 ms")
+    public static final class ConnectionBorrow extends Event {
+        @Label("Active Connections")
+        @Description("Connections lent out when the borrow started")
+        int active;
+
+        @Label("Opened")
+        @Description("Whether a new physical connection had to be opened")
+        boolean opened;
+
+        @Label("Timed Out")
+        boolean timedOut;
+    }
+
+    /**
+     * One execution of a statement on a pooled connection, recorded by {@link StatementStats}.
+     */
+    @Name("com.fantastic.restaurant.StatementExecution")
+    @Label("Statement Execution")
+    @Category({ CATEGORY, "Database" })
+    @Description("Executing a SQL statement on a pooled connection")
+    @Threshold("10 ms")
+    public static final class StatementExecution extends Event {
+        @Label("SQL")
+        String sql;
+
+        @Label("Parameters")
+        @Description("The types of the bound parameters, never their values")
+        String parameters;
+
+        @Label("Rows")
+        @Description("Rows updated; rows read by a query are not known yet when it returns")
+        long rows;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    /**
+     * Saving a reservation, or rejecting it because its table is already booked at that time.
+     */
+    @Name("com.fantastic.restaurant.ReservationBooking")
+    @Label("Reservation Booking")
+    @Category({ CATEGORY, "Business" })
+    @Description("Booking a table for a reservation")
+    public static final class ReservationBooking extends Event {
+        @Label("Table ID")
+        int tableId;
+
+        @Label("Reservation ID")
+        @Description("The generated key, or 0 if the reservation was not saved")
+        int reservationId;
+
+        @Label("Reservation Time")
+        String reservationTime;
+
+        @Label("Conflict")
+        @Description("Whether the booking was rejected because the table was taken")
+        boolean conflict;
+
+        /**
+         * Records the outcome, if a recording wants this event.
+         *
+         * @param reservation the reservation being booked.
+         * @param conflict true if it was rejected because the slot was taken.
+         */
+        void record(Reservation reservation, boolean conflict) {
+            if (shouldCommit()) {
+                this.tableId = reservation.getTableId();
+                this.reservationId = reservation.getReservationId();
+                this.reservationTime = String.valueOf(reservation.getReservationTime());
+                this.conflict = conflict;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Deducting stock from the inventory, for a single item or for all the ingredients of an order.
+     */
+    @Name("com.fantastic.restaurant.InventoryDeduction")
+    @Label("Inventory Deduction")
+    @Category({ CATEGORY, "Business" })
+    @Description("Deducting or holding inventory stock")
+    public static final class InventoryDeduction extends Event {
+        @Label("Operation")
+        @Description("decrement, consume or hold")
+        String operation;
+
+        @Label("Items")
+        String items;
+
+        @Label("Units")
+        @Description("The total quantity requested over all items")
+        long units;
+
+        @Label("Deducted")
+        @Description("False if any item was short or the deduction failed")
+        boolean deducted;
+
+        /**
+         * Records the outcome, if a recording wants this event.
+         *
+         * @param operation the InventoryDAO method, e.g. "hold".
+         * @param quantities the quantity requested per item name.
+         * @param deducted true if the stock was deducted.
+         */
+        void record(String operation, Map<String, Integer> quantities, boolean deducted) {
+            if (shouldCommit()) {
+                this.operation = operation;
+                this.items = String.join(", ", quantities.keySet());
+                this.units = quantities.values().stream().mapToLong(Integer::longValue).sum();
+                this.deducted = deducted;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A versioned update that was rejected because another terminal changed the row first.
+     */
+    @Name("com.fantastic.restaurant.UpdateConflict")
+    @Label("Update Conflict")
+    @Category({ CATEGORY, "Database" })
+    @Description("A versioned update rejected because the row was changed concurrently")
+    public static final class UpdateConflict extends Event {
+        @Label("Entity")
+        String entity;
+
+        @Label("Key")
+        String key;
+
+        @Label("Expected Version")
+        int expectedVersion;
+
+        @Label("Actual Version")
+        int actualVersion;
+
+        /**
+         * Records the conflict, if a recording wants this event.
+         *
+         * @param entity the kind of row, e.g. "Reservation".
+         * @param key the key the row was updated by.
+         * @param expectedVersion the version the update required.
+         * @param actualVersion the version the row had.
+         */
+        void record(String entity, Object key, int expectedVersion, int actualVersion) {
+            if (shouldCommit()) {
+                this.entity = entity;
+                this.key = String.valueOf(key);
+                this.expectedVersion = expectedVersion;
+                this.actualVersion = actualVersion;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Reading rows for a GUI table on a background thread.
+     */
+    @Name("com.fantastic.restaurant.TableLoad")
+    @Label("GUI Table Load")
+    @Category({ CATEGORY, "GUI" })
+    @Description("Reading the rows of a GUI table")
+    @StackTrace(false)
+    public static final class TableLoad extends Event {
+        @Label("Table")
+        String table;
+
+        @Label("Kind")
+        @Description("full, page or refresh")
+        String kind;
+
+        @Label("Rows")
+        int rows;
+    }
+}
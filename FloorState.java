@@ -0,0 +1,720 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fantastic.restaurant.RestaurantTable.Status;
+
+/**
+ * A RestaurantTableDAO that keeps the state of the floor in memory and writes every change
+ * through to another RestaurantTableDAO.
+ *
+ * Each table gets a slot, found from its table_number through a primitive int-to-int hash map.
+ * Capacities are kept in an int[] by slot, and each status (available, occupied, reserved) is
+ * a BitSet over the slots, so "is table 12 free" is one probe and one bit test, and "which free
+ * tables seat six" walks one BitSet per capacity of six or more without allocating per table.
+ *
+ * {@link #getById(int)}, {@link #getAll()} and the status queries are answered from memory.
+ * {@link #transition(int, Status, Status)} changes a table's status in memory first, so two
+ * hosts on this terminal cannot seat a party at the same table, and then persists it with the
+ * delegate's versioned update(); if that fails, the change is undone. A table changed by
+ * another terminal fails the version check instead of being overwritten: it is read again
+ * and the transition is retried against its current status. The floor is read from the
+ * delegate on first use and again by {@link #load()}; other changes made by other terminals
+ * are not seen until then. Changes made in a {@link UnitOfWork} that rolls back are forgotten
+ * by reading the floor again on next use. The unversioned update() does not learn the version it
+ * wrote, as the delegate may hold the write back (see {@link WriteBehindTableDAO}); the table is
+ * read again before its next transition. A transition records the version the delegate gives
+ * the table, which a write-behind delegate sets to the version of its pending write; if that
+ * write later fails its version check, {@link #invalidate()} makes the floor be read again.
+ *
+ * - Efficiency: Lookups take nanoseconds and hold only a read lock, so every terminal can poll the floor.
+ * - Dependability: The database stays the record of the floor; memory is rebuilt from it at start-up.
+ * - Maintainability: The state wraps any RestaurantTableDAO; the JDBC code in {@link RestaurantTableDAOImplement} is unchanged.
+ */
+public class FloorState implements RestaurantTableDAO {
+
+    private static final Status[] STATUSES = Status.values();
+    private static final int UNKNOWN_VERSION = -1; // Read the table again before a versioned write
+
+    private final RestaurantTableDAO delegate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+    private final IntIntMap slots = new IntIntMap(); // table_number -> slot
+    private int[] numbers = new int[16];             // slot -> table_number
+    private int[] capacities = new int[16];          // slot -> capacity
+    private int[] versions = new int[16];            // slot -> row version
+    private int size;
+    private final BitSet[] byStatus = new BitSet[STATUSES.length]; // status ordinal -> slots
+    private final TreeMap<Integer, BitSet> byCapacity = new TreeMap<>(); // capacity -> slots
+
+    /**
+     * Constructs the floor state in front of a RestaurantTableDAO. The tables are read from it
+     * on first use.
+     *
+     * @param delegate the DAO that reads and writes the database.
+     */
+    public FloorState(RestaurantTableDAO delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new BitSet();
+        }
+    }
+
+    /**
+     * (Re)reads every table from the delegate, replacing the state in memory.
+     *
+     * @throws DAOException if the tables cannot be read.
+     */
+    public void load() throws DAOException {
+        List<RestaurantTable> tables = new ArrayList<>();
+        try {
+            delegate.forEach((id, table) -> tables.add(table));
+        } catch (SQLException e) {
+            throw new DAOException("Error while loading the floor.", e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            size = 0;
+            for (BitSet slotsWithStatus : byStatus) {
+                slotsWithStatus.clear();
+            }
+            byCapacity.clear();
+            for (RestaurantTable table : tables) {
+                put(table);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a table from memory.
+     *
+     * @param tableNumber the table number.
+     * @return a copy of the table's current state, or null if there is no such table.
+     * @throws DAOException if the floor has to be loaded and that fails.
+     */
+    @Override
+    public RestaurantTable getById(int tableNumber) throws DAOException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            return slot < 0 ? null : toTable(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets every table from memory.
+     *
+     * @return copies of all tables, in table number order.
+     * @throws DAOException if the floor has to be loaded and that fails.
+     */
+    @Override
+    public List<RestaurantTable> getAll() throws DAOException {
+        ensureLoaded();
+        List<RestaurantTable> tables = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < size; slot++) {
+                tables.add(toTable(slot));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        tables.sort((a, b) -> Integer.compare(a.getTableNumber(), b.getTableNumber()));
+        return tables;
+    }
+
+    /**
+     * Gets a table's status from memory.
+     *
+     * @param tableNumber the table number.
+     * @return the status, or null if there is no such table.
+     * @throws DAOException if the floor has to be loaded and that fails.
+     */
+    public Status getStatus(int tableNumber) throws DAOException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            return slot < 0 ? null : statusOf(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the tables in a status.
+     *
+     * @param status the status to count.
+     * @return the number of tables in it.
+     * @throws DAOException if the floor has to be loaded and that fails.
+     */
+    public int count(Status status) throws DAOException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return byStatus[status.ordinal()].cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the available tables that can seat a party.
+     *
+     * @param partySize the number of guests.
+     * @return copies of the available tables with a capacity of at least partySize, smallest tables first.
+     * @throws DAOException if the floor has to be loaded and that fails.
+     */
+    public List<RestaurantTable> findFreeTables(int partySize) throws DAOException {
+        ensureLoaded();
+        List<RestaurantTable> free = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet available = byStatus[Status.available.ordinal()];
+            for (BitSet withCapacity : byCapacity.tailMap(partySize, true).values()) {
+                for (int slot = withCapacity.nextSetBit(0); slot >= 0; slot = withCapacity.nextSetBit(slot + 1)) {
+                    if (available.get(slot)) {
+                        free.add(toTable(slot));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Moves a table from one status to another, e.g. from available to occupied when a party is
+     * seated. The change is made in memory only if the table is still in the expected status, and
+     * is then written through to the delegate.
+     *
+     * @param tableNumber the table number.
+     * @param from the status the table must be in.
+     * @param to the new status.
+     * @return true if the table was moved, false if it does not exist or was not in the expected status.
+     * @throws ConcurrentUpdateException if other terminals kept changing the table through every retry.
+     * @throws DAOException if the change cannot be saved; the table is then left in its old status.
+     */
+    public boolean transition(int tableNumber, Status from, Status to) throws DAOException {
+        ensureLoaded();
+        return OptimisticRetry.run(() -> tryTransition(tableNumber, from, to));
+    }
+
+    // One attempt at a transition, written only if the row still has the version held in memory.
+    private boolean tryTransition(int tableNumber, Status from, Status to) throws DAOException {
+        if (versionOf(tableNumber) == UNKNOWN_VERSION) {
+            refresh(tableNumber);
+        }
+        RestaurantTable changed;
+        int version;
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            if (slot < 0 || !byStatus[from.ordinal()].get(slot)) {
+                return false;
+            }
+            setStatus(slot, to);
+            changed = toTable(slot);
+            version = versions[slot];
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean saved = false;
+        try {
+            try {
+                saved = delegate.update(changed, version);
+            } finally {
+                if (!saved) {
+                    undo(tableNumber, to, from);
+                }
+            }
+        } catch (ConcurrentUpdateException e) {
+            refresh(tableNumber); // Another terminal changed the table; the retry starts from its current state
+            throw e;
+        }
+        if (!saved) {
+            throw new DAOException("Table " + tableNumber + " no longer exists in the database.");
+        }
+        advanceVersion(tableNumber, version, changed.getVersion());
+        UnitOfWork.afterRollback(this::invalidate);
+        return true;
+    }
+
+    /**
+     * Adds a table and records it in memory.
+     *
+     * @param table the table to add.
+     * @throws SQLException if the table cannot be added.
+     * @throws DAOException if the delegate rejects the table.
+     */
+    @Override
+    public void add(RestaurantTable table) throws SQLException, DAOException {
+        delegate.add(table);
+        remember(table);
+    }
+
+    /**
+     * Adds several tables and records them in memory.
+     *
+     * @param tables the tables to add.
+     * @throws SQLException if a batch cannot be added.
+     * @throws DAOException if the delegate rejects the tables.
+     */
+    @Override
+    public void addAll(Collection<RestaurantTable> tables) throws SQLException, DAOException {
+        try {
+            delegate.addAll(tables);
+        } catch (SQLException | DAOException | RuntimeException e) {
+            loaded = false; // Some batches may have been saved; read the floor again on next use
+            throw e;
+        }
+        for (RestaurantTable table : tables) {
+            remember(table);
+        }
+    }
+
+    /**
+     * Saves a table and records it in memory.
+     *
+     * @param table the table to save.
+     * @return true if the table was saved.
+     * @throws DAOException if the table cannot be saved.
+     */
+    @Override
+    public boolean save(RestaurantTable table) throws DAOException {
+        boolean saved = delegate.save(table);
+        if (saved) {
+            remember(table);
+        }
+        return saved;
+    }
+
+    /**
+     * Updates a table's capacity and status in the database, then in memory. Its new version is
+     * read from the delegate before its next transition.
+     *
+     * @param table the table with its new capacity and status.
+     * @return true if the table was updated, false if it does not exist.
+     * @throws DAOException if the table cannot be updated.
+     */
+    @Override
+    public boolean update(RestaurantTable table) throws DAOException {
+        boolean updated = delegate.update(table);
+        if (updated) {
+            remember(table, UNKNOWN_VERSION);
+        }
+        return updated;
+    }
+
+    /**
+     * Updates a table's capacity and status in the database if it still has the expected
+     * version, then in memory.
+     *
+     * @param table the table with its new capacity and status.
+     * @param expectedVersion the version the table was read at.
+     * @return true if the table was updated, false if it does not exist.
+     * @throws ConcurrentUpdateException if the table was changed since; memory is refreshed from the database.
+     * @throws DAOException if the table cannot be updated.
+     */
+    @Override
+    public boolean update(RestaurantTable table, int expectedVersion) throws DAOException {
+        boolean updated;
+        try {
+            updated = delegate.update(table, expectedVersion);
+        } catch (ConcurrentUpdateException e) {
+            refresh(table.getTableNumber());
+            throw e;
+        }
+        if (updated) {
+            remember(table);
+        }
+        return updated;
+    }
+
+    /**
+     * Updates several tables in the database, then in memory.
+     *
+     * @param tables the tables with their new capacities and statuses.
+     * @return the number of tables updated.
+     * @throws DAOException if a batch cannot be updated; the floor is then read again on next use.
+     */
+    @Override
+    public int updateAll(Collection<RestaurantTable> tables) throws DAOException {
+        int updated;
+        try {
+            updated = delegate.updateAll(tables);
+        } catch (DAOException | RuntimeException e) {
+            loaded = false; // Some batches may have been saved; read the floor again on next use
+            throw e;
+        }
+        for (RestaurantTable table : tables) {
+            remember(table, UNKNOWN_VERSION);
+        }
+        return updated;
+    }
+
+    /**
+     * Updates several tables in the database if they still have their versions, then in memory.
+     * The tables that were changed since are read again.
+     *
+     * @param tables the tables with their new capacities and statuses and the versions they were read at.
+     * @return the tables that were changed since, or no longer exist.
+     * @throws DAOException if a batch cannot be updated; the floor is then read again on next use.
+     */
+    @Override
+    public List<RestaurantTable> updateAllVersioned(Collection<RestaurantTable> tables) throws DAOException {
+        List<RestaurantTable> skipped;
+        try {
+            skipped = delegate.updateAllVersioned(tables);
+        } catch (DAOException | RuntimeException e) {
+            loaded = false; // Some batches may have been saved; read the floor again on next use
+            throw e;
+        }
+        Set<RestaurantTable> notWritten = Collections.newSetFromMap(new IdentityHashMap<>());
+        notWritten.addAll(skipped);
+        for (RestaurantTable table : tables) {
+            if (notWritten.contains(table)) {
+                refresh(table.getTableNumber());
+            } else {
+                remember(table);
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Deletes a table from the database, then from memory.
+     *
+     * @param tableNumber the table number of the table to delete.
+     * @return true if the table was deleted.
+     * @throws DAOException if the table cannot be deleted.
+     */
+    @Override
+    public boolean delete(int tableNumber) throws DAOException {
+        boolean deleted = delegate.delete(tableNumber);
+        if (deleted && loaded) {
+            lock.writeLock().lock();
+            try {
+                remove(tableNumber);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            UnitOfWork.afterRollback(this::invalidate);
+        }
+        return deleted;
+    }
+
+    /**
+     * Prints every table, as read by the delegate.
+     *
+     * @throws SQLException if the tables cannot be read.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public void view() throws SQLException, DAOException {
+        delegate.view();
+    }
+
+    /**
+     * Streams every table in table_id order from the delegate, which knows the table_ids.
+     *
+     * @param handler receives each table and its table_id.
+     * @throws SQLException if the tables cannot be read.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public void forEach(RowHandler<? super RestaurantTable> handler) throws SQLException, DAOException {
+        delegate.forEach(handler);
+    }
+
+    /**
+     * Reads one page of tables in table_id order from the delegate.
+     *
+     * @param afterKey the table_id to start after, or 0 for the first page.
+     * @param pageSize the maximum number of tables to return.
+     * @return the requested page.
+     * @throws SQLException if the tables cannot be read.
+     * @throws DAOException if the delegate fails.
+     */
+    @Override
+    public Page<RestaurantTable> viewPage(int afterKey, int pageSize) throws SQLException, DAOException {
+        return delegate.viewPage(afterKey, pageSize);
+    }
+
+    /**
+     * Makes the next use read the floor again, e.g. after a unit of work undid writes already made
+     * in memory, or a held-back write turned out to conflict.
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private void ensureLoaded() throws DAOException {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    // Records a table written through the delegate, unless the floor will be read from scratch anyway.
+    private void remember(RestaurantTable table) {
+        remember(table, table.getVersion());
+    }
+
+    private void remember(RestaurantTable table, int version) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(table, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        UnitOfWork.afterRollback(this::invalidate);
+    }
+
+    // Re-reads one table from the delegate after it was changed elsewhere.
+    private void refresh(int tableNumber) throws DAOException {
+        if (!loaded) {
+            return;
+        }
+        RestaurantTable table = delegate.getById(tableNumber);
+        lock.writeLock().lock();
+        try {
+            if (table == null) {
+                remove(tableNumber);
+            } else {
+                put(table);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        UnitOfWork.afterRollback(this::invalidate);
+    }
+
+    private int versionOf(int tableNumber) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            return slot < 0 ? 0 : versions[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Records the version a transition wrote, unless the table has been refreshed since.
+    private void advanceVersion(int tableNumber, int oldVersion, int newVersion) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            if (slot >= 0 && versions[slot] == oldVersion) {
+                versions[slot] = newVersion;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Reverts a transition that could not be saved, unless the table has moved on since.
+    private void undo(int tableNumber, Status to, Status from) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(tableNumber);
+            if (slot >= 0 && byStatus[to.ordinal()].get(slot)) {
+                setStatus(slot, from);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- Slot bookkeeping; callers hold the write lock ----
+
+    private void put(RestaurantTable table) {
+        put(table, table.getVersion());
+    }
+
+    private void put(RestaurantTable table, int version) {
+        int number = table.getTableNumber();
+        int slot = slots.get(number);
+        if (slot < 0) {
+            slot = size++;
+            if (slot == numbers.length) {
+                numbers = Arrays.copyOf(numbers, slot * 2);
+                capacities = Arrays.copyOf(capacities, slot * 2);
+                versions = Arrays.copyOf(versions, slot * 2);
+            }
+            numbers[slot] = number;
+            slots.put(number, slot);
+        } else {
+            BitSet withCapacity = byCapacity.get(capacities[slot]);
+            withCapacity.clear(slot);
+            if (withCapacity.isEmpty()) {
+                byCapacity.remove(capacities[slot]);
+            }
+        }
+        capacities[slot] = table.getTableCapacity();
+        versions[slot] = version;
+        byCapacity.computeIfAbsent(table.getTableCapacity(), c -> new BitSet()).set(slot);
+        setStatus(slot, Status.valueOf(table.getTableStatus()));
+    }
+
+    // Frees the table's slot by moving the last slot into it, so the slots stay dense.
+    private void remove(int tableNumber) {
+        int slot = slots.get(tableNumber);
+        if (slot < 0) {
+            return;
+        }
+        int last = --size;
+        BitSet withCapacity = byCapacity.get(capacities[slot]);
+        withCapacity.clear(slot);
+        if (withCapacity.isEmpty()) {
+            byCapacity.remove(capacities[slot]);
+        }
+        for (BitSet slotsWithStatus : byStatus) {
+            slotsWithStatus.clear(slot);
+        }
+        slots.remove(tableNumber);
+
+        if (slot != last) {
+            numbers[slot] = numbers[last];
+            capacities[slot] = capacities[last];
+            versions[slot] = versions[last];
+            slots.put(numbers[slot], slot);
+            byCapacity.get(capacities[slot]).clear(last);
+            byCapacity.get(capacities[slot]).set(slot);
+            for (BitSet slotsWithStatus : byStatus) {
+                slotsWithStatus.set(slot, slotsWithStatus.get(last));
+                slotsWithStatus.clear(last);
+            }
+        }
+    }
+
+    private void setStatus(int slot, Status status) {
+        for (BitSet slotsWithStatus : byStatus) {
+            slotsWithStatus.clear(slot);
+        }
+        byStatus[status.ordinal()].set(slot);
+    }
+
+    private Status statusOf(int slot) {
+        for (Status status : STATUSES) {
+            if (byStatus[status.ordinal()].get(slot)) {
+                return status;
+            }
+        }
+        throw new IllegalStateException("Table " + numbers[slot] + " has no status.");
+    }
+
+    private RestaurantTable toTable(int slot) {
+        RestaurantTable table = new RestaurantTable(numbers[slot], capacities[slot], statusOf(slot).toString());
+        table.setVersion(versions[slot]);
+        return table;
+    }
+
+    /**
+     * A map from positive int keys to non-negative int values in two arrays, using linear probing.
+     * Key 0 marks an empty cell, which is safe because table numbers are positive.
+     */
+    private static final class IntIntMap {
+
+        private int[] keys = new int[32];
+        private int[] values = new int[32];
+        private int size;
+
+        // Returns the value for the key, or -1 if it is absent.
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(int key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        void remove(int key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = 0;
+            size--;
+            // Shift later entries of the same probe run back into the gap, so lookups still find them.
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                boolean between = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+                if (!between) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    keys[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        void clear() {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            return key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9;
+        }
+    }
+}
@@ -15,6 +15,7 @@ public class Inventory {
     private int quantity;     // The current quantity of the item in stock.
     private String unit;      // The unit of measurement for the item (e.g., kg, liters).
     private int threshold;    // The quantity threshold that triggers reordering.
+    private int version;      // The row version read from the database; 0 for a new item.
 
     /**
      * Constructs an Inventory object with the specified item name, quantity,
@@ -86,6 +87,15 @@ public class Inventory {
         this.threshold = thresh;
     }
 
+    /**
+     * Sets the row version of the item. Called by the DAO when an item is read back.
+     * 
+     * @param version the version, which every change to the item's stock increments.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Gets the name of the inventory item.
      * 
@@ -122,6 +132,15 @@ public class Inventory {
         return threshold;
     }
 
+    /**
+     * Gets the row version the item was read at, to pass to a versioned update.
+     * 
+     * @return the version, or 0 if the item has not been read from the database.
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Checks if the current quantity of the item is below the threshold, indicating a need for reorder.
      * 
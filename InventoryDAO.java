@@ -1,6 +1,7 @@
 package com.fantastic.restaurant;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * InventoryDAO interface defines data access methods for managing inventory items in the system.
@@ -23,6 +24,107 @@ public interface InventoryDAO extends DAO<Inventory> {
      */
     void updateQuantityByName(String itemName, int quantity) throws DAOException;
 
+    /**
+     * Sets the quantity of an inventory item only if its stock has not changed since it was read,
+     * so a stock count entered at one terminal cannot silently overwrite a sale made at another.
+     * 
+     * @param itemName the name of the inventory item to update.
+     * @param quantity the new quantity of the inventory item.
+     * @param expectedVersion the version the item was read at (see {@link Inventory#getVersion()}).
+     * @throws ConcurrentUpdateException if the item was changed since; nothing is written.
+     * @throws DAOException if the item does not exist or any database access error occurs.
+     */
+    void updateQuantityByName(String itemName, int quantity, int expectedVersion) throws DAOException;
+
+    /**
+     * Atomically adds to the quantity of an inventory item, e.g. when a delivery arrives.
+     * The addition is done in SQL, so concurrent updates from other terminals are never lost.
+     * 
+     * @param itemName the name of the inventory item to restock.
+     * @param amount the quantity to add; must be positive.
+     * @throws DAOException if the item does not exist or any database access error occurs.
+     */
+    void incrementBy(String itemName, int amount) throws DAOException;
+
+    /**
+     * Atomically removes from the quantity of an inventory item, but only if enough is in stock.
+     * The check and the subtraction are a single guarded UPDATE, so the quantity never goes negative
+     * and concurrent consumers never overwrite each other.
+     * 
+     * @param itemName the name of the inventory item to consume.
+     * @param amount the quantity to remove; must be positive.
+     * @return true if the stock was deducted, false if there was not enough in stock.
+     * @throws DAOException if the item does not exist or any database access error occurs.
+     */
+    boolean decrementBy(String itemName, int amount) throws DAOException;
+
+    /**
+     * Atomically removes several items in one transaction: either every quantity is deducted,
+     * or, if any item is short, nothing is.
+     * 
+     * @param quantities the quantity to remove per item name.
+     * @return true if all stock was deducted, false if any item was short and nothing changed.
+     * @throws DAOException if any database access error occurs.
+     */
+    boolean consume(Map<String, Integer> quantities) throws DAOException;
+
+    /**
+     * Sets stock aside for a pending use, such as an order that is being placed. The quantities
+     * are deducted immediately, all or nothing, and recorded as a hold that must later be
+     * committed or released.
+     * 
+     * @param quantities the quantity to hold per item name.
+     * @return the hold, or null if any item was short and nothing was held.
+     * @throws DAOException if any database access error occurs.
+     */
+    StockHold hold(Map<String, Integer> quantities) throws DAOException;
+
+    /**
+     * Makes the deduction of a hold final.
+     * 
+     * @param hold the hold returned by {@link #hold(Map)}.
+     * @throws DAOException if the hold no longer exists or any database access error occurs.
+     */
+    void commitHold(StockHold hold) throws DAOException;
+
+    /**
+     * Cancels a hold and returns its quantities to stock.
+     * 
+     * @param hold the hold returned by {@link #hold(Map)}.
+     * @throws DAOException if the hold no longer exists or any database access error occurs.
+     */
+    void releaseHold(StockHold hold) throws DAOException;
+
+    /**
+     * Records what an order took from the inventory, so that cancelling it can return exactly
+     * that. Quantities are added to what is already recorded; negative quantities record stock
+     * the order gave back. Call it in the same {@link UnitOfWork} as the stock change.
+     * 
+     * @param orderId the order the stock was used for.
+     * @param quantities the quantity used per item name.
+     * @throws DAOException if any database access error occurs.
+     */
+    void recordOrderUsage(int orderId, Map<String, Integer> quantities) throws DAOException;
+
+    /**
+     * Returns to stock everything recorded for an order by {@link #recordOrderUsage(int, Map)},
+     * and forgets the record, in one transaction.
+     * 
+     * @param orderId the order whose stock is returned.
+     * @return the quantity returned per item name; empty if nothing was recorded for the order.
+     * @throws DAOException if any database access error occurs.
+     */
+    Map<String, Integer> returnOrderUsage(int orderId) throws DAOException;
+
+    /**
+     * Returns to stock every hold older than the given age, e.g. holds left behind by a terminal that crashed.
+     * 
+     * @param maxAgeMillis holds created longer ago than this are released.
+     * @return the number of held item rows released.
+     * @throws DAOException if any database access error occurs.
+     */
+    int releaseExpiredHolds(long maxAgeMillis) throws DAOException;
+
     /**
      * Retrieves an inventory item by its name.
      * This method ensures that the item can be fetched efficiently from the database.
@@ -50,5 +152,14 @@ public interface InventoryDAO extends DAO<Inventory> {
      * @throws DAOException if any database access error occurs.
      */
     List<Inventory> getAllInventoryItems() throws DAOException;
+
+    /**
+     * Retrieves the inventory items whose quantity is below their reorder threshold.
+     * The comparison is done in the database, so only the items needing attention are transferred.
+     * 
+     * @return the items that need reordering.
+     * @throws DAOException if any database access error occurs.
+     */
+    List<Inventory> getLowStockItems() throws DAOException;
 }
 
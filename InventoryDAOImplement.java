@@ -3,7 +3,12 @@ package com.fantastic.restaurant;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * Implements the InventoryDAO interface, providing data access methods for managing inventory items.
@@ -12,9 +17,71 @@ import java.util.List;
  * - Dependability and Security: Proper exception handling and the use of prepared statements ensure security and reliability.
  * - Efficiency: The use of try-with-resources for automatic resource management and optimized database interactions ensures minimal overhead.
  * - Acceptability: Clear and descriptive method names and error messages improve the developer experience.
+ * 
+ * When constructed with a {@link LowStockMonitor}, every item this DAO writes is reported to the
+ * monitor so its set of low-stock alerts stays current without re-scanning the inventory.
  */
 public class InventoryDAOImplement implements InventoryDAO {
 
+    private static final String PAGE_SQL =
+            "SELECT item_id, name, stock_quantity, unit, threshold, version FROM Inventory WHERE item_id > ? ORDER BY item_id LIMIT ?";
+
+    // Absolute updates; every change to the stock increments the version, so a versioned
+    // update notices any relative update made since the item was read.
+    private static final String UPDATE_QUANTITY_SQL =
+            "UPDATE Inventory SET stock_quantity = ?, version = version + 1 WHERE name = ?";
+    private static final String UPDATE_QUANTITY_VERSIONED_SQL =
+            "UPDATE Inventory SET stock_quantity = ?, version = version + 1 WHERE name = ? AND version = ?";
+
+    // Relative updates are done in SQL so concurrent terminals never overwrite each other's changes.
+    private static final String INCREMENT_SQL =
+            "UPDATE Inventory SET stock_quantity = stock_quantity + ?, version = version + 1 WHERE name = ?";
+    private static final String DECREMENT_SQL =
+            "UPDATE Inventory SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE name = ? AND stock_quantity >= ?";
+    private static final String INSERT_HOLD_SQL =
+            "INSERT INTO Inventory_Holds (hold_id, item_name, quantity) VALUES (?, ?, ?)";
+    private static final String DELETE_HOLD_SQL =
+            "DELETE FROM Inventory_Holds WHERE hold_id = ?";
+    private static final String RESTOCK_HOLD_SQL =
+            "UPDATE Inventory i JOIN Inventory_Holds h ON h.item_name = i.name "
+            + "SET i.stock_quantity = i.stock_quantity + h.quantity, i.version = i.version + 1 WHERE h.hold_id = ?";
+    // Sums per item, as several expired holds may name the same item
+    private static final String RESTOCK_EXPIRED_SQL =
+            "UPDATE Inventory SET stock_quantity = stock_quantity + "
+            + "(SELECT SUM(h.quantity) FROM Inventory_Holds h WHERE h.item_name = Inventory.name AND h.created_at < ?), "
+            + "version = version + 1 WHERE name IN (SELECT item_name FROM Inventory_Holds WHERE created_at < ?)";
+    private static final String DELETE_EXPIRED_SQL =
+            "DELETE FROM Inventory_Holds WHERE created_at < ?";
+    private static final String RECORD_USAGE_SQL =
+            "INSERT INTO Order_Ingredients (order_id, item_name, quantity) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+    private static final String SELECT_USAGE_SQL =
+            "SELECT item_name, quantity FROM Order_Ingredients WHERE order_id = ? ORDER BY item_name FOR UPDATE";
+    private static final String DELETE_USAGE_SQL =
+            "DELETE FROM Order_Ingredients WHERE order_id = ?";
+    private static final String BY_NAMES_SQL =
+            "SELECT item_id, name, stock_quantity, unit, threshold, version FROM Inventory WHERE name IN (%s)";
+    private static final String LOW_STOCK_SQL =
+            "SELECT name, stock_quantity, unit, threshold, version FROM Inventory WHERE low_stock = 1 ORDER BY name";
+
+    private final LowStockMonitor monitor; // Notified of every write; may be null
+
+    /**
+     * Constructs a DAO that does not report its writes to any low-stock monitor.
+     */
+    public InventoryDAOImplement() {
+        this(null);
+    }
+
+    /**
+     * Constructs a DAO that reports every item it writes to the given monitor.
+     * 
+     * @param monitor the low-stock monitor to keep current, or null for none
+     */
+    public InventoryDAOImplement(LowStockMonitor monitor) {
+        this.monitor = monitor;
+    }
+
     /**
      * Adds a new inventory item to the database.
      * 
@@ -35,12 +102,41 @@ public class InventoryDAOImplement implements InventoryDAO {
 
             statement.executeUpdate();
             System.out.println("Item has been added to inventory!");
+            written(item);
+            ChangeFeed.getInstance().publish(Inventory.class, ChangeFeed.Kind.ADDED, 0, item);
             
         } catch (SQLException e) {
             throw new DAOException("Error while adding inventory item: " + item.getItemName(), e);
         }
     }
 
+    /**
+     * Adds several inventory items using batched inserts, one transaction per batch.
+     * 
+     * @param items the inventory items to add
+     * @throws DAOException if a database error occurs while adding the items
+     */
+    @Override
+    public void addAll(Collection<Inventory> items) throws DAOException {
+        String sqlStatement = "INSERT INTO Inventory (name, stock_quantity, unit, threshold) VALUES (?, ?, ?, ?)";
+
+        try {
+            int added = JdbcBatch.insertAll(sqlStatement, items, (statement, item) -> {
+                statement.setString(1, item.getItemName());
+                statement.setInt(2, item.getQuantity());
+                statement.setString(3, item.getUnit());
+                statement.setInt(4, item.getThreshold());
+            });
+            System.out.println(added + " items have been added to inventory!");
+            for (Inventory item : items) {
+                written(item);
+            }
+            ChangeFeed.getInstance().publish(Inventory.class, ChangeFeed.Kind.ADDED);
+        } catch (SQLException e) {
+            throw new DAOException("Error while adding " + items.size() + " inventory items.", e);
+        }
+    }
+
     /**
      * Views all inventory items in the system.
      * 
@@ -84,10 +180,8 @@ public class InventoryDAOImplement implements InventoryDAO {
      */
     @Override
     public void updateQuantityByName(String itemName, int quantity) throws DAOException {
-        String sqlStatement = "UPDATE Inventory SET stock_quantity = ? WHERE name = ?";
-
         try (Connection connect = Database.getConnection(); 
-             PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+             PreparedStatement statement = connect.prepareStatement(UPDATE_QUANTITY_SQL)) {
 
             statement.setInt(1, quantity);
             statement.setString(2, itemName);
@@ -99,12 +193,521 @@ public class InventoryDAOImplement implements InventoryDAO {
             }
 
             System.out.println("Inventory item quantity updated successfully.");
+            changed(itemName);
             
         } catch (SQLException e) {
             throw new DAOException("Error while updating inventory item: " + itemName, e);
         }
     }
 
+    /**
+     * Updates the quantity of an inventory item if its stock has not changed since it was read.
+     * 
+     * @param itemName the name of the inventory item to update
+     * @param quantity the new quantity for the inventory item
+     * @param expectedVersion the version the item was read at
+     * @throws ConcurrentUpdateException if the item was changed since it was read
+     * @throws DAOException if the item does not exist or a database error occurs
+     */
+    @Override
+    public void updateQuantityByName(String itemName, int quantity, int expectedVersion) throws DAOException {
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(UPDATE_QUANTITY_VERSIONED_SQL)) {
+
+            statement.setInt(1, quantity);
+            statement.setString(2, itemName);
+            statement.setInt(3, expectedVersion);
+
+            if (statement.executeUpdate() == 0
+                    && !RowVersions.checkConflict(connect, "Inventory", "Inventory", "name", itemName, expectedVersion)) {
+                throw new DAOException("No inventory item found with the name: " + itemName);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating inventory item: " + itemName, e);
+        }
+        changed(itemName);
+    }
+
+    /**
+     * Atomically adds to the quantity of an inventory item.
+     * 
+     * @param itemName the name of the inventory item to restock
+     * @param amount the quantity to add
+     * @throws DAOException if the item does not exist or a database error occurs
+     */
+    @Override
+    public void incrementBy(String itemName, int amount) throws DAOException {
+        requirePositive(amount);
+
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(INCREMENT_SQL)) {
+
+            statement.setInt(1, amount);
+            statement.setString(2, itemName);
+
+            if (statement.executeUpdate() == 0) {
+                throw new DAOException("No inventory item found with the name: " + itemName);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while restocking inventory item: " + itemName, e);
+        }
+        changed(itemName);
+    }
+
+    /**
+     * Atomically removes from the quantity of an inventory item if enough is in stock.
+     * 
+     * @param itemName the name of the inventory item to consume
+     * @param amount the quantity to remove
+     * @return true if the stock was deducted, false if there was not enough in stock
+     * @throws DAOException if the item does not exist or a database error occurs
+     */
+    @Override
+    public boolean decrementBy(String itemName, int amount) throws DAOException {
+        requirePositive(amount);
+        FlightEvents.InventoryDeduction event = new FlightEvents.InventoryDeduction();
+        event.begin();
+        boolean deducted = false;
+
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(DECREMENT_SQL)) {
+
+            bindDecrement(statement, itemName, amount);
+            deducted = statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new DAOException("Error while consuming inventory item: " + itemName, e);
+        } finally {
+            event.record("decrement", Collections.singletonMap(itemName, amount), deducted);
+        }
+
+        if (deducted) {
+            changed(itemName);
+            return true;
+        }
+
+        // No row matched: tell "not enough stock" apart from "no such item".
+        if (getInventoryByName(itemName) == null) {
+            throw new DAOException("No inventory item found with the name: " + itemName);
+        }
+        return false;
+    }
+
+    /**
+     * Atomically removes several items in one transaction, all or nothing.
+     * 
+     * @param quantities the quantity to remove per item name
+     * @return true if all stock was deducted, false if any item was short
+     * @throws DAOException if a database error occurs
+     */
+    @Override
+    public boolean consume(Map<String, Integer> quantities) throws DAOException {
+        Map<String, Integer> sorted = sortedQuantities(quantities);
+        FlightEvents.InventoryDeduction event = new FlightEvents.InventoryDeduction();
+        event.begin();
+        boolean deducted = false;
+
+        try (Connection connect = Database.getConnection()) {
+            connect.setAutoCommit(false);
+            try {
+                deducted = deductAll(connect, sorted);
+                if (deducted) {
+                    connect.commit();
+                } else {
+                    connect.rollback();
+                }
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while consuming inventory items: " + quantities.keySet(), e);
+        } finally {
+            event.record("consume", sorted, deducted);
+        }
+
+        if (deducted) {
+            changed(sorted.keySet());
+        }
+        return deducted;
+    }
+
+    /**
+     * Deducts several items and records them as a hold, in one transaction.
+     * 
+     * @param quantities the quantity to hold per item name
+     * @return the hold, or null if any item was short
+     * @throws DAOException if a database error occurs
+     */
+    @Override
+    public StockHold hold(Map<String, Integer> quantities) throws DAOException {
+        Map<String, Integer> sorted = sortedQuantities(quantities);
+        String holdId = UUID.randomUUID().toString();
+        FlightEvents.InventoryDeduction event = new FlightEvents.InventoryDeduction();
+        event.begin();
+        StockHold hold = null;
+
+        try (Connection connect = Database.getConnection()) {
+            connect.setAutoCommit(false);
+            try {
+                if (!deductAll(connect, sorted)) {
+                    connect.rollback();
+                    return null;
+                }
+                try (PreparedStatement statement = connect.prepareStatement(INSERT_HOLD_SQL)) {
+                    for (Map.Entry<String, Integer> item : sorted.entrySet()) {
+                        statement.setString(1, holdId);
+                        statement.setString(2, item.getKey());
+                        statement.setInt(3, item.getValue());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                connect.commit();
+                hold = new StockHold(holdId, sorted);
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while holding inventory items: " + quantities.keySet(), e);
+        } finally {
+            event.record("hold", sorted, hold != null);
+        }
+
+        changed(sorted.keySet());
+        return hold;
+    }
+
+    /**
+     * Makes the deduction of a hold final by forgetting the hold.
+     * 
+     * @param hold the hold to commit
+     * @throws DAOException if the hold no longer exists or a database error occurs
+     */
+    @Override
+    public void commitHold(StockHold hold) throws DAOException {
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(DELETE_HOLD_SQL)) {
+
+            statement.setString(1, hold.getHoldId());
+
+            if (statement.executeUpdate() == 0) {
+                throw new DAOException("Stock hold " + hold.getHoldId() + " was already committed or released.");
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while committing stock hold: " + hold.getHoldId(), e);
+        }
+    }
+
+    /**
+     * Cancels a hold and returns its quantities to stock, in one transaction.
+     * 
+     * @param hold the hold to release
+     * @throws DAOException if the hold no longer exists or a database error occurs
+     */
+    @Override
+    public void releaseHold(StockHold hold) throws DAOException {
+        boolean released;
+
+        try (Connection connect = Database.getConnection()) {
+            connect.setAutoCommit(false);
+            try (PreparedStatement restock = connect.prepareStatement(RESTOCK_HOLD_SQL);
+                 PreparedStatement delete = connect.prepareStatement(DELETE_HOLD_SQL)) {
+
+                restock.setString(1, hold.getHoldId());
+                restock.executeUpdate();
+                delete.setString(1, hold.getHoldId());
+                released = delete.executeUpdate() > 0;
+
+                if (released) {
+                    connect.commit();
+                } else {
+                    connect.rollback();
+                }
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while releasing stock hold: " + hold.getHoldId(), e);
+        }
+
+        if (!released) {
+            throw new DAOException("Stock hold " + hold.getHoldId() + " was already committed or released.");
+        }
+        changed(hold.getQuantities().keySet());
+    }
+
+    /**
+     * Adds to what is recorded as used by an order, one batch for all items.
+     * 
+     * @param orderId the order the stock was used for
+     * @param quantities the quantity used per item name; negative for stock given back
+     * @throws DAOException if a database error occurs
+     */
+    @Override
+    public void recordOrderUsage(int orderId, Map<String, Integer> quantities) throws DAOException {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(RECORD_USAGE_SQL)) {
+
+            for (Map.Entry<String, Integer> item : new TreeMap<>(quantities).entrySet()) {
+                statement.setInt(1, orderId);
+                statement.setString(2, item.getKey());
+                statement.setInt(3, item.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new DAOException("Error while recording the stock used by order: " + orderId, e);
+        }
+    }
+
+    /**
+     * Returns the stock recorded for an order and deletes the record, in one transaction.
+     * The rows are locked first, so two terminals cannot return the same stock twice.
+     * 
+     * @param orderId the order whose stock is returned
+     * @return the quantity returned per item name, empty if none was recorded
+     * @throws DAOException if a database error occurs
+     */
+    @Override
+    public Map<String, Integer> returnOrderUsage(int orderId) throws DAOException {
+        Map<String, Integer> returned = new TreeMap<>();
+
+        try (Connection connect = Database.getConnection()) {
+            connect.setAutoCommit(false);
+            try (PreparedStatement select = connect.prepareStatement(SELECT_USAGE_SQL);
+                 PreparedStatement restock = connect.prepareStatement(INCREMENT_SQL);
+                 PreparedStatement delete = connect.prepareStatement(DELETE_USAGE_SQL)) {
+
+                select.setInt(1, orderId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getInt("quantity") > 0) {
+                            returned.put(rs.getString("item_name"), rs.getInt("quantity"));
+                        }
+                    }
+                }
+                for (Map.Entry<String, Integer> item : returned.entrySet()) {
+                    restock.setInt(1, item.getValue());
+                    restock.setString(2, item.getKey());
+                    restock.addBatch();
+                }
+                if (!returned.isEmpty()) {
+                    restock.executeBatch();
+                }
+                delete.setInt(1, orderId);
+                delete.executeUpdate();
+
+                connect.commit();
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while returning the stock used by order: " + orderId, e);
+        }
+
+        if (!returned.isEmpty()) {
+            changed(returned.keySet());
+        }
+        return returned;
+    }
+
+    /**
+     * Returns to stock every hold older than the given age.
+     * 
+     * @param maxAgeMillis holds created longer ago than this are released
+     * @return the number of held item rows released
+     * @throws DAOException if a database error occurs
+     */
+    @Override
+    public int releaseExpiredHolds(long maxAgeMillis) throws DAOException {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - maxAgeMillis);
+        int released;
+
+        try (Connection connect = Database.getConnection()) {
+            connect.setAutoCommit(false);
+            try (PreparedStatement restock = connect.prepareStatement(RESTOCK_EXPIRED_SQL);
+                 PreparedStatement delete = connect.prepareStatement(DELETE_EXPIRED_SQL)) {
+
+                restock.setTimestamp(1, cutoff);
+                restock.setTimestamp(2, cutoff);
+                restock.executeUpdate();
+                delete.setTimestamp(1, cutoff);
+                released = delete.executeUpdate();
+
+                connect.commit();
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while releasing expired stock holds.", e);
+        }
+
+        if (released > 0) {
+            if (monitor != null) {
+                UnitOfWork.afterCommit(monitor::refreshAll); // Which items were restocked is not known here
+            }
+            ChangeFeed.getInstance().publish(Inventory.class, ChangeFeed.Kind.UPDATED);
+        }
+        return released;
+    }
+
+    /**
+     * Retrieves the inventory items whose quantity is below their threshold.
+     * Only flagged rows are read, through the index on the low_stock column.
+     * 
+     * @return the items that need reordering, ordered by name
+     * @throws DAOException if a database error occurs while retrieving the items
+     */
+    @Override
+    public List<Inventory> getLowStockItems() throws DAOException {
+        List<Inventory> lowStock = new ArrayList<>();
+
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(LOW_STOCK_SQL); 
+             ResultSet rs = statement.executeQuery()) {
+
+            while (rs.next()) {
+                lowStock.add(mapRow(rs));
+            }
+            return lowStock;
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving low-stock inventory items.", e);
+        }
+    }
+
+    // Reports an item whose new state is known to the monitor, once the write has committed.
+    private void written(Inventory item) {
+        if (monitor != null) {
+            UnitOfWork.afterCommit(() -> monitor.update(item));
+        }
+    }
+
+    // Reports an item whose new quantity was computed in SQL.
+    private void changed(String itemName) {
+        changed(Collections.singleton(itemName));
+    }
+
+    // Items are written by name and their new quantities are only known to the database, so if
+    // the monitor or anyone else listens, the rows are read back in one query however many items
+    // changed. The monitor gets their new state once the write has committed, and the change feed
+    // gets them under their item_id.
+    private void changed(Collection<String> itemNames) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        boolean published = feed.hasSubscribers(Inventory.class);
+        if (monitor == null && !published) {
+            return;
+        }
+        Map<Integer, Inventory> items;
+        try {
+            items = findByNames(itemNames);
+        } catch (SQLException e) {
+            // The write already succeeded; without the rows the monitor and subscribers re-read instead
+            System.err.println("Failed to read back inventory items " + itemNames + ": " + e.getMessage());
+            if (monitor != null) {
+                UnitOfWork.afterCommit(() -> itemNames.forEach(monitor::refresh));
+            }
+            feed.publish(Inventory.class, ChangeFeed.Kind.UPDATED);
+            return;
+        }
+        if (monitor != null) {
+            UnitOfWork.afterCommit(() -> {
+                List<String> missing = new ArrayList<>(itemNames);
+                for (Inventory item : items.values()) {
+                    monitor.update(item);
+                    missing.remove(item.getItemName());
+                }
+                missing.forEach(monitor::remove);
+            });
+        }
+        if (published) {
+            for (Map.Entry<Integer, Inventory> item : items.entrySet()) {
+                feed.publish(Inventory.class, ChangeFeed.Kind.UPDATED, item.getKey(), item.getValue());
+            }
+        }
+    }
+
+    // Reads the named items in one query, by item_id; names with no row are left out.
+    private static Map<Integer, Inventory> findByNames(Collection<String> itemNames) throws SQLException {
+        String sqlStatement = String.format(BY_NAMES_SQL, String.join(", ", Collections.nCopies(itemNames.size(), "?")));
+        Map<Integer, Inventory> items = new TreeMap<>();
+
+        try (Connection connect = Database.getConnection(); 
+             PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+
+            int index = 1;
+            for (String itemName : itemNames) {
+                statement.setString(index++, itemName);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    items.put(rs.getInt("item_id"), mapRow(rs));
+                }
+            }
+        }
+        return items;
+    }
+
+    // Runs one guarded decrement per item as a single batch; false if any item was short.
+    private static boolean deductAll(Connection connect, Map<String, Integer> quantities) throws SQLException {
+        try (PreparedStatement statement = connect.prepareStatement(DECREMENT_SQL)) {
+            for (Map.Entry<String, Integer> item : quantities.entrySet()) {
+                bindDecrement(statement, item.getKey(), item.getValue());
+                statement.addBatch();
+            }
+            for (int rows : statement.executeBatch()) {
+                if (rows == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static void bindDecrement(PreparedStatement statement, String itemName, int amount) throws SQLException {
+        statement.setInt(1, amount);
+        statement.setString(2, itemName);
+        statement.setInt(3, amount);
+    }
+
+    // Validates the quantities and orders them by name so concurrent transactions lock rows in the same order.
+    private static Map<String, Integer> sortedQuantities(Map<String, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("At least one item quantity is required.");
+        }
+        Map<String, Integer> sorted = new TreeMap<>();
+        for (Map.Entry<String, Integer> item : quantities.entrySet()) {
+            if (item.getKey() == null || item.getValue() == null) {
+                throw new IllegalArgumentException("Item names and quantities cannot be null.");
+            }
+            requirePositive(item.getValue());
+            sorted.put(item.getKey(), item.getValue());
+        }
+        return sorted;
+    }
+
+    private static void requirePositive(int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+    }
+
     /**
      * Retrieves an inventory item by its name.
      * 
@@ -123,12 +726,7 @@ public class InventoryDAOImplement implements InventoryDAO {
 
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
-                    return new Inventory(
-                        rs.getString("name"),
-                        rs.getInt("stock_quantity"),
-                        rs.getString("unit"),
-                        rs.getInt("threshold")
-                    );
+                    return mapRow(rs);
                 } else {
                     return null;
                 }
@@ -160,6 +758,10 @@ public class InventoryDAOImplement implements InventoryDAO {
             }
 
             System.out.println("Inventory item deleted successfully.");
+            if (monitor != null) {
+                UnitOfWork.afterCommit(() -> monitor.remove(itemName));
+            }
+            ChangeFeed.getInstance().publish(Inventory.class, ChangeFeed.Kind.DELETED);
             
         } catch (SQLException e) {
             throw new DAOException("Error while deleting inventory item: " + itemName, e);
@@ -182,13 +784,7 @@ public class InventoryDAOImplement implements InventoryDAO {
              ResultSet rs = statement.executeQuery()) {
 
             while (rs.next()) {
-                Inventory item = new Inventory(
-                    rs.getString("name"),
-                    rs.getInt("stock_quantity"),
-                    rs.getString("unit"),
-                    rs.getInt("threshold")
-                );
-                inventoryList.add(item);
+                inventoryList.add(mapRow(rs));
             }
 
             return inventoryList;
@@ -196,5 +792,49 @@ public class InventoryDAOImplement implements InventoryDAO {
             throw new DAOException("Error while retrieving all inventory items.", e);
         }
     }
+
+    /**
+     * Streams every inventory item to the handler in item_id order without loading the whole table.
+     * 
+     * @param handler receives each item and its item_id
+     * @throws DAOException if a database error occurs while reading the items
+     */
+    @Override
+    public void forEach(RowHandler<? super Inventory> handler) throws DAOException {
+        try {
+            JdbcPaging.forEach(PAGE_SQL, "item_id", InventoryDAOImplement::mapRow, handler);
+        } catch (SQLException e) {
+            throw new DAOException("Error while streaming inventory items.", e);
+        }
+    }
+
+    /**
+     * Retrieves one page of inventory items in item_id order.
+     * 
+     * @param afterKey the item_id to start after, or 0 for the first page
+     * @param pageSize the maximum number of items to return
+     * @return the requested page of inventory items
+     * @throws DAOException if a database error occurs while reading the items
+     */
+    @Override
+    public Page<Inventory> viewPage(int afterKey, int pageSize) throws DAOException {
+        try {
+            return JdbcPaging.page(PAGE_SQL, "item_id", afterKey, pageSize, InventoryDAOImplement::mapRow);
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving a page of inventory items.", e);
+        }
+    }
+
+    // Builds an Inventory object from the current row.
+    private static Inventory mapRow(ResultSet rs) throws SQLException {
+        Inventory item = new Inventory(
+            rs.getString("name"),
+            rs.getInt("stock_quantity"),
+            rs.getString("unit"),
+            rs.getInt("threshold")
+        );
+        item.setVersion(rs.getInt("version"));
+        return item;
+    }
 }
 
@@ -0,0 +1,213 @@
+package com.fantastic.restaurant;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared helper for the DAO bulk-insert and bulk-update paths. Rows are sent with
+ * addBatch/executeBatch in chunks of {@link Database#getBatchSize()} and each chunk is committed
+ * as one transaction, so a large load costs one round trip and one commit per chunk instead of
+ * one per row.
+ *
+ * The SQL passed in should be a plain single-row INSERT ... VALUES (?, ...) so that the MySQL
+ * driver can rewrite each batch into one multi-row INSERT (rewriteBatchedStatements=true).
+ * Batched UPDATEs are sent as one multi-statement round trip per chunk.
+ */
+final class JdbcBatch {
+
+    /**
+     * Binds the fields of one entity to the parameters of the INSERT or UPDATE statement.
+     *
+     * @param <T> the type of entity being written.
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement statement, T entity) throws SQLException;
+    }
+
+    /**
+     * Receives the key the database generated for an inserted entity.
+     *
+     * @param <T> the type of entity being inserted.
+     */
+    @FunctionalInterface
+    interface KeySetter<T> {
+        void setKey(T entity, int key);
+    }
+
+    // Private constructor to prevent instantiation
+    private JdbcBatch() {}
+
+    /**
+     * Inserts every entity using JDBC batching. If a chunk fails it is rolled back and the
+     * exception is rethrown; chunks committed before it stay committed.
+     *
+     * @param sql the single-row INSERT statement.
+     * @param entities the entities to insert.
+     * @param binder sets the statement parameters for one entity.
+     * @return the number of entities inserted.
+     * @throws SQLException if a chunk cannot be inserted.
+     * @throws IllegalArgumentException if the collection is null or contains null.
+     */
+    static <T> int insertAll(String sql, Collection<? extends T> entities, Binder<T> binder) throws SQLException {
+        if (entities == null || entities.contains(null)) {
+            throw new IllegalArgumentException("Entities to add cannot be null.");
+        }
+        return executeAll(sql, entities, binder, false, null, null);
+    }
+
+    /**
+     * Inserts every entity like {@link #insertAll(String, Collection, Binder)}, and hands each
+     * entity the key generated for its row once its chunk is committed. After a failure, the
+     * entities that were given no key are the ones that were not saved.
+     *
+     * @param sql the single-row INSERT statement.
+     * @param entities the entities to insert.
+     * @param binder sets the statement parameters for one entity.
+     * @param keys receives the generated key of each saved entity.
+     * @return the number of entities inserted.
+     * @throws SQLException if a chunk cannot be inserted.
+     * @throws IllegalArgumentException if the collection is null or contains null.
+     */
+    static <T> int insertAll(String sql, Collection<? extends T> entities, Binder<T> binder,
+                             KeySetter<? super T> keys) throws SQLException {
+        if (entities == null || entities.contains(null)) {
+            throw new IllegalArgumentException("Entities to add cannot be null.");
+        }
+        return executeAll(sql, entities, binder, false, keys, null);
+    }
+
+    /**
+     * Updates a row for every entity using JDBC batching. If a chunk fails it is rolled back and
+     * the exception is rethrown; chunks committed before it stay committed.
+     *
+     * @param sql the single-row UPDATE statement.
+     * @param entities the entities to write.
+     * @param binder sets the statement parameters for one entity.
+     * @return the number of rows the database reports as updated.
+     * @throws SQLException if a chunk cannot be updated.
+     * @throws IllegalArgumentException if the collection is null or contains null.
+     */
+    static <T> int updateAll(String sql, Collection<? extends T> entities, Binder<T> binder) throws SQLException {
+        if (entities == null || entities.contains(null)) {
+            throw new IllegalArgumentException("Entities to update cannot be null.");
+        }
+        return executeAll(sql, entities, binder, true, null, null);
+    }
+
+    /**
+     * Updates a row for every entity like {@link #updateAll(String, Collection, Binder)}, and
+     * tells which entities changed no row, e.g. because a versioned UPDATE found a newer version.
+     * A statement the driver ran without reporting its row count is taken to have changed its row.
+     *
+     * @param sql the single-row UPDATE statement.
+     * @param entities the entities to write.
+     * @param binder sets the statement parameters for one entity.
+     * @return the entities whose UPDATE changed no row.
+     * @throws SQLException if a chunk cannot be updated.
+     * @throws IllegalArgumentException if the collection is null or contains null.
+     */
+    static <T> List<T> updateEach(String sql, Collection<? extends T> entities, Binder<T> binder) throws SQLException {
+        if (entities == null || entities.contains(null)) {
+            throw new IllegalArgumentException("Entities to update cannot be null.");
+        }
+        List<T> unchanged = new ArrayList<>();
+        executeAll(sql, entities, binder, true, null, unchanged);
+        return unchanged;
+    }
+
+    // Returns the number of entities sent, or with countRows the rows the driver reports as changed.
+    // Entities whose statement changed no row are added to unchanged, if given.
+    private static <T> int executeAll(String sql, Collection<? extends T> entities, Binder<T> binder,
+                                      boolean countRows, KeySetter<? super T> keys,
+                                      List<? super T> unchanged) throws SQLException {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+
+        int batchSize = Database.getBatchSize();
+        int written = 0;
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = keys == null ? connect.prepareStatement(sql)
+                     : connect.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            connect.setAutoCommit(false);
+            try {
+                List<T> chunk = new ArrayList<>(Math.min(batchSize, entities.size()));
+                for (T entity : entities) {
+                    binder.bind(statement, entity);
+                    statement.addBatch();
+                    chunk.add(entity);
+                    if (chunk.size() == batchSize) {
+                        written += executeChunk(connect, statement, chunk, countRows, keys, unchanged);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    written += executeChunk(connect, statement, chunk, countRows, keys, unchanged);
+                }
+            } catch (SQLException | RuntimeException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        }
+        return written;
+    }
+
+    // Sends and commits one chunk, then hands out its generated keys and the entities it did not change.
+    private static <T> int executeChunk(Connection connect, PreparedStatement statement, List<T> chunk,
+                                        boolean countRows, KeySetter<? super T> keys,
+                                        List<? super T> unchanged) throws SQLException {
+        int[] updateCounts = statement.executeBatch();
+        int written = count(updateCounts, chunk.size(), countRows);
+        int[] generated = keys == null ? null : generatedKeys(statement, chunk.size());
+        connect.commit();
+        if (unchanged != null) {
+            for (int i = 0; i < chunk.size() && i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    unchanged.add(chunk.get(i));
+                }
+            }
+        }
+        if (keys != null) {
+            for (int i = 0; i < chunk.size(); i++) {
+                if (generated[i] > 0) {
+                    keys.setKey(chunk.get(i), generated[i]);
+                }
+            }
+        }
+        chunk.clear();
+        return written;
+    }
+
+    // Reads the keys generated by a batch in row order; rows the driver gave no key stay 0.
+    private static int[] generatedKeys(PreparedStatement statement, int rows) throws SQLException {
+        int[] generated = new int[rows];
+        try (ResultSet rs = statement.getGeneratedKeys()) {
+            for (int i = 0; i < rows && rs.next(); i++) {
+                generated[i] = rs.getInt(1);
+            }
+        }
+        return generated;
+    }
+
+    // A statement the driver ran without reporting its row count is counted as one row.
+    private static int count(int[] updateCounts, int sent, boolean countRows) {
+        if (!countRows) {
+            return sent;
+        }
+        int rows = 0;
+        for (int updated : updateCounts) {
+            rows += updated == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updated, 0);
+        }
+        return rows;
+    }
+}
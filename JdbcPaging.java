@@ -0,0 +1,114 @@
+package com.fantastic.restaurant;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared helper for the DAO read paths. Reads use keyset pagination: the SQL must select
+ * rows WHERE key &gt; ? ORDER BY key LIMIT ?, so every page is an indexed range scan on the
+ * primary key and no page holds more than a fixed number of rows in memory.
+ */
+final class JdbcPaging {
+
+    /**
+     * Converts the current row of a result set into an entity.
+     *
+     * @param <T> the type of entity produced.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Private constructor to prevent instantiation
+    private JdbcPaging() {}
+
+    /**
+     * Reads one page of entities.
+     *
+     * @param sql the keyset query, taking the key to start after and the row limit.
+     * @param keyColumn the primary key column the query orders by.
+     * @param afterKey only rows with a greater key are returned; 0 starts at the beginning.
+     * @param pageSize the maximum number of entities on the page.
+     * @param mapper converts each row into an entity.
+     * @return the page, including whether more rows follow.
+     * @throws SQLException if the query fails.
+     * @throws IllegalArgumentException if the page size is not positive.
+     */
+    static <T> Page<T> page(String sql, String keyColumn, int afterKey, int pageSize, RowMapper<T> mapper)
+            throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+
+        List<T> items = new ArrayList<>(Math.min(pageSize, 1024));
+        int[] keys = new int[Math.min(pageSize, 1024)];
+        boolean more = false;
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(sql)) {
+
+            // Ask for one extra row to learn whether another page exists.
+            statement.setInt(1, afterKey);
+            statement.setInt(2, pageSize + 1);
+            statement.setFetchSize(pageSize + 1);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    if (items.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    if (items.size() == keys.length) {
+                        keys = Arrays.copyOf(keys, Math.min(pageSize, keys.length * 2));
+                    }
+                    keys[items.size()] = rs.getInt(keyColumn);
+                    items.add(mapper.map(rs));
+                }
+            }
+        }
+        return new Page<>(items, keys, more);
+    }
+
+    /**
+     * Streams every entity to the handler, one page of {@link Database#getFetchSize()} rows at a time.
+     * Only the current row is held in memory, and each page uses its own short-lived connection,
+     * so scanning a very large table neither grows the heap nor pins a connection for the whole scan.
+     *
+     * @param sql the keyset query, taking the key to start after and the row limit.
+     * @param keyColumn the primary key column the query orders by.
+     * @param mapper converts each row into an entity.
+     * @param handler receives each entity with its key, in key order.
+     * @throws SQLException if a query fails.
+     */
+    static <T> void forEach(String sql, String keyColumn, RowMapper<T> mapper, DAO.RowHandler<? super T> handler)
+            throws SQLException {
+        int fetchSize = Database.getFetchSize();
+        int afterKey = 0;
+        int rows;
+
+        do {
+            rows = 0;
+            try (Connection connect = Database.getConnection();
+                 PreparedStatement statement = connect.prepareStatement(sql)) {
+
+                statement.setInt(1, afterKey);
+                statement.setInt(2, fetchSize);
+                statement.setFetchSize(fetchSize);
+
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        afterKey = rs.getInt(keyColumn);
+                        handler.handle(afterKey, mapper.map(rs));
+                        rows++;
+                    }
+                }
+            }
+        } while (rows == fetchSize);
+    }
+}
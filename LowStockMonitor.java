@@ -0,0 +1,183 @@
+package com.fantastic.restaurant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a live set of inventory items whose stock is below their reorder threshold and
+ * notifies subscribers when an item drops below or recovers.
+ *
+ * The set is filled once from an indexed query ({@link InventoryDAO#getLowStockItems()}) and
+ * then kept current by the {@link InventoryDAOImplement} instances constructed with this monitor,
+ * which report every item they write. Checking for shortages therefore costs O(alerts), not a
+ * scan of the whole inventory.
+ *
+ * - Maintainability: Subscribers only implement {@link Listener}; the monitor knows nothing about the CLI or GUI.
+ * - Dependability: A failing subscriber is logged and does not stop the others from being notified.
+ */
+public class LowStockMonitor {
+
+    /**
+     * Receives low-stock notifications.
+     */
+    public interface Listener {
+
+        /**
+         * Called when an item is found below its threshold, or changes while still below it.
+         *
+         * @param item the item that needs reordering.
+         */
+        void onLowStock(Inventory item);
+
+        /**
+         * Called when an item that was below its threshold is restocked or deleted.
+         *
+         * @param itemName the name of the item that no longer needs reordering.
+         */
+        default void onRestocked(String itemName) {
+        }
+    }
+
+    private static final Logger logger = Logger.getLogger(LowStockMonitor.class.getName());
+
+    private final InventoryDAO inventoryDAO;
+    private final Map<String, Inventory> lowStock = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a monitor. Call {@link #load()} to fill it.
+     *
+     * @param inventoryDAO the DAO used to read the current state of items.
+     */
+    public LowStockMonitor(InventoryDAO inventoryDAO) {
+        this.inventoryDAO = inventoryDAO;
+    }
+
+    /**
+     * Rebuilds the set of low-stock items from the database and notifies subscribers of each one.
+     *
+     * @throws DAOException if the low-stock items cannot be read.
+     */
+    public void load() throws DAOException {
+        List<Inventory> items = inventoryDAO.getLowStockItems();
+        List<String> recovered = new ArrayList<>(lowStock.keySet());
+
+        for (Inventory item : items) {
+            recovered.remove(item.getItemName());
+            update(item);
+        }
+        for (String itemName : recovered) {
+            remove(itemName);
+        }
+    }
+
+    /**
+     * Registers a subscriber.
+     *
+     * @param listener the subscriber to notify.
+     */
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a subscriber.
+     *
+     * @param listener the subscriber to stop notifying.
+     */
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the items currently below their threshold.
+     *
+     * @return a snapshot of the low-stock items, ordered by name.
+     */
+    public List<Inventory> getAlerts() {
+        return new ArrayList<>(new TreeMap<>(lowStock).values());
+    }
+
+    /**
+     * Tells whether an item is currently below its threshold.
+     *
+     * @param itemName the name of the item.
+     * @return true if the item needs reordering.
+     */
+    public boolean isLow(String itemName) {
+        return lowStock.containsKey(itemName);
+    }
+
+    /**
+     * Records the current state of an item that was just written.
+     *
+     * @param item the item as it is now stored.
+     */
+    public void update(Inventory item) {
+        if (item.isReorderNeeded()) {
+            lowStock.put(item.getItemName(), item);
+            for (Listener listener : listeners) {
+                notify(listener, () -> listener.onLowStock(item));
+            }
+        } else {
+            remove(item.getItemName());
+        }
+    }
+
+    /**
+     * Re-reads an item after a relative update, whose resulting quantity is only known to the database.
+     *
+     * @param itemName the name of the item that changed.
+     */
+    public void refresh(String itemName) {
+        try {
+            Inventory item = inventoryDAO.getInventoryByName(itemName);
+            if (item == null) {
+                remove(itemName);
+            } else {
+                update(item);
+            }
+        } catch (DAOException e) {
+            logger.log(Level.WARNING, "Could not refresh low-stock state of " + itemName, e);
+        }
+    }
+
+    /**
+     * Rebuilds the set of low-stock items like {@link #load()}, logging rather than throwing if
+     * they cannot be read, e.g. after a write that changed items it cannot name.
+     */
+    public void refreshAll() {
+        try {
+            load();
+        } catch (DAOException e) {
+            logger.log(Level.WARNING, "Could not reload the low-stock items", e);
+        }
+    }
+
+    /**
+     * Forgets an item that was deleted or restocked.
+     *
+     * @param itemName the name of the item.
+     */
+    public void remove(String itemName) {
+        if (lowStock.remove(itemName) != null) {
+            for (Listener listener : listeners) {
+                notify(listener, () -> listener.onRestocked(itemName));
+            }
+        }
+    }
+
+    private static void notify(Listener listener, Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Low-stock subscriber " + listener + " failed.", e);
+        }
+    }
+}
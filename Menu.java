@@ -11,6 +11,7 @@ package com.fantastic.restaurant;
 public class Menu {
 
     // Item attributes
+    private int menuItemId; // Set once saved; 0 for a new item
     private String itemName;
     private double itemCost;
     private String itemDescription;
@@ -102,8 +103,26 @@ public class Menu {
         this.itemAvailability = available;
     }
 
+    /**
+     * Sets the database ID of the menu item. Called when the item is read from the database.
+     * 
+     * @param id the menu_item_id of the menu item
+     */
+    public void setMenuItemId(int id) {
+        this.menuItemId = id;
+    }
+
     // Getters
 
+    /**
+     * Gets the database ID of the menu item.
+     * 
+     * @return the menu_item_id, or 0 if the item has not been saved
+     */
+    public int getMenuItemId() {
+        return menuItemId;
+    }
+
     /**
      * Gets the name of the menu item.
      * 
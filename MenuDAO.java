@@ -1,5 +1,7 @@
 package com.fantastic.restaurant;
 
+import java.util.Map;
+
 /**
  * The MenuDAO interface defines the necessary data access methods for managing
  * menu items in the restaurant's system. This interface ensures that the system
@@ -40,5 +42,14 @@ public interface MenuDAO extends DAO<Menu> {
      * @throws DAOException if an error occurs while deleting the menu item
      */
     boolean deleteMenuItem(int id) throws DAOException;
+
+    /**
+     * Retrieves the recipe of every menu item: the inventory used by one serving.
+     * The recipes are small and change rarely, so they are read in a single query and kept by the caller.
+     * 
+     * @return a map from menu_item_id to the quantity used per inventory item name
+     * @throws DAOException if an error occurs while accessing the data source
+     */
+    Map<Integer, Map<String, Integer>> getIngredients() throws DAOException;
 }
 
@@ -4,6 +4,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Implements the MenuDAO interface to manage menu items in the system.
@@ -17,6 +21,21 @@ import java.sql.SQLException;
  */
 public class MenuDAOImplement implements MenuDAO {
 
+    // Column titles of the menu listing printed by view()
+    static final String HEADER =
+            String.format("%-3s %-8s %-55s %-8s %-15s %-10s\n", "ID", "Name", "Description", "Price", "Category", "Availability");
+
+    private static final String INGREDIENTS_SQL =
+            "SELECT menu_item_id, item_name, quantity FROM Menu_Ingredients";
+    private static final String SELECT_COLUMNS =
+            "SELECT menu_item_id, name, description, price, category, availability FROM Menu_Items";
+    private static final String BY_ID_SQL = SELECT_COLUMNS + " WHERE menu_item_id = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE Menu_Items SET name = ?, description = ?, price = ?, category = ?, availability = ? WHERE menu_item_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Menu_Items WHERE menu_item_id = ?";
+    private static final String PAGE_SQL =
+            "SELECT menu_item_id, name, description, price, category, availability FROM Menu_Items WHERE menu_item_id > ? ORDER BY menu_item_id LIMIT ?";
+
     /**
      * Adds a new menu item to the database.
      * 
@@ -28,7 +47,7 @@ public class MenuDAOImplement implements MenuDAO {
         String sqlStatement = "INSERT INTO Menu_Items (name, description, price, category, availability) VALUES (?, ?, ?, ?, ?)";
         
         try (Connection connect = Database.getConnection();
-             PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+             PreparedStatement statement = connect.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
 
             // Set values for the prepared statement
             statement.setString(1, item.getName());
@@ -37,8 +56,13 @@ public class MenuDAOImplement implements MenuDAO {
             statement.setString(4, item.getCategory());
             statement.setInt(5, item.getAvailability());
 
-            // Execute the update
+            // Execute the update and keep the generated id
             statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    item.setMenuItemId(keys.getInt(1));
+                }
+            }
             System.out.println("Menu item has been added to the Menu_Items table!");
 
         } catch (SQLException e) {
@@ -46,6 +70,34 @@ public class MenuDAOImplement implements MenuDAO {
             System.err.println("Error while adding menu item: " + e.getMessage());
             throw e;
         }
+        ChangeFeed.getInstance().publish(Menu.class, ChangeFeed.Kind.ADDED, item.getMenuItemId(), item);
+    }
+
+    /**
+     * Adds several menu items using batched inserts, one transaction per batch.
+     * 
+     * @param items the menu items to add to the database.
+     * @throws SQLException if an error occurs while adding the items to the database.
+     */
+    @Override
+    public void addAll(Collection<Menu> items) throws SQLException {
+        String sqlStatement = "INSERT INTO Menu_Items (name, description, price, category, availability) VALUES (?, ?, ?, ?, ?)";
+
+        try {
+            int added = JdbcBatch.insertAll(sqlStatement, items, (statement, item) -> {
+                statement.setString(1, item.getName());
+                statement.setString(2, item.getDescription());
+                statement.setDouble(3, item.getCost());
+                statement.setString(4, item.getCategory());
+                statement.setInt(5, item.getAvailability());
+            });
+            System.out.println(added + " menu items have been added to the Menu_Items table!");
+            ChangeFeed.getInstance().publish(Menu.class, ChangeFeed.Kind.ADDED);
+        } catch (SQLException e) {
+            // Log and rethrow SQLException for calling methods to handle
+            System.err.println("Error while adding menu items: " + e.getMessage());
+            throw e;
+        }
     }
 
     /**
@@ -55,25 +107,16 @@ public class MenuDAOImplement implements MenuDAO {
      */
     @Override
     public void view() throws SQLException {
-        String sqlStatement = "SELECT * FROM Menu_Items";
-        
         try (Connection connect = Database.getConnection();
-             PreparedStatement statement = connect.prepareStatement(sqlStatement);
+             PreparedStatement statement = connect.prepareStatement(SELECT_COLUMNS);
              ResultSet rs = statement.executeQuery()) {
 
             // Print the column titles
-            System.out.printf("%-3s %-8s %-55s %-8s %-15s %-10s\n", "ID", "Name", "Description", "Price", "Category", "Availability");
+            System.out.print(HEADER);
 
             // Print the rows from the result set
             while (rs.next()) {
-                int id = rs.getInt("menu_item_id");
-                String name = rs.getString("name");
-                String description = rs.getString("description");
-                double cost = rs.getDouble("price");
-                String category = rs.getString("category");
-                int available = rs.getInt("availability");
-
-                System.out.printf("%-3d %-8s %-55s %-8.2f %-15s %-10d\n", id, name, description, cost, category, available);
+                System.out.print(format(mapRow(rs)));
             }
         } catch (SQLException e) {
             // Log and rethrow SQLException for calling methods to handle
@@ -91,8 +134,16 @@ public class MenuDAOImplement implements MenuDAO {
      */
     @Override
     public Menu getMenuItemById(int id) throws DAOException {
-        // Placeholder for future implementation
-        throw new UnsupportedOperationException("Method not implemented yet.");
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(BY_ID_SQL)) {
+
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? mapRow(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving menu item " + id, e);
+        }
     }
 
     /**
@@ -104,8 +155,27 @@ public class MenuDAOImplement implements MenuDAO {
      */
     @Override
     public boolean updateMenuItem(Menu menu) throws DAOException {
-        // Placeholder for future implementation
-        throw new UnsupportedOperationException("Method not implemented yet.");
+        if (menu == null || menu.getMenuItemId() <= 0) {
+            throw new IllegalArgumentException("Menu item to update must have been read from the database.");
+        }
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(UPDATE_SQL)) {
+
+            statement.setString(1, menu.getName());
+            statement.setString(2, menu.getDescription());
+            statement.setDouble(3, menu.getCost());
+            statement.setString(4, menu.getCategory());
+            statement.setInt(5, menu.getAvailability());
+            statement.setInt(6, menu.getMenuItemId());
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating menu item " + menu.getMenuItemId(), e);
+        }
+        ChangeFeed.getInstance().publish(Menu.class, ChangeFeed.Kind.UPDATED, menu.getMenuItemId(), menu);
+        return true;
     }
 
     /**
@@ -117,8 +187,85 @@ public class MenuDAOImplement implements MenuDAO {
      */
     @Override
     public boolean deleteMenuItem(int id) throws DAOException {
-        // Placeholder for future implementation
-        throw new UnsupportedOperationException("Method not implemented yet.");
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(DELETE_SQL)) {
+
+            statement.setInt(1, id);
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while deleting menu item " + id, e);
+        }
+        ChangeFeed.getInstance().publish(Menu.class, ChangeFeed.Kind.DELETED, id, null);
+        return true;
+    }
+
+    /**
+     * Retrieves the recipe of every menu item in a single query.
+     * 
+     * @return a map from menu_item_id to the quantity used per inventory item name.
+     * @throws DAOException if an error occurs while reading the recipes.
+     */
+    @Override
+    public Map<Integer, Map<String, Integer>> getIngredients() throws DAOException {
+        Map<Integer, Map<String, Integer>> recipes = new HashMap<>();
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(INGREDIENTS_SQL);
+             ResultSet rs = statement.executeQuery()) {
+
+            while (rs.next()) {
+                recipes.computeIfAbsent(rs.getInt("menu_item_id"), id -> new HashMap<>())
+                        .put(rs.getString("item_name"), rs.getInt("quantity"));
+            }
+            return recipes;
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving menu ingredients.", e);
+        }
+    }
+
+    /**
+     * Streams every menu item to the handler in menu_item_id order without loading the whole table.
+     * 
+     * @param handler receives each menu item and its menu_item_id.
+     * @throws SQLException if an error occurs while reading the menu items.
+     */
+    @Override
+    public void forEach(RowHandler<? super Menu> handler) throws SQLException {
+        JdbcPaging.forEach(PAGE_SQL, "menu_item_id", MenuDAOImplement::mapRow, handler);
+    }
+
+    /**
+     * Retrieves one page of menu items in menu_item_id order.
+     * 
+     * @param afterKey the menu_item_id to start after, or 0 for the first page.
+     * @param pageSize the maximum number of menu items to return.
+     * @return the requested page of menu items.
+     * @throws SQLException if an error occurs while reading the menu items.
+     */
+    @Override
+    public Page<Menu> viewPage(int afterKey, int pageSize) throws SQLException {
+        return JdbcPaging.page(PAGE_SQL, "menu_item_id", afterKey, pageSize, MenuDAOImplement::mapRow);
+    }
+
+    // Formats one row of the menu listing printed by view().
+    static String format(Menu item) {
+        return String.format("%-3d %-8s %-55s %-8.2f %-15s %-10d\n", item.getMenuItemId(), item.getName(),
+                item.getDescription(), item.getCost(), item.getCategory(), item.getAvailability());
+    }
+
+    // Builds a Menu object from the current row.
+    private static Menu mapRow(ResultSet rs) throws SQLException {
+        Menu item = new Menu(
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getDouble("price"),
+            rs.getString("category"),
+            rs.getInt("availability")
+        );
+        item.setMenuItemId(rs.getInt("menu_item_id"));
+        return item;
     }
 }
 
@@ -0,0 +1,99 @@
+package com.fantastic.restaurant;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Runs a read-decide-write step again when its versioned update loses to another terminal.
+ *
+ * The step must read the row afresh on every attempt, decide on the change from what it read,
+ * and write it with a versioned update. If the write throws {@link ConcurrentUpdateException},
+ * the step is run again after a short random pause, so two terminals that collided do not
+ * collide again in lockstep. Other exceptions, and the last conflict, go to the caller.
+ *
+ * Inside a {@link UnitOfWork} the step is run once, as its transaction would keep reading the
+ * same rows; to retry, wrap the whole unit of work instead.
+ *
+ * <pre>
+ * OptimisticRetry.run(() -&gt; {
+ *     Inventory item = inventoryDAO.getInventoryByName("Flour");
+ *     inventoryDAO.updateQuantityByName("Flour", item.getQuantity() * 2, item.getVersion());
+ *     return null;
+ * });
+ * </pre>
+ *
+ * - Efficiency: No locks are held while a terminal decides; a conflict costs one re-read.
+ * - Dependability: An update never silently overwrites a change it has not seen.
+ */
+public final class OptimisticRetry {
+
+    private static final Logger logger = Logger.getLogger(OptimisticRetry.class.getName());
+
+    /** How many times a step is run before a conflict is reported, from restaurant.db.updateAttempts. */
+    public static final int MAX_ATTEMPTS = Integer.getInteger("restaurant.db.updateAttempts", 5);
+
+    /**
+     * One read-decide-write step.
+     *
+     * @param <T> the result of the step.
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run() throws DAOException;
+    }
+
+    // Private constructor to prevent instantiation
+    private OptimisticRetry() {}
+
+    /**
+     * Runs a step, retrying it up to the default number of attempts.
+     *
+     * @param <T> the result of the step.
+     * @param attempt the step; it must re-read what it updates.
+     * @return the result of the first attempt that did not conflict.
+     * @throws ConcurrentUpdateException if every attempt conflicted.
+     * @throws DAOException if an attempt fails otherwise.
+     */
+    public static <T> T run(Attempt<T> attempt) throws DAOException {
+        return run(MAX_ATTEMPTS, attempt);
+    }
+
+    /**
+     * Runs a step, retrying it when it conflicts.
+     *
+     * @param <T> the result of the step.
+     * @param maxAttempts the most times the step is run.
+     * @param attempt the step; it must re-read what it updates.
+     * @return the result of the first attempt that did not conflict.
+     * @throws ConcurrentUpdateException if every attempt conflicted.
+     * @throws DAOException if an attempt fails otherwise.
+     * @throws IllegalArgumentException if maxAttempts is less than 1.
+     */
+    public static <T> T run(int maxAttempts, Attempt<T> attempt) throws DAOException {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt must be allowed.");
+        }
+        int allowed = UnitOfWork.isActive() ? 1 : maxAttempts;
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.run();
+            } catch (ConcurrentUpdateException e) {
+                if (attempts >= allowed) {
+                    throw e;
+                }
+                logger.fine("Retrying after a conflicting update: " + e.getMessage());
+                backOff(attempts, e);
+            }
+        }
+    }
+
+    // Sleeps up to 2^attempts ms, capped at 64 ms.
+    private static void backOff(int attempts, ConcurrentUpdateException conflict) throws ConcurrentUpdateException {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(1 << Math.min(attempts, 6)) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
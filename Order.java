@@ -0,0 +1,235 @@
+package com.fantastic.restaurant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a customer order (one ticket) taken at a table by a member of staff.
+ * An order holds its lines and moves through a fixed set of statuses:
+ *
+ *   placed -> preparing -> served -> paid
+ *   placed -> cancelled, preparing -> cancelled
+ *
+ * Any other change of status is rejected, so a paid order cannot be reopened and a
+ * served order cannot be cancelled.
+ *
+ * - Dependability: The allowed transitions live in {@link Status#canMoveTo(Status)} and are
+ *   enforced both here and by the conditional UPDATE in {@link OrderDAOImplement}.
+ */
+public class Order {
+
+    // Order attributes
+    private int orderId;              // Set once saved; 0 for a new order
+    private int tableId;              // Required
+    private int userId;               // Staff member who took the order
+    private Status status;            // Default "placed"
+    private final List<OrderItem> items = new ArrayList<>();
+
+    // Enum representing order status and the transitions allowed between them
+    enum Status {
+        placed,
+        preparing,
+        served,
+        paid,
+        cancelled;
+
+        /**
+         * Tells whether an order in this status may move to the given one.
+         *
+         * @param next the status to move to
+         * @return true if the transition is allowed
+         */
+        boolean canMoveTo(Status next) {
+            switch (this) {
+                case placed:
+                    return next == preparing || next == cancelled;
+                case preparing:
+                    return next == served || next == cancelled;
+                case served:
+                    return next == paid;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Converts the menu number typed at the terminal to a status.
+         *
+         * @param status 1 = placed, 2 = preparing, 3 = served, 4 = paid, 5 = cancelled
+         * @return the matching status
+         * @throws IllegalArgumentException if the number is out of range
+         */
+        static Status of(int status) {
+            if (status < 1 || status > values().length) {
+                throw new IllegalArgumentException("Invalid status. Must be 1 (placed), 2 (preparing), "
+                        + "3 (served), 4 (paid), or 5 (cancelled).");
+            }
+            return values()[status - 1];
+        }
+    }
+
+    /**
+     * Constructs a new order for a table. Lines are added with {@link #addItem(OrderItem)}.
+     *
+     * @param tableId the table_id the order is for
+     * @param userId the user_id of the staff member taking the order
+     * @throws IllegalArgumentException if either ID is not positive
+     */
+    public Order(int tableId, int userId) {
+        setTableId(tableId);
+        setUserId(userId);
+        this.status = Status.placed;
+    }
+
+    /**
+     * Sets the database ID of this order.
+     *
+     * @param orderId the order_id assigned by the database
+     */
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    /**
+     * Sets the table the order is for.
+     *
+     * @param tableId the table_id
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    public void setTableId(int tableId) {
+        if (tableId <= 0) {
+            throw new IllegalArgumentException("Valid table ID is required.");
+        }
+        this.tableId = tableId;
+    }
+
+    /**
+     * Sets the staff member who took the order.
+     *
+     * @param userId the user_id
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    public void setUserId(int userId) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("Valid user ID is required.");
+        }
+        this.userId = userId;
+    }
+
+    /**
+     * Moves the order to a new status.
+     *
+     * @param next the status to move to
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    public void moveTo(Status next) {
+        if (!status.canMoveTo(next)) {
+            throw new IllegalStateException("Order cannot go from " + status + " to " + next + ".");
+        }
+        this.status = next;
+    }
+
+    /**
+     * Sets the status as read from the database, without checking the transition.
+     *
+     * @param status the stored status name
+     * @throws IllegalArgumentException if the name is not a known status
+     */
+    void setStatus(String status) {
+        this.status = Status.valueOf(status);
+    }
+
+    /**
+     * Adds a line to the order.
+     *
+     * @param item the line to add
+     * @throws IllegalArgumentException if the item is null
+     */
+    public void addItem(OrderItem item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Order item cannot be null.");
+        }
+        items.add(item);
+    }
+
+    /**
+     * Gets the database ID of this order.
+     *
+     * @return the order_id, or 0 if the order has not been saved
+     */
+    public int getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Gets the table the order is for.
+     *
+     * @return the table_id
+     */
+    public int getTableId() {
+        return tableId;
+    }
+
+    /**
+     * Gets the staff member who took the order.
+     *
+     * @return the user_id
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the status of the order.
+     *
+     * @return the status name
+     */
+    public String getStatus() {
+        return status.toString();
+    }
+
+    /**
+     * Gets the lines of the order.
+     *
+     * @return an unmodifiable view of the order's lines
+     */
+    public List<OrderItem> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Gets the total price of the order.
+     *
+     * @return the sum of the line totals
+     */
+    public double getTotal() {
+        double total = 0;
+        for (OrderItem item : items) {
+            total += item.getLineTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Validates that the order can be placed.
+     *
+     * @throws IllegalStateException if the order has no lines
+     */
+    public void validate() {
+        if (items.isEmpty()) {
+            throw new IllegalStateException("An order must contain at least one item.");
+        }
+    }
+
+    /**
+     * Provides a string representation of the order.
+     *
+     * @return the order ID, table, status, total and lines
+     */
+    @Override
+    public String toString() {
+        return "Order " + orderId + " (table " + tableId + ", " + status + String.format(", $%.2f", getTotal())
+                + ") " + items;
+    }
+}
@@ -0,0 +1,56 @@
+package com.fantastic.restaurant;
+
+import java.util.List;
+
+/**
+ * OrderDAO interface defines data access methods for customer orders and their lines.
+ * An order and its lines are always written together, in one transaction per ticket.
+ *
+ * - Dependability: Status changes and line edits are conditional UPDATEs, so a terminal working
+ *   from a stale copy of an order cannot overwrite a change made by another terminal.
+ * - Efficiency: The lines of a ticket are sent as one JDBC batch rather than one INSERT each.
+ */
+public interface OrderDAO extends DAO<Order> {
+
+    /**
+     * Retrieves an order together with its lines.
+     *
+     * @param orderId the order_id to look up.
+     * @return the order, or null if no order has that ID.
+     * @throws DAOException if any database access error occurs.
+     */
+    Order getOrderById(int orderId) throws DAOException;
+
+    /**
+     * Retrieves the orders currently in a status, oldest first, without their lines.
+     * Used e.g. by the kitchen to list the tickets waiting to be prepared.
+     *
+     * @param status the status to look for.
+     * @return the matching orders.
+     * @throws DAOException if any database access error occurs.
+     */
+    List<Order> getOrdersByStatus(Order.Status status) throws DAOException;
+
+    /**
+     * Moves an order from one status to another, but only if it is still in the expected status.
+     *
+     * @param orderId the order_id to update.
+     * @param from the status the order is expected to be in.
+     * @param to the status to move it to.
+     * @return true if the order was updated, false if it no longer exists or its status has changed.
+     * @throws DAOException if the transition is not allowed or any database access error occurs.
+     */
+    boolean updateStatus(int orderId, Order.Status from, Order.Status to) throws DAOException;
+
+    /**
+     * Changes the quantity of one line of an order and recomputes the order total, but only while
+     * the order is still "placed". Both changes are made in a single transaction.
+     *
+     * @param orderId the order_id the line belongs to.
+     * @param orderItemId the order_item_id of the line.
+     * @param quantity the new quantity; must be positive.
+     * @return true if the line was updated, false if it does not exist or the order is past "placed".
+     * @throws DAOException if any database access error occurs.
+     */
+    boolean updateItemQuantity(int orderId, int orderItemId, int quantity) throws DAOException;
+}
@@ -0,0 +1,361 @@
+package com.fantastic.restaurant;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * OrderDAOImplement provides the implementation of the OrderDAO interface.
+ * Each ticket is written in one transaction: the order row, then all of its lines as a single
+ * JDBC batch. Status changes are guarded by the current status in the WHERE clause.
+ *
+ * - Dependability: A ticket is either saved completely or not at all.
+ * - Efficiency: Saving a ticket costs three round trips however many lines it has.
+ */
+public class OrderDAOImplement implements OrderDAO {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO Orders (table_id, user_id, status, total) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO Order_Items (order_id, menu_item_id, quantity, unit_price, notes) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_ORDER_SQL =
+            "SELECT order_id, table_id, user_id, status FROM Orders WHERE order_id = ?";
+    private static final String SELECT_ITEMS_SQL =
+            "SELECT order_item_id, menu_item_id, quantity, unit_price, notes FROM Order_Items WHERE order_id = ? ORDER BY order_item_id";
+    private static final String BY_STATUS_SQL =
+            "SELECT order_id, table_id, user_id, status FROM Orders WHERE status = ? ORDER BY order_id";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE Orders SET status = ? WHERE order_id = ? AND status = ?";
+    private static final String UPDATE_ITEM_SQL =
+            "UPDATE Order_Items i JOIN Orders o ON o.order_id = i.order_id SET i.quantity = ? "
+            + "WHERE i.order_item_id = ? AND i.order_id = ? AND o.status = 'placed'";
+    private static final String UPDATE_TOTAL_SQL =
+            "UPDATE Orders SET total = (SELECT COALESCE(SUM(quantity * unit_price), 0) FROM Order_Items WHERE order_id = ?) "
+            + "WHERE order_id = ?";
+    private static final String VIEW_SQL =
+            "SELECT order_id, table_id, user_id, status, total, created_at FROM Orders ORDER BY order_id";
+    private static final String PAGE_SQL =
+            "SELECT order_id, table_id, user_id, status FROM Orders WHERE order_id > ? ORDER BY order_id LIMIT ?";
+
+    /**
+     * Saves an order and its lines in one transaction and sets the generated IDs on them.
+     *
+     * @param order the order to save; its unit prices must already be filled in.
+     * @throws DAOException if the order is invalid or the insert fails.
+     */
+    @Override
+    public void add(Order order) throws DAOException {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null.");
+        }
+        order.validate();
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement orderStatement = connect.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement itemStatement = connect.prepareStatement(INSERT_ITEM_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            connect.setAutoCommit(false);
+            try {
+                insert(orderStatement, itemStatement, order);
+                connect.commit();
+            } catch (SQLException | RuntimeException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            order.setOrderId(0);
+            throw new DAOException("Error while saving order for table " + order.getTableId(), e);
+        }
+        ChangeFeed.getInstance().publish(Order.class, ChangeFeed.Kind.ADDED, order.getOrderId(), order);
+    }
+
+    /**
+     * Saves several orders over one connection, committing each ticket as its own transaction
+     * so that one bad ticket does not undo the others.
+     *
+     * @param orders the orders to save.
+     * @throws DAOException if an order cannot be saved; orders before it stay saved.
+     */
+    @Override
+    public void addAll(Collection<Order> orders) throws DAOException {
+        if (orders == null || orders.contains(null)) {
+            throw new IllegalArgumentException("Orders to add cannot be null.");
+        }
+        for (Order order : orders) {
+            order.validate();
+        }
+
+        List<Order> saved = new ArrayList<>();
+        try (Connection connect = Database.getConnection();
+             PreparedStatement orderStatement = connect.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement itemStatement = connect.prepareStatement(INSERT_ITEM_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            connect.setAutoCommit(false);
+            try {
+                for (Order order : orders) {
+                    try {
+                        insert(orderStatement, itemStatement, order);
+                        connect.commit();
+                        saved.add(order);
+                    } catch (SQLException | RuntimeException e) {
+                        connect.rollback();
+                        order.setOrderId(0);
+                        throw e;
+                    }
+                }
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while saving " + orders.size() + " orders.", e);
+        } finally {
+            // Tickets committed before a failure stay saved, so they are published either way
+            for (Order order : saved) {
+                ChangeFeed.getInstance().publish(Order.class, ChangeFeed.Kind.ADDED, order.getOrderId(), order);
+            }
+        }
+    }
+
+    /**
+     * Displays all orders with their status and total.
+     *
+     * @throws DAOException if a database error occurs while retrieving the orders.
+     */
+    @Override
+    public void view() throws DAOException {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(VIEW_SQL);
+             ResultSet rs = statement.executeQuery()) {
+
+            StringBuilder output = new StringBuilder(String.format("%-8s %-8s %-8s %-12s %-10s %-20s%n",
+                    "OrderID", "TableID", "UserID", "Status", "Total", "Placed_At"));
+
+            while (rs.next()) {
+                output.append(String.format("%-8d %-8d %-8d %-12s %-10.2f %-20s%n",
+                        rs.getInt("order_id"), rs.getInt("table_id"), rs.getInt("user_id"),
+                        rs.getString("status"), rs.getDouble("total"), rs.getTimestamp("created_at")));
+            }
+            System.out.print(output);
+        } catch (SQLException e) {
+            throw new DAOException("Error while viewing orders.", e);
+        }
+    }
+
+    /**
+     * Retrieves an order together with its lines.
+     *
+     * @param orderId the order_id to look up.
+     * @return the order, or null if no order has that ID.
+     * @throws DAOException if a database error occurs while retrieving the order.
+     */
+    @Override
+    public Order getOrderById(int orderId) throws DAOException {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement orderStatement = connect.prepareStatement(SELECT_ORDER_SQL);
+             PreparedStatement itemStatement = connect.prepareStatement(SELECT_ITEMS_SQL)) {
+
+            Order order;
+            orderStatement.setInt(1, orderId);
+            try (ResultSet rs = orderStatement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                order = mapRow(rs);
+            }
+
+            itemStatement.setInt(1, orderId);
+            try (ResultSet rs = itemStatement.executeQuery()) {
+                while (rs.next()) {
+                    OrderItem item = new OrderItem(rs.getInt("menu_item_id"), rs.getInt("quantity"), rs.getString("notes"));
+                    item.setOrderItemId(rs.getInt("order_item_id"));
+                    item.setUnitPrice(rs.getDouble("unit_price"));
+                    order.addItem(item);
+                }
+            }
+            return order;
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving order " + orderId, e);
+        }
+    }
+
+    /**
+     * Retrieves the orders in a status, oldest first, without their lines.
+     *
+     * @param status the status to look for.
+     * @return the matching orders.
+     * @throws DAOException if a database error occurs while retrieving the orders.
+     */
+    @Override
+    public List<Order> getOrdersByStatus(Order.Status status) throws DAOException {
+        List<Order> orders = new ArrayList<>();
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(BY_STATUS_SQL)) {
+
+            statement.setString(1, status.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapRow(rs));
+                }
+            }
+            return orders;
+        } catch (SQLException e) {
+            throw new DAOException("Error while retrieving " + status + " orders.", e);
+        }
+    }
+
+    /**
+     * Moves an order to a new status if it is still in the expected one.
+     *
+     * @param orderId the order_id to update.
+     * @param from the status the order is expected to be in.
+     * @param to the status to move it to.
+     * @return true if the order was updated, false if its status has changed or it does not exist.
+     * @throws DAOException if the transition is not allowed or a database error occurs.
+     */
+    @Override
+    public boolean updateStatus(int orderId, Order.Status from, Order.Status to) throws DAOException {
+        if (!from.canMoveTo(to)) {
+            throw new DAOException("Order cannot go from " + from + " to " + to + ".");
+        }
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(UPDATE_STATUS_SQL)) {
+
+            statement.setString(1, to.toString());
+            statement.setInt(2, orderId);
+            statement.setString(3, from.toString());
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating status of order " + orderId, e);
+        }
+        ChangeFeed.getInstance().publish(Order.class, ChangeFeed.Kind.UPDATED, orderId, null);
+        return true;
+    }
+
+    /**
+     * Changes the quantity of one line of a placed order and recomputes the order total.
+     *
+     * @param orderId the order_id the line belongs to.
+     * @param orderItemId the order_item_id of the line.
+     * @param quantity the new quantity; must be positive.
+     * @return true if the line was updated, false if it does not exist or the order is past "placed".
+     * @throws DAOException if a database error occurs while updating the line.
+     */
+    @Override
+    public boolean updateItemQuantity(int orderId, int orderItemId, int quantity) throws DAOException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be at least 1.");
+        }
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement item = connect.prepareStatement(UPDATE_ITEM_SQL);
+             PreparedStatement total = connect.prepareStatement(UPDATE_TOTAL_SQL)) {
+
+            connect.setAutoCommit(false);
+            try {
+                item.setInt(1, quantity);
+                item.setInt(2, orderItemId);
+                item.setInt(3, orderId);
+                if (item.executeUpdate() == 0) {
+                    connect.rollback();
+                    return false;
+                }
+
+                total.setInt(1, orderId);
+                total.setInt(2, orderId);
+                total.executeUpdate();
+
+                connect.commit();
+            } catch (SQLException e) {
+                connect.rollback();
+                throw e;
+            } finally {
+                connect.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating line " + orderItemId + " of order " + orderId, e);
+        }
+        ChangeFeed.getInstance().publish(Order.class, ChangeFeed.Kind.UPDATED, orderId, null);
+        return true;
+    }
+
+    /**
+     * Streams every order, without its lines, in order_id order.
+     *
+     * @param handler receives each order and its order_id.
+     * @throws SQLException if an error occurs while reading the orders.
+     */
+    @Override
+    public void forEach(RowHandler<? super Order> handler) throws SQLException {
+        JdbcPaging.forEach(PAGE_SQL, "order_id", OrderDAOImplement::mapRow, handler);
+    }
+
+    /**
+     * Retrieves one page of orders, without their lines, in order_id order.
+     *
+     * @param afterKey the order_id to start after, or 0 for the first page.
+     * @param pageSize the maximum number of orders to return.
+     * @return the requested page of orders.
+     * @throws SQLException if an error occurs while reading the orders.
+     */
+    @Override
+    public Page<Order> viewPage(int afterKey, int pageSize) throws SQLException {
+        return JdbcPaging.page(PAGE_SQL, "order_id", afterKey, pageSize, OrderDAOImplement::mapRow);
+    }
+
+    // Inserts the order row, then its lines as one batch. The caller owns the transaction.
+    private static void insert(PreparedStatement orderStatement, PreparedStatement itemStatement, Order order) throws SQLException {
+        orderStatement.setInt(1, order.getTableId());
+        orderStatement.setInt(2, order.getUserId());
+        orderStatement.setString(3, order.getStatus());
+        orderStatement.setDouble(4, order.getTotal());
+        orderStatement.executeUpdate();
+
+        try (ResultSet keys = orderStatement.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No order_id was generated for the new order.");
+            }
+            order.setOrderId(keys.getInt(1));
+        }
+
+        List<OrderItem> items = order.getItems();
+        for (OrderItem item : items) {
+            itemStatement.setInt(1, order.getOrderId());
+            itemStatement.setInt(2, item.getMenuItemId());
+            itemStatement.setInt(3, item.getQuantity());
+            itemStatement.setDouble(4, item.getUnitPrice());
+            if (item.getNotes() == null) {
+                itemStatement.setNull(5, Types.VARCHAR);
+            } else {
+                itemStatement.setString(5, item.getNotes());
+            }
+            itemStatement.addBatch();
+        }
+        itemStatement.executeBatch();
+
+        try (ResultSet keys = itemStatement.getGeneratedKeys()) {
+            for (int i = 0; i < items.size() && keys.next(); i++) {
+                items.get(i).setOrderItemId(keys.getInt(1));
+            }
+        }
+    }
+
+    // Builds an Order, without its lines, from the current row.
+    private static Order mapRow(ResultSet rs) throws SQLException {
+        Order order = new Order(rs.getInt("table_id"), rs.getInt("user_id"));
+        order.setOrderId(rs.getInt("order_id"));
+        order.setStatus(rs.getString("status"));
+        return order;
+    }
+}
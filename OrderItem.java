@@ -0,0 +1,153 @@
+package com.fantastic.restaurant;
+
+/**
+ * Represents one line of an order: a menu item, how many were ordered, and the
+ * price charged for each. The unit price is copied from the menu when the order is
+ * placed, so later menu price changes do not alter orders already taken.
+ *
+ * - Dependability: Quantities and prices are validated before they reach the database.
+ */
+public class OrderItem {
+
+    private int orderItemId;   // Set once saved; 0 for a new item
+    private int menuItemId;    // Required
+    private int quantity;      // Required, at least 1
+    private double unitPrice;  // Filled in from the menu when the order is placed
+    private String notes;      // Not Required, e.g. "no onions"
+
+    /**
+     * Constructs a new order line. The unit price is looked up when the order is placed.
+     *
+     * @param menuItemId the menu_item_id of the ordered item
+     * @param quantity the number ordered
+     * @param notes special instructions for the kitchen (optional)
+     * @throws IllegalArgumentException if the menu item ID or quantity is not positive
+     */
+    public OrderItem(int menuItemId, int quantity, String notes) {
+        setMenuItemId(menuItemId);
+        setQuantity(quantity);
+        setNotes(notes);
+    }
+
+    /**
+     * Sets the database ID of this order line.
+     *
+     * @param orderItemId the order_item_id assigned by the database
+     */
+    public void setOrderItemId(int orderItemId) {
+        this.orderItemId = orderItemId;
+    }
+
+    /**
+     * Sets the menu item ordered.
+     *
+     * @param menuItemId the menu_item_id of the item
+     * @throws IllegalArgumentException if the ID is not positive
+     */
+    public void setMenuItemId(int menuItemId) {
+        if (menuItemId <= 0) {
+            throw new IllegalArgumentException("Menu item ID must be positive.");
+        }
+        this.menuItemId = menuItemId;
+    }
+
+    /**
+     * Sets the number of this item ordered.
+     *
+     * @param quantity the quantity ordered
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    public void setQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be at least 1.");
+        }
+        this.quantity = quantity;
+    }
+
+    /**
+     * Sets the price charged for one of this item.
+     *
+     * @param unitPrice the price per item
+     * @throws IllegalArgumentException if the price is negative
+     */
+    public void setUnitPrice(double unitPrice) {
+        if (unitPrice < 0) {
+            throw new IllegalArgumentException("Unit price cannot be negative.");
+        }
+        this.unitPrice = unitPrice;
+    }
+
+    /**
+     * Sets the special instructions for this item. Blank notes are stored as null.
+     *
+     * @param notes the instructions, or null for none
+     */
+    public void setNotes(String notes) {
+        this.notes = (notes == null || notes.trim().isEmpty()) ? null : notes.trim();
+    }
+
+    /**
+     * Gets the database ID of this order line.
+     *
+     * @return the order_item_id, or 0 if the line has not been saved
+     */
+    public int getOrderItemId() {
+        return orderItemId;
+    }
+
+    /**
+     * Gets the menu item ordered.
+     *
+     * @return the menu_item_id
+     */
+    public int getMenuItemId() {
+        return menuItemId;
+    }
+
+    /**
+     * Gets the number of this item ordered.
+     *
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the price charged for one of this item.
+     *
+     * @return the unit price
+     */
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * Gets the special instructions for this item.
+     *
+     * @return the notes, or null if there are none
+     */
+    public String getNotes() {
+        return notes;
+    }
+
+    /**
+     * Gets the total price of this line.
+     *
+     * @return the unit price times the quantity
+     */
+    public double getLineTotal() {
+        return unitPrice * quantity;
+    }
+
+    /**
+     * Provides a string representation of the order line.
+     *
+     * @return the quantity, menu item, price and notes
+     */
+    @Override
+    public String toString() {
+        return quantity + " x item " + menuItemId + String.format(" @ $%.2f", unitPrice)
+                + (notes == null ? "" : " (" + notes + ")");
+    }
+}
@@ -0,0 +1,304 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Places and changes orders. Every ticket passes through the same stages:
+ *
+ *   1. validation - the order has lines and every line names an available menu item;
+ *   2. pricing    - unit prices are copied from an in-memory snapshot of the menu;
+ *   3. stock      - the ingredients of all lines are held in one inventory transaction;
+ *   4. saving     - the order, its lines, the committed hold and the stock it used are written in one
+ *                   {@link UnitOfWork}.
+ *
+ * Menu prices and recipes are read once by {@link #load()} and swapped atomically when reloaded,
+ * so no stage queries the menu per ticket. A ticket therefore costs a fixed number of short
+ * transactions regardless of how many lines it has, and terminals placing orders at the same
+ * time only contend on the inventory rows they actually share.
+ *
+ * - Dependability: If saving fails the stock hold is released, so a failed ticket never consumes inventory.
+ *   A hold left behind by a terminal that crashed before saving is returned to stock once it is
+ *   older than {@link #HOLD_EXPIRY_MS}, by a sweep that the first {@link #load()} starts.
+ *   Cancelling returns the stock recorded for the order in one transaction, not what today's recipes say.
+ * - Efficiency: The time taken by each ticket is recorded in {@link #getLatency()}, which the
+ *   dinner-rush load test reports.
+ */
+public class OrderPipeline {
+
+    // A hold lives for one ticket's save, so one this old was abandoned
+    public static final long HOLD_EXPIRY_MS = Long.getLong("restaurant.inventory.holdExpiryMs", 600_000L);
+    public static final long HOLD_SWEEP_MS = Long.getLong("restaurant.inventory.holdSweepMs", 60_000L);
+
+    private static final Logger logger = Logger.getLogger(OrderPipeline.class.getName());
+
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-hold-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static boolean sweeping; // Guarded by sweeper; one sweep per process, however many pipelines
+
+    private final OrderDAO orderDAO;
+    private final MenuDAO menuDAO;
+    private final InventoryDAO inventoryDAO;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // Replaced as a whole on reload, so a ticket always prices against one consistent menu
+    private volatile Map<Integer, Double> prices = Collections.emptyMap();
+    private volatile Map<Integer, Map<String, Integer>> recipes = Collections.emptyMap();
+
+    /**
+     * Constructs a pipeline. Call {@link #load()} before placing orders.
+     *
+     * @param orderDAO where orders are saved.
+     * @param menuDAO the source of prices and recipes.
+     * @param inventoryDAO the inventory ingredients are deducted from.
+     */
+    public OrderPipeline(OrderDAO orderDAO, MenuDAO menuDAO, InventoryDAO inventoryDAO) {
+        this.orderDAO = orderDAO;
+        this.menuDAO = menuDAO;
+        this.inventoryDAO = inventoryDAO;
+    }
+
+    /**
+     * (Re)reads the prices of the available menu items and the recipes of all menu items.
+     * The first load in the process also starts returning expired stock holds to the inventory,
+     * at once and then every {@link #HOLD_SWEEP_MS}.
+     *
+     * @throws DAOException if the menu cannot be read.
+     */
+    public void load() throws DAOException {
+        synchronized (sweeper) {
+            if (!sweeping) {
+                sweeper.scheduleWithFixedDelay(this::releaseExpiredHolds, 0, HOLD_SWEEP_MS, TimeUnit.MILLISECONDS);
+                sweeping = true;
+            }
+        }
+
+        Map<Integer, Double> newPrices = new HashMap<>();
+        try {
+            menuDAO.forEach((id, item) -> {
+                if (item.getAvailability() > 0) {
+                    newPrices.put(id, item.getCost());
+                }
+            });
+        } catch (SQLException e) {
+            throw new DAOException("Error while loading menu prices.", e);
+        }
+        Map<Integer, Map<String, Integer>> newRecipes = menuDAO.getIngredients();
+
+        recipes = newRecipes;
+        prices = newPrices;
+    }
+
+    /**
+     * Validates, prices and saves a new order, deducting its ingredients from the inventory.
+     *
+     * @param order the order to place; its unit prices are filled in.
+     * @throws DAOException if a line names an unknown or unavailable item, there is not enough
+     *                      stock for the ingredients, or the order cannot be saved.
+     */
+    public void place(Order order) throws DAOException {
+        long start = System.nanoTime();
+
+        validate(order);
+        price(order);
+
+        Map<String, Integer> needed = ingredients(order);
+        StockHold hold = null;
+        if (!needed.isEmpty()) {
+            hold = inventoryDAO.hold(needed);
+            if (hold == null) {
+                throw new DAOException("Not enough stock to prepare this order: " + needed);
+            }
+        }
+
+        StockHold held = hold;
+        try {
+            UnitOfWork.run(() -> {
+                orderDAO.add(order);
+                if (held != null) {
+                    inventoryDAO.commitHold(held);
+                    inventoryDAO.recordOrderUsage(order.getOrderId(), held.getQuantities());
+                }
+                return null;
+            });
+        } catch (DAOException | RuntimeException e) {
+            order.setOrderId(0); // The order was rolled back, even if it got an ID
+            if (hold != null) {
+                inventoryDAO.releaseHold(hold);
+            }
+            throw e;
+        }
+        latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Moves an order to a new status. Cancelling an order that the kitchen has not started
+     * returns the ingredients recorded for it to the inventory, in the same transaction.
+     *
+     * @param orderId the order_id to update.
+     * @param next the status to move the order to.
+     * @throws DAOException if the order does not exist, the transition is not allowed, or
+     *                      another terminal changed the order first.
+     */
+    public void updateStatus(int orderId, Order.Status next) throws DAOException {
+        Order order = requireOrder(orderId);
+        Order.Status current = Order.Status.valueOf(order.getStatus());
+
+        UnitOfWork.run(() -> {
+            if (!orderDAO.updateStatus(orderId, current, next)) {
+                throw new DAOException("Order " + orderId + " was changed by another terminal; please try again.");
+            }
+            if (current == Order.Status.placed && next == Order.Status.cancelled) {
+                inventoryDAO.returnOrderUsage(orderId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Changes the quantity of one line of an order that the kitchen has not started, taking
+     * additional ingredients from the inventory or returning the ones no longer needed. The stock
+     * change, the new quantity and the order's recorded usage are written in one transaction.
+     *
+     * @param orderId the order_id the line belongs to.
+     * @param orderItemId the order_item_id of the line.
+     * @param quantity the new quantity.
+     * @throws DAOException if the order or line does not exist, the order is past "placed",
+     *                      or there is not enough stock for the extra quantity.
+     */
+    public void modifyItem(int orderId, int orderItemId, int quantity) throws DAOException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be at least 1.");
+        }
+        Order order = requireOrder(orderId);
+        if (!Order.Status.placed.toString().equals(order.getStatus())) {
+            throw new DAOException("Order " + orderId + " is already " + order.getStatus() + " and cannot be changed.");
+        }
+
+        OrderItem line = null;
+        for (OrderItem item : order.getItems()) {
+            if (item.getOrderItemId() == orderItemId) {
+                line = item;
+            }
+        }
+        if (line == null) {
+            throw new DAOException("Order " + orderId + " has no item " + orderItemId + ".");
+        }
+
+        int delta = quantity - line.getQuantity();
+        Map<String, Integer> change = scale(recipes.get(line.getMenuItemId()), Math.abs(delta));
+
+        int menuItemId = line.getMenuItemId();
+        UnitOfWork.run(() -> {
+            if (delta > 0 && !change.isEmpty() && !inventoryDAO.consume(change)) {
+                throw new DAOException("Not enough stock to add " + delta + " more of item " + menuItemId + ".");
+            }
+            if (!orderDAO.updateItemQuantity(orderId, orderItemId, quantity)) {
+                // The kitchen started the order in the meantime; the stock change is rolled back.
+                throw new DAOException("Order " + orderId + " was changed by another terminal and cannot be modified.");
+            }
+            if (delta < 0) {
+                restock(change);
+            }
+            inventoryDAO.recordOrderUsage(orderId, delta > 0 ? change : scale(change, -1));
+            return null;
+        });
+    }
+
+    // Returns the stock of holds whose ticket never saved; logs instead of throwing, so the sweep keeps running.
+    private void releaseExpiredHolds() {
+        try {
+            int released = inventoryDAO.releaseExpiredHolds(HOLD_EXPIRY_MS);
+            if (released > 0) {
+                logger.info("Returned " + released + " expired stock hold rows to the inventory.");
+            }
+        } catch (DAOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not release expired stock holds.", e);
+        }
+    }
+
+    /**
+     * Gets the time taken to place each order, from validation to committed stock.
+     *
+     * @return the latency histogram of {@link #place(Order)}.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    // Stage 1: the order has lines and every line names a menu item that can be sold.
+    private void validate(Order order) throws DAOException {
+        try {
+            order.validate();
+        } catch (IllegalStateException e) {
+            throw new DAOException(e.getMessage(), e);
+        }
+        for (OrderItem item : order.getItems()) {
+            if (!prices.containsKey(item.getMenuItemId())) {
+                load(); // The item may have been added since the last load
+                break;
+            }
+        }
+        for (OrderItem item : order.getItems()) {
+            if (!prices.containsKey(item.getMenuItemId())) {
+                throw new DAOException("Menu item " + item.getMenuItemId() + " does not exist or is not available.");
+            }
+        }
+    }
+
+    // Stage 2: copy the current menu price onto every line.
+    private void price(Order order) {
+        Map<Integer, Double> snapshot = prices;
+        for (OrderItem item : order.getItems()) {
+            item.setUnitPrice(snapshot.get(item.getMenuItemId()));
+        }
+    }
+
+    // Sums the ingredients of every line, sorted by item name as InventoryDAO expects.
+    private Map<String, Integer> ingredients(Order order) {
+        Map<String, Integer> total = new TreeMap<>();
+        Map<Integer, Map<String, Integer>> snapshot = recipes;
+        for (OrderItem item : order.getItems()) {
+            for (Map.Entry<String, Integer> use : scale(snapshot.get(item.getMenuItemId()), item.getQuantity()).entrySet()) {
+                total.merge(use.getKey(), use.getValue(), Integer::sum);
+            }
+        }
+        return total;
+    }
+
+    // Negative servings give negative quantities, e.g. to record stock given back.
+    private static Map<String, Integer> scale(Map<String, Integer> recipe, int servings) {
+        Map<String, Integer> scaled = new TreeMap<>();
+        if (recipe != null && servings != 0) {
+            for (Map.Entry<String, Integer> use : recipe.entrySet()) {
+                scaled.put(use.getKey(), use.getValue() * servings);
+            }
+        }
+        return scaled;
+    }
+
+    private void restock(Map<String, Integer> quantities) throws DAOException {
+        for (Map.Entry<String, Integer> use : quantities.entrySet()) {
+            inventoryDAO.incrementBy(use.getKey(), use.getValue());
+        }
+    }
+
+    private Order requireOrder(int orderId) throws DAOException {
+        Order order = orderDAO.getOrderById(orderId);
+        if (order == null) {
+            throw new DAOException("No order found with ID: " + orderId);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fantastic.restaurant;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of entities read with keyset pagination, together with the primary key of each
+ * entity. Pass {@link #getLastKey()} back to {@link DAO#viewPage(int, int)} to read the next page;
+ * because the next page starts after a key rather than at an offset, every page costs the same
+ * indexed range scan no matter how deep into the table it is.
+ *
+ * @param <T> The type of the entities on the page.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final int[] keys;
+    private final boolean more;
+
+    /**
+     * Constructs a page. Intended for DAO implementations.
+     * 
+     * @param items the entities on the page, in key order.
+     * @param keys the primary key of each entity, in the same order.
+     * @param more true if at least one more entity follows this page.
+     */
+    Page(List<T> items, int[] keys, boolean more) {
+        this.items = Collections.unmodifiableList(items);
+        this.keys = keys;
+        this.more = more;
+    }
+
+    /**
+     * Gets the entities on this page.
+     * 
+     * @return an unmodifiable list of entities in primary key order.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the primary key of an entity on this page.
+     * 
+     * @param index the position of the entity on the page.
+     * @return the database key of that entity.
+     */
+    public int getKey(int index) {
+        if (index < 0 || index >= items.size()) {
+            throw new IndexOutOfBoundsException("No entity at index " + index + " on this page.");
+        }
+        return keys[index];
+    }
+
+    /**
+     * Gets the number of entities on this page.
+     * 
+     * @return the page size.
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Gets the key to pass as afterKey when requesting the next page.
+     * 
+     * @return the key of the last entity, or 0 if the page is empty.
+     */
+    public int getLastKey() {
+        return items.isEmpty() ? 0 : keys[items.size() - 1];
+    }
+
+    /**
+     * Tells whether another page follows this one.
+     * 
+     * @return true if more entities exist after this page.
+     */
+    public boolean hasMore() {
+        return more;
+    }
+}
@@ -0,0 +1,549 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A Swing table model that reads its rows from a DAO one keyset page at a time and keeps them
+ * in column arrays rather than one Object[] per row.
+ *
+ * - Lazy paging: only the first page is read up front. When the table asks for a cell near the
+ *   end of the loaded rows, the next page is read on a background thread and appended with a
+ *   single rows-inserted event, so scrolling pulls in rows as they are needed.
+ * - Compact storage: int and double columns are stored in primitive arrays, other columns in
+ *   one Object[] per column, indexed by row. Rows are kept in primary key order.
+ * - Incremental updates: {@link #refresh()} re-reads the loaded key range and applies only the
+ *   differences as insert, update and delete events, and {@link #put(int, Object)} and
+ *   {@link #remove(int)} apply single-row changes, so the table never has to be cleared and refilled.
+ * - Live updates: {@link #apply(ChangeFeed.Change)} applies a change published by a DAO, reading
+ *   at most the one row it names.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @param <T> the type of entity shown in each row.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("restaurant.gui.pageSize", 200);
+
+    /**
+     * Reads one keyset page of entities; usually a DAO's viewPage method.
+     *
+     * @param <T> the type of entity read.
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        Page<T> viewPage(int afterKey, int pageSize) throws SQLException, DAOException;
+    }
+
+    /**
+     * One column of the table: its title, its type and how to read its value from an entity.
+     *
+     * @param <T> the type of entity the value is read from.
+     */
+    public static final class Column<T> {
+        private final String name;
+        private final Class<?> type;
+        private final Function<T, ?> value;
+
+        private Column(String name, Class<?> type, Function<T, ?> value) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * Defines a column showing each row's primary key, which is already kept with the row.
+         *
+         * @param name the column title.
+         * @return the column.
+         */
+        public static <T> Column<T> key(String name) {
+            return new Column<>(name, Integer.class, null);
+        }
+
+        /**
+         * Defines a column of whole numbers, stored in an int[].
+         *
+         * @param name the column title.
+         * @param value reads the value from an entity.
+         * @return the column.
+         */
+        public static <T> Column<T> ofInt(String name, ToIntFunction<T> value) {
+            return new Column<>(name, Integer.class, entity -> value.applyAsInt(entity));
+        }
+
+        /**
+         * Defines a column of decimal numbers, stored in a double[].
+         *
+         * @param name the column title.
+         * @param value reads the value from an entity.
+         * @return the column.
+         */
+        public static <T> Column<T> ofDouble(String name, ToDoubleFunction<T> value) {
+            return new Column<>(name, Double.class, entity -> value.applyAsDouble(entity));
+        }
+
+        /**
+         * Defines a column of any other type, stored in an Object[].
+         *
+         * @param name the column title.
+         * @param type the type of the values, used by the table to choose a renderer.
+         * @param value reads the value from an entity.
+         * @return the column.
+         */
+        public static <T, V> Column<T> of(String name, Class<V> type, Function<T, V> value) {
+            return new Column<>(name, type, value);
+        }
+    }
+
+    private final Class<T> type;
+    private final PageSource<T> source;
+    private final List<Column<T>> columns;
+    private final int pageSize;
+    private final Consumer<String> errors;
+
+    // Row storage: keys[i] is the primary key of row i, data[c] holds column c as int[], double[] or Object[],
+    // or null for a key column
+    private int size;
+    private int[] keys;
+    private final Object[] data;
+
+    private int lastKey;          // Key to continue the next page after
+    private boolean more = true;  // False once a short page was read
+    private SwingWorker<?, ?> pending;
+    private long version;         // Bumped by every reset, so pages requested before it are discarded
+
+    /**
+     * Constructs an empty model. Call {@link #refresh()} to read the first page.
+     *
+     * @param type the type of entity shown, which names the table in flight recorder events.
+     * @param source reads pages of entities.
+     * @param columns the columns to show, in order.
+     * @param pageSize the number of rows read at a time.
+     * @param errors receives a message on the event dispatch thread when a read fails.
+     */
+    public PagedTableModel(Class<T> type, PageSource<T> source, List<Column<T>> columns, int pageSize,
+            Consumer<String> errors) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        this.type = type;
+        this.source = source;
+        this.columns = new ArrayList<>(columns);
+        this.pageSize = pageSize;
+        this.errors = errors;
+        this.keys = new int[pageSize];
+        this.data = new Object[columns.size()];
+        for (int c = 0; c < data.length; c++) {
+            Column<T> column = this.columns.get(c);
+            data[c] = column.value == null ? null : newArray(column.type, pageSize);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).name;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns.get(column).type;
+    }
+
+    /**
+     * Returns a cell, and starts reading the next page if the row is within the last half page.
+     *
+     * @param row the row index.
+     * @param column the column index.
+     * @return the cell value.
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= size - pageSize / 2) {
+            loadNextPage();
+        }
+        Object array = data[column];
+        if (array == null) {
+            return keys[row];
+        }
+        if (array instanceof int[]) {
+            return ((int[]) array)[row];
+        }
+        if (array instanceof double[]) {
+            return ((double[]) array)[row];
+        }
+        return ((Object[]) array)[row];
+    }
+
+    /**
+     * Gets the primary key of a row.
+     *
+     * @param row the row index.
+     * @return the key of the entity shown in that row.
+     */
+    public int getKeyAt(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return keys[row];
+    }
+
+    /**
+     * Re-reads every row loaded so far (at least one page) in the background and applies the
+     * differences as insert, update and delete events.
+     */
+    public void refresh() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        long expected = ++version;
+        int through = size > 0 ? keys[size - 1] : 0; // Re-read at least the loaded key range
+
+        SwingWorker<Snapshot<T>, Void> worker = new SwingWorker<Snapshot<T>, Void>() {
+            @Override
+            protected Snapshot<T> doInBackground() throws Exception {
+                FlightEvents.TableLoad event = begin();
+                Snapshot<T> snapshot = new Snapshot<>();
+                try {
+                    Page<T> page;
+                    do {
+                        page = source.viewPage(snapshot.lastKey, pageSize);
+                        for (int i = 0; i < page.size(); i++) {
+                            snapshot.keys.add(page.getKey(i));
+                            snapshot.items.add(page.getItems().get(i));
+                        }
+                        snapshot.lastKey = page.getLastKey();
+                        snapshot.more = page.hasMore();
+                    } while (page.hasMore() && (snapshot.keys.size() < pageSize || snapshot.lastKey < through)
+                            && !isCancelled());
+                } finally {
+                    commit(event, "refresh", snapshot.keys.size());
+                }
+                return snapshot;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || version != expected) {
+                    return;
+                }
+                pending = null;
+                try {
+                    apply(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    report(e);
+                }
+            }
+        };
+        pending = worker;
+        worker.execute();
+    }
+
+    /**
+     * Shows a new or changed entity without re-reading the table. Rows beyond the loaded range
+     * are ignored; they will be read with their page.
+     *
+     * @param key the primary key of the entity.
+     * @param entity the entity's current state.
+     */
+    public void put(int key, T entity) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            if (set(index, entity)) {
+                fireTableRowsUpdated(index, index);
+            }
+            return;
+        }
+        int insertAt = -index - 1;
+        if (insertAt == size && more) {
+            return;
+        }
+        insert(insertAt, key, entity);
+        fireTableRowsInserted(insertAt, insertAt);
+    }
+
+    /**
+     * Removes a deleted entity's row without re-reading the table.
+     *
+     * @param key the primary key of the entity.
+     */
+    public void remove(int key) {
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            delete(index);
+            fireTableRowsDeleted(index, index);
+        }
+    }
+
+    /**
+     * Applies a write published to the {@link ChangeFeed}. A change with the row's new state is
+     * applied without reading anything; a change that only names the row re-reads that row, and
+     * a change that does not name a row re-reads the loaded range.
+     *
+     * @param change the committed write.
+     */
+    public void apply(ChangeFeed.Change<? extends T> change) {
+        if (version == 0) {
+            return; // Nothing shown yet; the first refresh reads the current rows
+        }
+        if (!change.hasKey()) {
+            refresh();
+        } else if (change.getKind() == ChangeFeed.Kind.DELETED) {
+            remove(change.getKey());
+        } else if (change.getEntity() != null) {
+            put(change.getKey(), change.getEntity());
+        } else {
+            reload(change.getKey());
+        }
+    }
+
+    // Re-reads one row in the background, as a keyset page of one starting just before its key.
+    private void reload(int key) {
+        long expected = version;
+
+        SwingWorker<Page<T>, Void> worker = new SwingWorker<Page<T>, Void>() {
+            @Override
+            protected Page<T> doInBackground() throws Exception {
+                return source.viewPage(key - 1, 1);
+            }
+
+            @Override
+            protected void done() {
+                if (version != expected) {
+                    return; // A refresh that started since reads the row anyway
+                }
+                try {
+                    Page<T> page = get();
+                    if (page.size() > 0 && page.getKey(0) == key) {
+                        put(key, page.getItems().get(0));
+                    } else {
+                        remove(key);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    report(e);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    // Appends the next page in the background, unless a read is already running or all rows are loaded.
+    private void loadNextPage() {
+        if (!more || pending != null) {
+            return;
+        }
+        long expected = version;
+        int after = lastKey;
+
+        SwingWorker<Page<T>, Void> worker = new SwingWorker<Page<T>, Void>() {
+            @Override
+            protected Page<T> doInBackground() throws Exception {
+                FlightEvents.TableLoad event = begin();
+                Page<T> page = null;
+                try {
+                    page = source.viewPage(after, pageSize);
+                } finally {
+                    commit(event, "page", page == null ? 0 : page.size());
+                }
+                return page;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || version != expected) {
+                    return;
+                }
+                pending = null;
+                try {
+                    append(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    more = false; // Stop retrying on every repaint; refresh() starts over
+                    report(e);
+                }
+            }
+        };
+        pending = worker;
+        worker.execute();
+    }
+
+    // Starts timing a background read, for the flight recorder.
+    private static FlightEvents.TableLoad begin() {
+        FlightEvents.TableLoad event = new FlightEvents.TableLoad();
+        event.begin();
+        return event;
+    }
+
+    private void commit(FlightEvents.TableLoad event, String kind, int rows) {
+        event.table = type.getSimpleName();
+        event.kind = kind;
+        event.rows = rows;
+        event.commit();
+    }
+
+    private void append(Page<T> page) {
+        int first = size;
+        for (int i = 0; i < page.size(); i++) {
+            insert(size, page.getKey(i), page.getItems().get(i));
+        }
+        if (page.size() > 0) {
+            lastKey = page.getLastKey();
+        }
+        more = page.hasMore();
+        if (size > first) {
+            fireTableRowsInserted(first, size - 1);
+        }
+    }
+
+    // Merges a fresh read of the loaded key range into the rows, firing one event per change.
+    private void apply(Snapshot<T> snapshot) {
+        int row = 0;
+        int i = 0;
+        int count = snapshot.keys.size();
+
+        while (i < count || row < size) {
+            int newKey = i < count ? snapshot.keys.get(i) : Integer.MAX_VALUE;
+            if (row < size && keys[row] < newKey) {
+                delete(row);
+                fireTableRowsDeleted(row, row);
+            } else if (row < size && keys[row] == newKey) {
+                if (set(row, snapshot.items.get(i))) {
+                    fireTableRowsUpdated(row, row);
+                }
+                row++;
+                i++;
+            } else {
+                insert(row, newKey, snapshot.items.get(i));
+                fireTableRowsInserted(row, row);
+                row++;
+                i++;
+            }
+        }
+        lastKey = count > 0 ? snapshot.keys.get(count - 1) : 0;
+        more = snapshot.more;
+    }
+
+    private void report(ExecutionException e) {
+        e.getCause().printStackTrace();
+        errors.accept("Error loading rows: " + e.getCause().getMessage());
+    }
+
+    private void insert(int index, int key, T entity) {
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            for (int c = 0; c < data.length; c++) {
+                if (data[c] != null) {
+                    data[c] = grow(data[c], capacity);
+                }
+            }
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        keys[index] = key;
+        for (int c = 0; c < data.length; c++) {
+            if (data[c] != null) {
+                System.arraycopy(data[c], index, data[c], index + 1, size - index);
+            }
+        }
+        size++;
+        set(index, entity);
+    }
+
+    private void delete(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        for (int c = 0; c < data.length; c++) {
+            if (data[c] == null) {
+                continue;
+            }
+            System.arraycopy(data[c], index + 1, data[c], index, size - index - 1);
+            if (data[c] instanceof Object[]) {
+                ((Object[]) data[c])[size - 1] = null;
+            }
+        }
+        size--;
+    }
+
+    // Stores the entity's values in a row; returns true if any cell changed.
+    private boolean set(int row, T entity) {
+        boolean changed = false;
+        for (int c = 0; c < data.length; c++) {
+            Object array = data[c];
+            if (array == null) {
+                continue;
+            }
+            Object value = columns.get(c).value.apply(entity);
+            if (array instanceof int[]) {
+                int v = (Integer) value;
+                changed |= ((int[]) array)[row] != v;
+                ((int[]) array)[row] = v;
+            } else if (array instanceof double[]) {
+                double v = (Double) value;
+                changed |= Double.compare(((double[]) array)[row], v) != 0;
+                ((double[]) array)[row] = v;
+            } else {
+                changed |= !Objects.equals(((Object[]) array)[row], value);
+                ((Object[]) array)[row] = value;
+            }
+        }
+        return changed;
+    }
+
+    private static Object newArray(Class<?> type, int capacity) {
+        if (type == Integer.class) {
+            return new int[capacity];
+        }
+        if (type == Double.class) {
+            return new double[capacity];
+        }
+        return new Object[capacity];
+    }
+
+    private static Object grow(Object array, int capacity) {
+        if (array instanceof int[]) {
+            return Arrays.copyOf((int[]) array, capacity);
+        }
+        if (array instanceof double[]) {
+            return Arrays.copyOf((double[]) array, capacity);
+        }
+        return Arrays.copyOf((Object[]) array, capacity);
+    }
+
+    /**
+     * The rows read by one refresh, in key order.
+     */
+    private static final class Snapshot<T> {
+        private final List<Integer> keys = new ArrayList<>();
+        private final List<T> items = new ArrayList<>();
+        private int lastKey;
+        private boolean more;
+    }
+}
@@ -0,0 +1,211 @@
+package com.fantastic.restaurant;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe read-through cache for DAO lookups.
+ *
+ * Entries are evicted when they are older than the time-to-live, or least-recently-used first
+ * once the cache holds its maximum number of entries. A miss calls the loader outside the lock,
+ * so a slow query never blocks hits on other keys. Writers call {@link #invalidate(Object)} after
+ * changing a row; a value loaded concurrently with an invalidation is not cached, so the cache
+ * never keeps a value older than the last write it was told about.
+ *
+ * Optionally, lookups that found nothing are remembered too (negative caching), with their own,
+ * usually shorter, time-to-live, so repeated lookups of a missing key do not each reach the database.
+ *
+ * @param <K> the type of the lookup key.
+ * @param <V> the type of the cached value.
+ */
+public final class ReadThroughCache<K, V> {
+
+    /**
+     * Loads the value for a key that is not cached.
+     *
+     * @param <K> the type of the lookup key.
+     * @param <V> the type of the loaded value.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws DAOException;
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos; // 0 if missing keys are not cached
+    private final Map<K, Entry<V>> entries;
+    private long generation; // Bumped by every invalidation; guarded by this
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxSize the maximum number of entries kept.
+     * @param ttlMillis how long an entry may be served after it was loaded.
+     * @throws IllegalArgumentException if either limit is not positive.
+     */
+    public ReadThroughCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, 0);
+    }
+
+    /**
+     * Constructs an empty cache that also remembers keys the loader found nothing for.
+     *
+     * @param maxSize the maximum number of entries kept, found or not.
+     * @param ttlMillis how long a loaded value may be served.
+     * @param negativeTtlMillis how long a missing key is reported as missing without asking
+     *                          the loader again; 0 disables negative caching.
+     * @throws IllegalArgumentException if the size or time-to-live is not positive, or the
+     *                                  negative time-to-live is negative.
+     */
+    public ReadThroughCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("Cache size and time-to-live must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ReadThroughCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for a key, loading and caching it on a miss.
+     * A null result is only cached if negative caching is enabled.
+     *
+     * @param key the key to look up.
+     * @param loader reads the value when it is not cached.
+     * @return the value, or null if the loader found none.
+     * @throws DAOException if the loader fails.
+     */
+    public V get(K key, Loader<? super K, ? extends V> loader) throws DAOException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        V value = loader.load(key);
+
+        long ttl = value != null ? ttlNanos : negativeTtlNanos;
+        if (ttl > 0) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(value, System.nanoTime() + ttl));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops the cached value for a key, e.g. after the row was updated or deleted.
+     *
+     * @param key the key whose value changed.
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries currently cached, including expired ones not yet evicted.
+     *
+     * @return the cache size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups served from the cache.
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to call the loader.
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries dropped because they expired or the cache was full.
+     *
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the fraction of lookups served from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Summarizes the cache on one line.
+     *
+     * @return the size, hits, misses, hit rate and evictions.
+     */
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d",
+                size(), maxSize, getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount());
+    }
+
+    private static final class Entry<V> {
+        private final V value;        // null for a cached miss
+        private final long expiresAt; // System.nanoTime() deadline
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
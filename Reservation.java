@@ -1,5 +1,9 @@
 package com.fantastic.restaurant;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
 /**
  * Represents a restaurant reservation with attributes such as customer name,
  * email, phone number, table ID, reservation time, and status.
@@ -11,13 +15,18 @@ package com.fantastic.restaurant;
  */
 public class Reservation {
 
+    // Accepts "2022-12-12 18:30", "2022-12-12T18:30" and either form with seconds
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm[:ss]");
+
     // Reservation attributes
+    private int reservationID;          // Set once saved; 0 for a new reservation
     private String customerName;        // Required
     private String customerEmail;       // Not Required
     private String customerPhoneNumber; // Not Required
     private int tableID;                // Not Required
-    private String reservationTime;     // Required
+    private LocalDateTime reservationTime; // Required
     private String tableStatus;         // Default "booked" if not set
+    private int version;                // Row version read from the database; 0 for a new reservation
 
     /**
      * Constructs a new Reservation with the specified customer details, table ID,
@@ -31,7 +40,7 @@ public class Reservation {
      * @param status the status of the reservation (1 = booked, 2 = cancelled, 3 = completed)
      * @throws IllegalArgumentException if required fields are missing or invalid
      */
-    public Reservation(String name, String email, String phone, int id, String time, int status) {
+    public Reservation(String name, String email, String phone, int id, LocalDateTime time, int status) {
         setCustomerName(name);
         setCustomerEmail(email);
         setCustomerPhoneNumber(phone);
@@ -40,6 +49,21 @@ public class Reservation {
         setStatus(status);
     }
 
+    /**
+     * Constructs a new Reservation from a reservation time typed as text, e.g. "2022-12-12 18:30".
+     * 
+     * @param name the name of the customer
+     * @param email the email address of the customer (optional)
+     * @param phone the phone number of the customer (optional)
+     * @param id the table ID for the reservation
+     * @param time the reservation time as text (required)
+     * @param status the status of the reservation (1 = booked, 2 = cancelled, 3 = completed)
+     * @throws IllegalArgumentException if required fields are missing or invalid
+     */
+    public Reservation(String name, String email, String phone, int id, String time, int status) {
+        this(name, email, phone, id, parseTime(time), status);
+    }
+
     // Enum representing reservation status
     enum Status {
         booked,
@@ -102,17 +126,68 @@ public class Reservation {
         this.tableID = id;
     }
 
+    /**
+     * Sets the database ID of this reservation. Called by the DAO when a reservation is read back.
+     * 
+     * @param id the reservation ID
+     * @throws IllegalArgumentException if the ID is negative
+     */
+    public void setReservationId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Reservation ID cannot be negative.");
+        }
+        this.reservationID = id;
+    }
+
+    /**
+     * Sets the row version of this reservation. Called by the DAO when a reservation is read back.
+     * 
+     * @param version the version, which every write to the row increments
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Sets the reservation time for this reservation.
      * 
+     * @param time the date and time of the reservation
+     * @throws IllegalArgumentException if the reservation time is null
+     */
+    public void setReservationTime(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Reservation time cannot be null or empty.");
+        }
+        this.reservationTime = time;
+    }
+
+    /**
+     * Sets the reservation time for this reservation from text.
+     * 
      * @param time the reservation time in string format (e.g., "2022-12-12 18:30")
      * @throws IllegalArgumentException if the reservation time is null or incorrectly formatted
      */
     public void setReservationTime(String time) {
+        setReservationTime(parseTime(time));
+    }
+
+    /**
+     * Parses a reservation time typed as "yyyy-MM-dd HH:mm", with optional seconds and
+     * optionally a 'T' between the date and the time.
+     * 
+     * @param time the reservation time as text
+     * @return the parsed date and time
+     * @throws IllegalArgumentException if the reservation time is null, empty or incorrectly formatted
+     */
+    public static LocalDateTime parseTime(String time) {
         if (time == null || time.trim().isEmpty()) {
             throw new IllegalArgumentException("Reservation time cannot be null or empty.");
         }
-        this.reservationTime = time;
+        try {
+            return LocalDateTime.parse(time.trim().replace('T', ' '), TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid reservation time. Use the format yyyy-MM-dd HH:mm.", e);
+        }
     }
 
     /**
@@ -145,6 +220,24 @@ public class Reservation {
 
     // Getters
 
+    /**
+     * Gets the database ID of this reservation.
+     * 
+     * @return the reservation ID, or 0 if the reservation has not been read from the database
+     */
+    public int getReservationId() {
+        return reservationID;
+    }
+
+    /**
+     * Gets the row version this reservation was read at, to pass to a versioned update.
+     * 
+     * @return the version, or 0 if the reservation has not been read from the database
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Gets the customer name for this reservation.
      * 
@@ -184,9 +277,9 @@ public class Reservation {
     /**
      * Gets the reservation time for this reservation.
      * 
-     * @return the reservation time
+     * @return the date and time of the reservation
      */
-    public String getReservationTime() {
+    public LocalDateTime getReservationTime() {
         return reservationTime;
     }
 
@@ -208,7 +301,7 @@ public class Reservation {
         if (customerName == null || customerName.trim().isEmpty()) {
             throw new IllegalStateException("Customer name is required.");
         }
-        if (reservationTime == null || reservationTime.trim().isEmpty()) {
+        if (reservationTime == null) {
             throw new IllegalStateException("Reservation time is required.");
         }
         if (tableID <= 0) {
@@ -1,6 +1,9 @@
 package com.fantastic.restaurant;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * ReservationDAO interface defines the data access methods for managing reservations in the system.
@@ -35,4 +38,60 @@ public interface ReservationDAO extends DAO<Reservation> {
      * @throws IllegalArgumentException if the provided status is invalid
      */
     void update(String status, int id) throws SQLException, IllegalArgumentException;
+
+    /**
+     * Updates the status of a reservation only if nobody has changed it since it was read,
+     * so a host cancelling a reservation cannot silently undo another host completing it.
+     * 
+     * @param status the new status to set for the reservation (e.g., "booked", "cancelled", "completed")
+     * @param id the ID of the reservation to update
+     * @param expectedVersion the version the reservation was read at (see {@link Reservation#getVersion()})
+     * @throws ConcurrentUpdateException if the reservation was changed since; nothing is written
+     * @throws DAOException if the reservation does not exist or the update fails
+     * @throws IllegalArgumentException if the provided status is invalid
+     */
+    void update(String status, int id, int expectedVersion) throws DAOException, IllegalArgumentException;
+
+    /**
+     * Retrieves one reservation by its ID, including its current version.
+     * 
+     * @param id the ID of the reservation
+     * @return the reservation, or null if there is none with that ID
+     * @throws SQLException if there is an issue executing the query
+     */
+    Reservation getById(int id) throws SQLException;
+
+    /**
+     * Retrieves every reservation on a given day, ordered by time.
+     * This is a range scan on the date_time index rather than a scan of the whole table.
+     * 
+     * @param day the day of the reservations (e.g., tonight's date)
+     * @return the reservations from midnight to midnight, earliest first
+     * @throws SQLException if there is an issue executing the query
+     */
+    List<Reservation> getByDay(LocalDate day) throws SQLException;
+
+    /**
+     * Retrieves every reservation starting within a time window, such as a dinner service, ordered by time.
+     * 
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (exclusive), or null for no upper bound
+     * @return the reservations in the window, earliest first
+     * @throws SQLException if there is an issue executing the query
+     * @throws IllegalArgumentException if from is null
+     */
+    List<Reservation> getBetween(LocalDateTime from, LocalDateTime to) throws SQLException, IllegalArgumentException;
+
+    /**
+     * Retrieves the reservations of one table within a time window, ordered by time.
+     * This uses the composite (table_id, date_time) index.
+     * 
+     * @param tableId the table whose reservations are wanted
+     * @param from the start of the window (inclusive)
+     * @param to the end of the window (exclusive)
+     * @return the table's reservations in the window, earliest first
+     * @throws SQLException if there is an issue executing the query
+     * @throws IllegalArgumentException if from or to is null
+     */
+    List<Reservation> getByTable(int tableId, LocalDateTime from, LocalDateTime to) throws SQLException, IllegalArgumentException;
 }
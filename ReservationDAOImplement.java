@@ -4,6 +4,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Implements the ReservationDAO interface to manage reservations in the database.
@@ -19,36 +26,94 @@ import java.sql.SQLException;
  */
 public class ReservationDAOImplement implements ReservationDAO {
 
+    private static final String PAGE_SQL =
+            "SELECT reservation_id, customer_name, email, phone, table_id, date_time, status, version FROM Reservations WHERE reservation_id > ? ORDER BY reservation_id LIMIT ?";
+
+    // Range queries are served by idx_reservations_time and idx_reservations_table_time (see sql/001).
+    private static final String SELECT_COLUMNS =
+            "SELECT reservation_id, customer_name, email, phone, table_id, date_time, status, version FROM Reservations ";
+    private static final String BY_ID_SQL =
+            SELECT_COLUMNS + "WHERE reservation_id = ?";
+    private static final String BETWEEN_SQL =
+            SELECT_COLUMNS + "WHERE date_time >= ? AND date_time < ? ORDER BY date_time";
+    private static final String FROM_SQL =
+            SELECT_COLUMNS + "WHERE date_time >= ? ORDER BY date_time";
+    private static final String BY_TABLE_SQL =
+            SELECT_COLUMNS + "WHERE table_id = ? AND date_time >= ? AND date_time < ? ORDER BY date_time";
+
+    // Every write increments the version, so versioned updates notice unversioned ones too.
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE Reservations SET status = ?, version = version + 1 WHERE reservation_id = ?";
+    private static final String UPDATE_STATUS_VERSIONED_SQL =
+            "UPDATE Reservations SET status = ?, version = version + 1 WHERE reservation_id = ? AND version = ?";
+
     /**
      * Adds a new reservation to the database.
      *
      * This method inserts a new record into the Reservations table using the data
-     * from the provided Reservation object.
+     * from the provided Reservation object, sets its generated reservation_id and
+     * publishes it to the {@link ChangeFeed}. The insert is recorded as a
+     * {@link FlightEvents.ReservationBooking} flight recorder event.
      *
      * @param reservation The reservation to be added.
-     * @throws SQLException If a database error occurs.
+     * @throws SQLException If a database error occurs; the reservation is then not saved.
      */
     @Override
     public void add(Reservation reservation) throws SQLException {
-        Connection connect = Database.getConnection();
+        FlightEvents.ReservationBooking event = new FlightEvents.ReservationBooking();
+        event.begin();
+        try (Connection connect = Database.getConnection()) {
+            String sqlStatement = "INSERT INTO Reservations (customer_name, email, phone, table_id, date_time, status) VALUES (?, ?, ?, ?, ?, ?)";
+
+            try (PreparedStatement statement = connect.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, reservation.getCustomerName());
+                statement.setString(2, reservation.getCustomerEmail());
+                statement.setString(3, reservation.getCustomerPhoneNumber());
+                statement.setInt(4, reservation.getTableId());
+                statement.setTimestamp(5, Timestamp.valueOf(reservation.getReservationTime()));
+                statement.setString(6, reservation.getStatus());
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        reservation.setReservationId(keys.getInt(1));
+                    }
+                }
+
+                System.out.println("Reservation Made!");
+            }
+        } finally {
+            event.record(reservation, false);
+        }
+        // Callers such as AvailabilityEngine.book() give up the claimed slot if the insert throws
+        ChangeFeed.getInstance().publish(Reservation.class, ChangeFeed.Kind.ADDED,
+                reservation.getReservationId(), reservation);
+    }
 
+    /**
+     * Adds several reservations to the database.
+     *
+     * The rows are sent as JDBC batches, each committed as one transaction. Every reservation
+     * in a committed batch gets its generated reservation_id, so after a failure the
+     * reservations still without one are the ones that were not saved.
+     *
+     * @param reservations The reservations to be added.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public void addAll(Collection<Reservation> reservations) throws SQLException {
         String sqlStatement = "INSERT INTO Reservations (customer_name, email, phone, table_id, date_time, status) VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+        int added = JdbcBatch.insertAll(sqlStatement, reservations, (statement, reservation) -> {
             statement.setString(1, reservation.getCustomerName());
             statement.setString(2, reservation.getCustomerEmail());
             statement.setString(3, reservation.getCustomerPhoneNumber());
             statement.setInt(4, reservation.getTableId());
-            statement.setString(5, reservation.getReservationTime());
+            statement.setTimestamp(5, Timestamp.valueOf(reservation.getReservationTime()));
             statement.setString(6, reservation.getStatus());
-            statement.executeUpdate();
-
-            System.out.println("Reservation Made!");
-        } catch (SQLException e) {
-            e.printStackTrace(); // Replace with logging if needed
-        }
+        }, Reservation::setReservationId);
 
-        connect.close();
+        System.out.println(added + " Reservations Made!");
+        ChangeFeed.getInstance().publish(Reservation.class, ChangeFeed.Kind.ADDED);
     }
 
     /**
@@ -61,39 +126,34 @@ public class ReservationDAOImplement implements ReservationDAO {
      */
     @Override
     public void view() throws SQLException {
-        Connection connect = Database.getConnection();
-        ResultSet rs = null;
+        try (Connection connect = Database.getConnection()) {
+            String sqlStatement = "SELECT * FROM Reservations";
 
-        String sqlStatement = "SELECT * FROM Reservations";
+            try (PreparedStatement statement = connect.prepareStatement(sqlStatement);
+                 ResultSet rs = statement.executeQuery()) {
 
-        try {
-            PreparedStatement statement = connect.prepareStatement(sqlStatement);
-            rs = statement.executeQuery();
+                System.out.printf("%-3s %-8s %-20s %-11s %-3s %-20s %-10s\n", "ID", "Name", "Email", "Phone#", "TableID", "ReservationTime", "Status");
 
-            System.out.printf("%-3s %-8s %-20s %-11s %-3s %-20s %-10s\n", "ID", "Name", "Email", "Phone#", "TableID", "ReservationTime", "Status");
+                while (rs.next()) {
+                    int id = rs.getInt("reservation_id");
+                    String name = rs.getString("customer_name");
+                    String email = rs.getString("email");
+                    String phone = rs.getString("phone");
+                    int tableId = rs.getInt("table_id");
+                    String dateTime = rs.getString("date_time");
+                    String status = rs.getString("status");
 
-            while (rs.next()) {
-                int id = rs.getInt("reservation_id");
-                String name = rs.getString("customer_name");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                int tableId = rs.getInt("table_id");
-                String dateTime = rs.getString("date_time");
-                String status = rs.getString("status");
-
-                System.out.printf("%-3d %-8s %-20s %-11s %-7d %-20s %-8s\n", id, name, email, phone, tableId, dateTime, status);
+                    System.out.printf("%-3d %-8s %-20s %-11s %-7d %-20s %-8s\n", id, name, email, phone, tableId, dateTime, status);
+                }
             }
-        } catch (SQLException e) {
-            System.out.println(e); // Replace with logging if needed
         }
-
-        connect.close();
     }
 
     /**
      * Updates the status of an existing reservation.
      *
-     * This method sets a new status value for the reservation identified by its ID.
+     * This method sets a new status value for the reservation identified by its ID
+     * and publishes the change to the {@link ChangeFeed}.
      *
      * @param status The new reservation status (e.g., "confirmed", "cancelled").
      * @param id The reservation ID to update.
@@ -101,21 +161,185 @@ public class ReservationDAOImplement implements ReservationDAO {
      */
     @Override
     public void update(String status, int id) throws SQLException {
-        Connection connect = Database.getConnection();
+        // Failures are thrown, not printed, so a unit of work the update joined rolls back
+        boolean updated;
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(UPDATE_STATUS_SQL)) {
+            statement.setString(1, status);
+            statement.setInt(2, id);
+            updated = statement.executeUpdate() > 0;
+        }
+        if (!updated) {
+            System.out.println("No reservation found with ID " + id);
+            return;
+        }
+        System.out.println("Reservation #" + id + " updated to " + status + "!");
+        ChangeFeed.getInstance().publish(Reservation.class, ChangeFeed.Kind.UPDATED, id, null);
+    }
 
-        String sqlStatement = "UPDATE Reservations SET status = ? WHERE reservation_id = ?";
+    /**
+     * Updates the status of a reservation if it still has the version it was read at.
+     *
+     * @param status The new reservation status (e.g., "booked", "cancelled").
+     * @param id The reservation ID to update.
+     * @param expectedVersion The version the reservation was read at.
+     * @throws ConcurrentUpdateException If the reservation was changed since it was read.
+     * @throws DAOException If the reservation does not exist or a database error occurs.
+     */
+    @Override
+    public void update(String status, int id, int expectedVersion) throws DAOException {
+        Reservation.Status.valueOf(String.valueOf(status)); // Rejects an unknown status
 
-        try (PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(UPDATE_STATUS_VERSIONED_SQL)) {
             statement.setString(1, status);
             statement.setInt(2, id);
-            statement.executeUpdate();
+            statement.setInt(3, expectedVersion);
 
-            System.out.println("Reservation #" + id + " updated to " + status + "!");
+            if (statement.executeUpdate() == 0
+                    && !RowVersions.checkConflict(connect, "Reservation", "Reservations", "reservation_id", id, expectedVersion)) {
+                throw new DAOException("No reservation found with ID: " + id);
+            }
         } catch (SQLException e) {
-            e.printStackTrace(); // Replace with logging if needed
+            throw new DAOException("Error while updating reservation #" + id, e);
+        }
+        ChangeFeed.getInstance().publish(Reservation.class, ChangeFeed.Kind.UPDATED, id, null);
+    }
+
+    /**
+     * Retrieves one reservation by its ID.
+     *
+     * @param id The reservation ID.
+     * @return The reservation, or null if there is none with that ID.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public Reservation getById(int id) throws SQLException {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(BY_ID_SQL)) {
+            statement.setInt(1, id);
+            List<Reservation> found = readAll(statement);
+            return found.isEmpty() ? null : found.get(0);
+        }
+    }
+
+    /**
+     * Streams every reservation to the handler in reservation_id order.
+     *
+     * Reservations are read in fixed-size keyset pages, so even a very long
+     * reservation history is scanned in constant memory.
+     *
+     * @param handler Receives each reservation and its reservation_id.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public void forEach(RowHandler<? super Reservation> handler) throws SQLException {
+        JdbcPaging.forEach(PAGE_SQL, "reservation_id", ReservationDAOImplement::mapRow, handler);
+    }
+
+    /**
+     * Retrieves one page of reservations in reservation_id order.
+     *
+     * @param afterKey The reservation_id to start after, or 0 for the first page.
+     * @param pageSize The maximum number of reservations to return.
+     * @return The requested page of reservations.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public Page<Reservation> viewPage(int afterKey, int pageSize) throws SQLException {
+        return JdbcPaging.page(PAGE_SQL, "reservation_id", afterKey, pageSize, ReservationDAOImplement::mapRow);
+    }
+
+    /**
+     * Retrieves every reservation on the given day, ordered by time.
+     *
+     * @param day The day of the reservations.
+     * @return The reservations from midnight to midnight.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public List<Reservation> getByDay(LocalDate day) throws SQLException {
+        if (day == null) {
+            throw new IllegalArgumentException("Day cannot be null.");
+        }
+        return getBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Retrieves every reservation starting within a time window, ordered by time.
+     *
+     * @param from The start of the window (inclusive).
+     * @param to The end of the window (exclusive), or null for no upper bound.
+     * @return The reservations in the window.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public List<Reservation> getBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        if (from == null) {
+            throw new IllegalArgumentException("Start of the time window cannot be null.");
+        }
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(to == null ? FROM_SQL : BETWEEN_SQL)) {
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            if (to != null) {
+                statement.setTimestamp(2, Timestamp.valueOf(to));
+            }
+            return readAll(statement);
         }
+    }
+
+    /**
+     * Retrieves the reservations of one table within a time window, ordered by time.
+     *
+     * @param tableId The table whose reservations are wanted.
+     * @param from The start of the window (inclusive).
+     * @param to The end of the window (exclusive).
+     * @return The table's reservations in the window.
+     * @throws SQLException If a database error occurs.
+     */
+    @Override
+    public List<Reservation> getByTable(int tableId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Time window cannot be null.");
+        }
+
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(BY_TABLE_SQL)) {
+            statement.setInt(1, tableId);
+            statement.setTimestamp(2, Timestamp.valueOf(from));
+            statement.setTimestamp(3, Timestamp.valueOf(to));
+            return readAll(statement);
+        }
+    }
+
+    private static List<Reservation> readAll(PreparedStatement statement) throws SQLException {
+        List<Reservation> reservations = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                reservations.add(mapRow(rs));
+            }
+        }
+        return reservations;
+    }
+
+    // Builds a Reservation from the current row; blank optional fields are read as null.
+    private static Reservation mapRow(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation(
+            rs.getString("customer_name"),
+            blankToNull(rs.getString("email")),
+            blankToNull(rs.getString("phone")),
+            rs.getInt("table_id"),
+            rs.getTimestamp("date_time").toLocalDateTime(),
+            Reservation.Status.valueOf(rs.getString("status")).ordinal() + 1
+        );
+        reservation.setReservationId(rs.getInt("reservation_id"));
+        reservation.setVersion(rs.getInt("version"));
+        return reservation;
+    }
 
-        connect.close();
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
     }
 }
 
@@ -10,10 +10,20 @@ package com.fantastic.restaurant;
  */
 public class RestaurantTable {
     
+    /**
+     * The states a table can be in on the floor.
+     */
+    enum Status {
+        available,
+        occupied,
+        reserved
+    }
+
     // Table attributes
     private int tableNumber;
     private int tableCapacity;
     private String tableStatus;
+    private int version; // Row version read from the database; 0 for a new table
 
     /**
      * Constructs a new RestaurantTable with the specified table number,
@@ -21,7 +31,7 @@ public class RestaurantTable {
      * 
      * @param num the table number
      * @param cap the table capacity (must be non-negative)
-     * @param status the status of the table (e.g., "available", "occupied")
+     * @param status the status of the table ("available", "occupied" or "reserved")
      * @throws IllegalArgumentException if the capacity is negative or the status is invalid
      */
     public RestaurantTable(int num, int cap, String status) {
@@ -59,18 +69,33 @@ public class RestaurantTable {
     }
 
     /**
-     * Sets the status of the table. The status must be either "available" or "occupied".
+     * Sets the status of the table. The status must be "available", "occupied" or "reserved".
+     * "free", which older versions of the console stored, is read as "available".
      * 
      * @param status the table status
      * @throws IllegalArgumentException if the status is invalid
      */
     public void setTableStatus(String status) {
-        if (status == null || (!status.equals("available") && !status.equals("occupied"))) {
-            throw new IllegalArgumentException("Invalid status. Must be 'available' or 'occupied'.");
+        if ("free".equals(status)) {
+            status = Status.available.toString();
+        }
+        try {
+            Status.valueOf(String.valueOf(status));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status. Must be 'available', 'occupied' or 'reserved'.");
         }
         this.tableStatus = status;
     }
 
+    /**
+     * Sets the row version of the table. Called by the DAO when a table is read or updated.
+     * 
+     * @param version the version, which every write to the row increments
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     // Getters
 
     /**
@@ -100,6 +125,15 @@ public class RestaurantTable {
         return tableStatus;
     }
 
+    /**
+     * Gets the row version the table was read at, to pass to a versioned update.
+     * 
+     * @return the version, or 0 if the table has not been read from the database
+     */
+    public int getVersion() {
+        return version;
+    }
+
 
 }
 
@@ -1,5 +1,6 @@
 package com.fantastic.restaurant;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -52,6 +53,40 @@ public interface RestaurantTableDAO extends DAO<RestaurantTable> {
      */
     boolean update(RestaurantTable restaurantTable) throws DAOException;
 
+    /**
+     * Updates a RestaurantTable only if nobody has changed it since it was read, so two
+     * terminals cannot both seat a party at the same table without one of them noticing.
+     * On success the table's version is set to the new version.
+     *
+     * @param restaurantTable The RestaurantTable object containing the updated data.
+     * @param expectedVersion The version the table was read at.
+     * @return true if the update is successful, false if the table does not exist.
+     * @throws ConcurrentUpdateException If the table was changed since; nothing is written.
+     * @throws DAOException If there is an error while updating the table.
+     */
+    boolean update(RestaurantTable restaurantTable, int expectedVersion) throws DAOException;
+
+    /**
+     * Updates the capacity and status of several RestaurantTables in as few round trips as
+     * possible, e.g. to write the status changes held back by {@link WriteBehindTableDAO}.
+     *
+     * @param restaurantTables The RestaurantTable objects containing the updated data.
+     * @return the number of tables updated; tables that do not exist are skipped.
+     * @throws DAOException If a batch cannot be updated; that batch is rolled back.
+     */
+    int updateAll(Collection<RestaurantTable> restaurantTables) throws DAOException;
+
+    /**
+     * Updates several RestaurantTables like {@link #updateAll(Collection)}, but each one only if
+     * its row still has the table's version, e.g. to write the transitions held back by
+     * {@link WriteBehindTableDAO}. The version of every table written is set to its new version.
+     *
+     * @param restaurantTables The RestaurantTable objects containing the updated data and the version they were read at.
+     * @return the tables that were not written because they were changed since, or no longer exist.
+     * @throws DAOException If a batch cannot be updated; that batch is rolled back.
+     */
+    List<RestaurantTable> updateAllVersioned(Collection<RestaurantTable> restaurantTables) throws DAOException;
+
     /**
      * Deletes a RestaurantTable from the data source.
      * Efficiency should be considered to ensure minimal resource usage while removing entries.
@@ -4,8 +4,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Implements the RestaurantTableDAO interface to manage restaurant tables
@@ -21,6 +26,26 @@ import java.util.List;
  */
 public class RestaurantTableDAOImplement implements RestaurantTableDAO {
 
+    private static final String PAGE_SQL =
+            "SELECT table_id, table_number, capacity, status, version FROM Tables WHERE table_id > ? ORDER BY table_id LIMIT ?";
+    private static final String BY_NUMBER_SQL =
+            "SELECT table_id, table_number, capacity, status, version FROM Tables WHERE table_number = ?";
+    // Every write increments the version, so versioned updates notice unversioned ones too.
+    private static final String UPDATE_SQL =
+            "UPDATE Tables SET capacity = ?, status = ?, version = version + 1 WHERE table_number = ?";
+    private static final String UPDATE_VERSIONED_SQL =
+            "UPDATE Tables SET capacity = ?, status = ?, version = version + 1 WHERE table_number = ? AND version = ?";
+    private static final String ID_BY_NUMBER_SQL =
+            "SELECT table_id FROM Tables WHERE table_number = ?";
+
+    public static final int TABLE_ID_CACHE_SIZE = Integer.getInteger("restaurant.cache.tableIds.maxSize", 1_000);
+    public static final long TABLE_ID_TTL_MS = Long.getLong("restaurant.cache.tableIds.ttlMs", 600_000L);
+
+    // table_id by table_number, so changes to tables written by number are published with their key.
+    // A number keeps its table_id until the table is deleted, so only delete() invalidates.
+    private static final ReadThroughCache<Integer, Integer> tableIds =
+            new ReadThroughCache<>(TABLE_ID_CACHE_SIZE, TABLE_ID_TTL_MS);
+
     /**
      * Adds a new RestaurantTable to the database.
      * This method inserts a new table record with its table number, capacity, and status.
@@ -31,19 +56,22 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
      */
     @Override
     public boolean save(RestaurantTable table) throws DAOException {
+        int tableId;
         try (Connection connect = Database.getConnection()) {
             String sqlStatement = "INSERT INTO Tables (table_number, capacity, status) VALUES (?, ?, ?)";
-            try (PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
+            try (PreparedStatement statement = connect.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS)) {
                 statement.setInt(1, table.getTableNumber());
                 statement.setInt(2, table.getTableCapacity());
                 statement.setString(3, table.getTableStatus());
                 statement.executeUpdate();
+                tableId = generatedKey(statement);
                 System.out.println("Table Created!");
-                return true;
             }
         } catch (SQLException e) {
             throw new DAOException("Error while adding table to the database", e);
         }
+        ChangeFeed.getInstance().publish(RestaurantTable.class, ChangeFeed.Kind.ADDED, tableId, table);
+        return true;
     }
 
     /**
@@ -56,22 +84,30 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
      */
     @Override
     public boolean delete(int tableNumber) throws DAOException {
+        // Looked up first, as the row is gone afterwards
+        Integer tableId = ChangeFeed.getInstance().hasSubscribers(RestaurantTable.class) ? findTableId(tableNumber) : null;
         try (Connection connect = Database.getConnection()) {
             String sqlStatement = "DELETE FROM Tables WHERE table_number = ?";
             try (PreparedStatement statement = connect.prepareStatement(sqlStatement)) {
                 statement.setInt(1, tableNumber);
                 int rowsAffected = statement.executeUpdate();
-                if (rowsAffected > 0) {
-                    System.out.println("Table Deleted!");
-                    return true;
-                } else {
+                if (rowsAffected == 0) {
                     System.out.println("Table not found!");
                     return false;
                 }
+                System.out.println("Table Deleted!");
             }
         } catch (SQLException e) {
             throw new DAOException("Error while deleting table from the database", e);
+        } finally {
+            tableIds.invalidate(tableNumber);
+        }
+        if (tableId != null) {
+            ChangeFeed.getInstance().publish(RestaurantTable.class, ChangeFeed.Kind.DELETED, tableId, null);
+        } else {
+            ChangeFeed.getInstance().publish(RestaurantTable.class, ChangeFeed.Kind.DELETED);
         }
+        return true;
     }
 
     /**
@@ -85,16 +121,18 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
     public void add(RestaurantTable t) throws SQLException {
         Connection connect = null;
         PreparedStatement statement = null;
+        int tableId;
 
         try {
             connect = Database.getConnection();
             String sql = "INSERT INTO Tables (table_number, capacity, status) VALUES (?, ?, ?)";
-            statement = connect.prepareStatement(sql);
+            statement = connect.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             statement.setInt(1, t.getTableNumber());
             statement.setInt(2, t.getTableCapacity());
             statement.setString(3, t.getTableStatus());
 
             statement.executeUpdate();
+            tableId = generatedKey(statement);
             System.out.println("Table added via add() method.");
         } catch (SQLException e) {
             System.err.println("Error occurred while adding table: " + e.getMessage());
@@ -115,6 +153,32 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
                 }
             }
         }
+        ChangeFeed.getInstance().publish(RestaurantTable.class, ChangeFeed.Kind.ADDED, tableId, t);
+    }
+
+    /**
+     * Adds several RestaurantTables to the database.
+     * The tables are inserted as JDBC batches, each committed as one transaction,
+     * so a whole floor plan is created in one round trip per batch.
+     * 
+     * @param tables the RestaurantTable objects to be added.
+     * @throws SQLException If there is an error during the SQL query execution.
+     */
+    @Override
+    public void addAll(Collection<RestaurantTable> tables) throws SQLException {
+        String sql = "INSERT INTO Tables (table_number, capacity, status) VALUES (?, ?, ?)";
+        try {
+            int added = JdbcBatch.insertAll(sql, tables, (statement, t) -> {
+                statement.setInt(1, t.getTableNumber());
+                statement.setInt(2, t.getTableCapacity());
+                statement.setString(3, t.getTableStatus());
+            });
+            System.out.println(added + " tables added via addAll() method.");
+            ChangeFeed.getInstance().publish(RestaurantTable.class, ChangeFeed.Kind.ADDED);
+        } catch (SQLException e) {
+            System.err.println("Error occurred while adding tables: " + e.getMessage());
+            throw e;  // Rethrow so the calling method is aware of the failure
+        }
     }
 
     /**
@@ -140,17 +204,26 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
     }
 
     /**
-     * Retrieves a RestaurantTable by its ID.
-     * This method is not implemented yet and returns null.
+     * Retrieves a RestaurantTable by its table number.
+     * Like update() and delete(), this identifies the table by its table_number,
+     * which is unique and indexed (see sql/007_tables_number.sql).
      * 
-     * @param id The ID of the table to retrieve.
-     * @return null (functionality not yet implemented).
+     * @param tableNumber the table number of the table to retrieve.
+     * @return the table, or null if there is no table with that number.
      * @throws DAOException If there is an error during database interaction.
      */
     @Override
-    public RestaurantTable getById(int id) throws DAOException {
-        // TODO: Implement this method to retrieve a table by its ID.
-        return null;
+    public RestaurantTable getById(int tableNumber) throws DAOException {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(BY_NUMBER_SQL)) {
+
+            statement.setInt(1, tableNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? mapRow(resultSet) : null;
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while fetching table " + tableNumber, e);
+        }
     }
 
     /**
@@ -163,19 +236,113 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
      */
     @Override
     public boolean update(RestaurantTable restaurantTable) throws DAOException {
-        String sql = "UPDATE Tables SET capacity = ?, status = ? WHERE table_number = ?";
         try (Connection connect = Database.getConnection();
-             PreparedStatement statement = connect.prepareStatement(sql)) {
+             PreparedStatement statement = connect.prepareStatement(UPDATE_SQL)) {
 
             statement.setInt(1, restaurantTable.getTableCapacity());
             statement.setString(2, restaurantTable.getTableStatus());
             statement.setInt(3, restaurantTable.getTableNumber());
 
             int rowsUpdated = statement.executeUpdate();
-            return rowsUpdated > 0; // Returns true if the update was successful
+            if (rowsUpdated == 0) {
+                return false;
+            }
         } catch (SQLException e) {
             throw new DAOException("Error while updating table", e);
         }
+        updated(restaurantTable);
+        return true; // The update was successful
+    }
+
+    /**
+     * Updates a RestaurantTable's capacity and status only if its row still has the expected version.
+     * 
+     * @param restaurantTable the RestaurantTable object containing updated information.
+     * @param expectedVersion the version the table was read at.
+     * @return true if the update was successful, false if there is no table with that number.
+     * @throws ConcurrentUpdateException If the table was changed since it was read.
+     * @throws DAOException If there is an error while interacting with the database.
+     */
+    @Override
+    public boolean update(RestaurantTable restaurantTable, int expectedVersion) throws DAOException {
+        try (Connection connect = Database.getConnection();
+             PreparedStatement statement = connect.prepareStatement(UPDATE_VERSIONED_SQL)) {
+
+            statement.setInt(1, restaurantTable.getTableCapacity());
+            statement.setString(2, restaurantTable.getTableStatus());
+            statement.setInt(3, restaurantTable.getTableNumber());
+            statement.setInt(4, expectedVersion);
+
+            if (statement.executeUpdate() == 0) {
+                return RowVersions.checkConflict(connect, "RestaurantTable", "Tables", "table_number",
+                        restaurantTable.getTableNumber(), expectedVersion);
+            }
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating table", e);
+        }
+        restaurantTable.setVersion(expectedVersion + 1);
+        updated(restaurantTable);
+        return true;
+    }
+
+    /**
+     * Updates several RestaurantTables' capacity and status by table number.
+     * The updates are sent as JDBC batches, each committed as one transaction.
+     * 
+     * @param tables the RestaurantTable objects containing updated information.
+     * @return the number of tables updated.
+     * @throws DAOException If a batch cannot be updated; that batch is rolled back.
+     */
+    @Override
+    public int updateAll(Collection<RestaurantTable> tables) throws DAOException {
+        int updated;
+        try {
+            updated = JdbcBatch.updateAll(UPDATE_SQL, tables, (statement, t) -> {
+                statement.setInt(1, t.getTableCapacity());
+                statement.setString(2, t.getTableStatus());
+                statement.setInt(3, t.getTableNumber());
+            });
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating tables", e);
+        }
+        if (updated > 0) {
+            for (RestaurantTable t : tables) {
+                updated(t);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Updates several RestaurantTables' capacity and status by table number, each only if its row
+     * still has the table's version. The updates are sent as JDBC batches, each committed as one transaction.
+     * 
+     * @param tables the RestaurantTable objects containing updated information and the version they were read at.
+     * @return the tables that were not updated because their version moved on or they no longer exist.
+     * @throws DAOException If a batch cannot be updated; that batch is rolled back.
+     */
+    @Override
+    public List<RestaurantTable> updateAllVersioned(Collection<RestaurantTable> tables) throws DAOException {
+        List<RestaurantTable> skipped;
+        try {
+            skipped = JdbcBatch.updateEach(UPDATE_VERSIONED_SQL, tables, (statement, t) -> {
+                statement.setInt(1, t.getTableCapacity());
+                statement.setString(2, t.getTableStatus());
+                statement.setInt(3, t.getTableNumber());
+                statement.setInt(4, t.getVersion());
+            });
+        } catch (SQLException e) {
+            throw new DAOException("Error while updating tables", e);
+        }
+        Set<RestaurantTable> notWritten = Collections.newSetFromMap(new IdentityHashMap<>());
+        notWritten.addAll(skipped);
+        for (RestaurantTable t : tables) {
+            if (!notWritten.contains(t)) {
+                t.setVersion(t.getVersion() + 1);
+                updated(t);
+            }
+        }
+        return skipped;
     }
 
     /**
@@ -197,11 +364,93 @@ public class RestaurantTableDAOImplement implements RestaurantTableDAO {
                 int tableNumber = resultSet.getInt("table_number");
                 int capacity = resultSet.getInt("capacity");
                 String status = resultSet.getString("status");
-                tables.add(new RestaurantTable(tableNumber, capacity, status));
+                RestaurantTable table = new RestaurantTable(tableNumber, capacity, status);
+                table.setVersion(resultSet.getInt("version"));
+                tables.add(table);
             }
             return tables;
         } catch (SQLException e) {
             throw new DAOException("Error while fetching all tables", e);
         }
     }
+
+    /**
+     * Streams every RestaurantTable to the handler in table_id order without loading the whole table.
+     * 
+     * @param handler receives each RestaurantTable and its table_id.
+     * @throws SQLException If there is an error while executing the SQL query.
+     */
+    @Override
+    public void forEach(RowHandler<? super RestaurantTable> handler) throws SQLException {
+        JdbcPaging.forEach(PAGE_SQL, "table_id", RestaurantTableDAOImplement::mapRow, handler);
+    }
+
+    /**
+     * Retrieves one page of RestaurantTables in table_id order.
+     * 
+     * @param afterKey the table_id to start after, or 0 for the first page.
+     * @param pageSize the maximum number of tables to return.
+     * @return the requested page of tables.
+     * @throws SQLException If there is an error while executing the SQL query.
+     */
+    @Override
+    public Page<RestaurantTable> viewPage(int afterKey, int pageSize) throws SQLException {
+        return JdbcPaging.page(PAGE_SQL, "table_id", afterKey, pageSize, RestaurantTableDAOImplement::mapRow);
+    }
+
+    // Publishes a table's new state under its table_id, looked up by number if anyone listens.
+    private static void updated(RestaurantTable table) {
+        ChangeFeed feed = ChangeFeed.getInstance();
+        if (!feed.hasSubscribers(RestaurantTable.class)) {
+            return;
+        }
+        Integer tableId = findTableId(table.getTableNumber());
+        if (tableId == null) {
+            feed.publish(RestaurantTable.class, ChangeFeed.Kind.UPDATED); // Subscribers re-read to find the row
+            return;
+        }
+        // A copy, so later changes to the caller's object do not reach the subscribers
+        RestaurantTable snapshot = new RestaurantTable(table.getTableNumber(), table.getTableCapacity(), table.getTableStatus());
+        snapshot.setVersion(table.getVersion());
+        feed.publish(RestaurantTable.class, ChangeFeed.Kind.UPDATED, tableId, snapshot);
+    }
+
+    // Looks up a table's table_id by number, or null if there is no such table or it cannot be read.
+    private static Integer findTableId(int tableNumber) {
+        try {
+            return tableIds.get(tableNumber, number -> {
+                try (Connection connect = Database.getConnection();
+                     PreparedStatement statement = connect.prepareStatement(ID_BY_NUMBER_SQL)) {
+                    statement.setInt(1, number);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? resultSet.getInt(1) : null;
+                    }
+                } catch (SQLException e) {
+                    throw new DAOException("Error while looking up table " + number, e);
+                }
+            });
+        } catch (DAOException e) {
+            // The write already succeeded; without the key subscribers re-read instead
+            System.err.println("Failed to look up table " + tableNumber + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Reads the table_id generated by an insert, or 0 if the driver returned none.
+    private static int generatedKey(PreparedStatement statement) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : 0;
+        }
+    }
+
+    // Builds a RestaurantTable from the current row.
+    private static RestaurantTable mapRow(ResultSet resultSet) throws SQLException {
+        RestaurantTable table = new RestaurantTable(
+            resultSet.getInt("table_number"),
+            resultSet.getInt("capacity"),
+            resultSet.getString("status")
+        );
+        table.setVersion(resultSet.getInt("version"));
+        return table;
+    }
 }
@@ -0,0 +1,47 @@
+package com.fantastic.restaurant;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Shared helper for the versioned DAO updates. A versioned update adds
+ * "version = version + 1" to its SET clause and "AND version = ?" to its WHERE clause, so it
+ * changes no rows if another terminal wrote the row since it was read. Only then is the row
+ * looked up again here, to tell a row that has gone from one that has moved on.
+ */
+final class RowVersions {
+
+    // Private constructor to prevent instantiation
+    private RowVersions() {}
+
+    /**
+     * Explains why a versioned update changed no rows.
+     *
+     * @param connect the connection the update ran on.
+     * @param entity the kind of row, for the exception, e.g. "Reservation".
+     * @param table the table the row is in.
+     * @param keyColumn the column the update identified the row by.
+     * @param key the value of that column.
+     * @param expectedVersion the version the update required.
+     * @return false if there is no such row.
+     * @throws ConcurrentUpdateException if the row exists but has another version.
+     * @throws SQLException if the row cannot be read.
+     */
+    static boolean checkConflict(Connection connect, String entity, String table, String keyColumn, Object key,
+                                 int expectedVersion) throws SQLException, ConcurrentUpdateException {
+        String sql = "SELECT version FROM " + table + " WHERE " + keyColumn + " = ?";
+        try (PreparedStatement statement = connect.prepareStatement(sql)) {
+            statement.setObject(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                int actualVersion = rs.getInt(1);
+                new FlightEvents.UpdateConflict().record(entity, key, expectedVersion, actualVersion);
+                throw new ConcurrentUpdateException(entity, key, expectedVersion, actualVersion);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.fantastic.restaurant;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chooses the table, or run of adjacent tables pushed together, that seats a party with the
+ * least waste over the evening.
+ *
+ * Every candidate is scored in seat-minutes that can no longer be sold:
+ *
+ * - Empty chairs: (seats - party size) for the length of the booking.
+ * - Dead gaps: a booking that leaves a table idle for less than one booking length before or
+ *   after it makes that idle time unsellable, so those minutes count for every seat of the
+ *   table. Idle time before a walk-in is in the past and does not count.
+ *
+ * The lowest score wins; ties go to fewer tables, then to the lowest table number. A table for
+ * six is therefore kept for a later six-top rather than given to a couple when a two-top is
+ * free, and bookings are packed next to existing ones rather than splitting a free evening.
+ *
+ * Tables are taken to stand next to each other when their table numbers are consecutive, as
+ * the Tables table does not record the floor plan. Runs of up to
+ * restaurant.seating.maxCombinedTables tables (3 by default) are considered, and only when they
+ * are all free for the whole booking.
+ *
+ * - Efficiency: One pass over the free tables from the {@link AvailabilityEngine} index, so a
+ *   suggestion takes microseconds and can be recomputed for every walk-in.
+ */
+public class SeatingOptimizer {
+
+    public static final int MAX_COMBINED_TABLES = Integer.getInteger("restaurant.seating.maxCombinedTables", 3);
+
+    private final AvailabilityEngine availability;
+    private final int maxCombined;
+
+    /**
+     * A way to seat a party: one table, or adjacent tables pushed together.
+     */
+    public static final class Seating {
+        private final List<Integer> tableIds;
+        private final List<Integer> tableNumbers;
+        private final int seats;
+        private final int spareSeats;
+        private final long wastedSeatMinutes;
+
+        private Seating(List<Integer> tableIds, List<Integer> tableNumbers, int seats, int spareSeats,
+                        long wastedSeatMinutes) {
+            this.tableIds = tableIds;
+            this.tableNumbers = tableNumbers;
+            this.seats = seats;
+            this.spareSeats = spareSeats;
+            this.wastedSeatMinutes = wastedSeatMinutes;
+        }
+
+        /**
+         * Gets the tables to seat the party at.
+         *
+         * @return the table_ids, in table number order.
+         */
+        public List<Integer> getTableIds() {
+            return tableIds;
+        }
+
+        /**
+         * Gets the numbers of the tables to seat the party at, as shown on the floor.
+         *
+         * @return the table numbers, in order.
+         */
+        public List<Integer> getTableNumbers() {
+            return tableNumbers;
+        }
+
+        /**
+         * Gets the total capacity of the tables.
+         *
+         * @return the number of seats.
+         */
+        public int getSeats() {
+            return seats;
+        }
+
+        /**
+         * Gets the seats left empty by the party.
+         *
+         * @return the seats minus the party size.
+         */
+        public int getSpareSeats() {
+            return spareSeats;
+        }
+
+        /**
+         * Gets the score this seating was chosen by.
+         *
+         * @return the seat-minutes the seating makes unsellable; lower is better.
+         */
+        public long getWastedSeatMinutes() {
+            return wastedSeatMinutes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder tables = new StringBuilder(tableNumbers.size() == 1 ? "table " : "tables ");
+            for (int i = 0; i < tableNumbers.size(); i++) {
+                tables.append(i == 0 ? "" : " + ").append(tableNumbers.get(i))
+                        .append(" (ID ").append(tableIds.get(i)).append(')');
+            }
+            return tables + ", " + seats + " seats, " + spareSeats + " spare";
+        }
+    }
+
+    /**
+     * Constructs an optimizer over an availability index, combining up to the default number of tables.
+     *
+     * @param availability the loaded index of tables and bookings.
+     */
+    public SeatingOptimizer(AvailabilityEngine availability) {
+        this(availability, MAX_COMBINED_TABLES);
+    }
+
+    /**
+     * Constructs an optimizer over an availability index.
+     *
+     * @param availability the loaded index of tables and bookings.
+     * @param maxCombined the most adjacent tables pushed together for one party; 1 never combines tables.
+     * @throws IllegalArgumentException if maxCombined is less than 1.
+     */
+    public SeatingOptimizer(AvailabilityEngine availability, int maxCombined) {
+        if (maxCombined < 1) {
+            throw new IllegalArgumentException("At least one table must be allowed per party.");
+        }
+        this.availability = availability;
+        this.maxCombined = maxCombined;
+    }
+
+    /**
+     * Finds the best seating for a party.
+     *
+     * @param partySize the number of guests.
+     * @param time when the party sits down.
+     * @return the seating that wastes the fewest seat-minutes, or null if no table or run of adjacent tables is free.
+     * @throws IllegalArgumentException if the party size is not positive.
+     */
+    public Seating suggest(int partySize, LocalDateTime time) {
+        List<Seating> best = rank(partySize, time, 1);
+        return best.isEmpty() ? null : best.get(0);
+    }
+
+    /**
+     * Ranks the ways to seat a party, best first.
+     *
+     * @param partySize the number of guests.
+     * @param time when the party sits down.
+     * @param limit the maximum number of seatings to return.
+     * @return up to limit seatings, in increasing order of wasted seat-minutes.
+     * @throws IllegalArgumentException if the party size is not positive.
+     */
+    public List<Seating> rank(int partySize, LocalDateTime time, int limit) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Party size must be positive.");
+        }
+        int minutes = availability.getDurationMinutes();
+        boolean walkIn = !time.isAfter(LocalDateTime.now());
+
+        List<AvailabilityEngine.FreeTable> free = availability.getFreeTables(time, minutes);
+        free.sort(Comparator.comparingInt(table -> table.tableNumber));
+        long[] deadMinutes = new long[free.size()];
+        for (int i = 0; i < free.size(); i++) {
+            deadMinutes[i] = deadSeatMinutes(free.get(i), minutes, walkIn);
+        }
+
+        // Every run of 1..maxCombined consecutive table numbers that seats the party; a run stops
+        // growing as soon as it is big enough, as adding another table only adds empty chairs.
+        List<Seating> seatings = new ArrayList<>();
+        for (int first = 0; first < free.size(); first++) {
+            int seats = 0;
+            long dead = 0;
+            for (int last = first; last < free.size() && last - first < maxCombined; last++) {
+                if (last > first && free.get(last).tableNumber != free.get(last - 1).tableNumber + 1) {
+                    break;
+                }
+                seats += free.get(last).capacity;
+                dead += deadMinutes[last];
+                if (seats >= partySize) {
+                    seatings.add(seating(free, first, last, seats, partySize,
+                            (long) (seats - partySize) * minutes + dead));
+                    break;
+                }
+            }
+        }
+
+        seatings.sort(Comparator.comparingLong(Seating::getWastedSeatMinutes)
+                .thenComparingInt(seating -> seating.tableIds.size())
+                .thenComparingInt(seating -> seating.tableNumbers.get(0)));
+        return seatings.size() > limit ? new ArrayList<>(seatings.subList(0, limit)) : seatings;
+    }
+
+    // Seat-minutes of idle time around the booking that are too short to sell to another party.
+    private static long deadSeatMinutes(AvailabilityEngine.FreeTable table, int minutes, boolean walkIn) {
+        long dead = 0;
+        if (!walkIn && table.idleBefore < minutes) {
+            dead += table.idleBefore;
+        }
+        if (table.idleAfter < minutes) {
+            dead += table.idleAfter;
+        }
+        return dead * table.capacity;
+    }
+
+    private static Seating seating(List<AvailabilityEngine.FreeTable> free, int first, int last,
+                                   int seats, int partySize, long wasted) {
+        List<Integer> ids = new ArrayList<>(last - first + 1);
+        List<Integer> numbers = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            ids.add(free.get(i).tableId);
+            numbers.add(free.get(i).tableNumber);
+        }
+        return new Seating(Collections.unmodifiableList(ids), Collections.unmodifiableList(numbers),
+                seats, seats - partySize, wasted);
+    }
+}
@@ -6,13 +6,16 @@ package com.fantastic.restaurant;
  * | - userid: int 									   |
  * | - description: String							   |
  * | - status: String								   |
+ * | - version: int									   |
  * |---------------------------------------------------|
  * | + setUserId(id: int): void						   |
  * | + setDescription(des: String): void			   |
  * | + setStatus(status: int): void					   |
+ * | + setVersion(version: int): void				   |
  * | + getUserId(): Int								   |
  * | + getDescription(): String						   |
  * | + getStatus(): String							   |
+ * | + getVersion(): int							   |
  * |---------------------------------------------------|	
  * */
 
@@ -21,6 +24,7 @@ public class StaffTask
 	private int userid;
 	private String description;
 	private String status; 
+	private int version; //Row version read from the database; 0 for a new task
 
 	enum Status
 	{
@@ -68,6 +72,12 @@ public class StaffTask
 		
 	}
 	
+	//Set by the DAO when a task is read back
+	public void setVersion(int version)
+	{
+		this.version = version;
+	}
+	
 	public int getUserid()
 	{
 		return userid;
@@ -83,4 +93,9 @@ public class StaffTask
 		return status;
 	}
 	
+	public int getVersion()
+	{
+		return version;
+	}
+	
 }
\ No newline at end of file
@@ -2,10 +2,48 @@ package com.fantastic.restaurant;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 
 public interface StaffTaskDAO extends DAO<StaffTask> 
 {
 	ArrayList<Integer> getTaskList() throws SQLException;
 	
 	void update(String status, int id, String time) throws SQLException;
+	
+	//Only updates the task if it still has the version it was read at;
+	//throws ConcurrentUpdateException if another terminal changed it first
+	void update(String status, int id, String time, int expectedVersion) throws DAOException;
+	
+	//Writes several status changes as JDBC batches; returns how many tasks were updated
+	int updateAll(Collection<StatusUpdate> updates) throws SQLException;
+	
+	//One status change for update(status, id, time), held back by WriteBehindStaffTaskDAO
+	final class StatusUpdate
+	{
+		private final String status;
+		private final int id;
+		private final String time;
+		
+		public StatusUpdate(String status, int id, String time)
+		{
+			this.status = status;
+			this.id = id;
+			this.time = time;
+		}
+		
+		public String getStatus()
+		{
+			return status;
+		}
+		
+		public int getId()
+		{
+			return id;
+		}
+		
+		public String getTime()
+		{
+			return time;
+		}
+	}
 }
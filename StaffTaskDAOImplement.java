@@ -5,92 +5,112 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 
 public class StaffTaskDAOImplement implements StaffTaskDAO
 {
+	private static final String PAGE_SQL = 
+			"SELECT task_id, user_id, task_description, status, version FROM Staff_Tasks WHERE task_id > ? ORDER BY task_id LIMIT ?";
+	
+	//Every write increments the version, so versioned updates notice unversioned ones too
+	private static final String UPDATE_SQL = 
+			"UPDATE Staff_Tasks SET status = ?, completed_at = ?, version = version + 1 WHERE task_id = ?";
+	private static final String UPDATE_VERSIONED_SQL = 
+			"UPDATE Staff_Tasks SET status = ?, completed_at = ?, version = version + 1 WHERE task_id = ? AND version = ?";
 
 	@Override
 	public void add(StaffTask staff) throws SQLException 
 	{
-		Connection connect = Database.getConnection();
+		//Failures are thrown, not printed, so a unit of work the insert joined rolls back
+		try(Connection connect = Database.getConnection())
+		{
+			String sqlStatement = "INSERT INTO Staff_Tasks (user_id, task_description, status) VALUES (?, ?, ?)";
 		
+			try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+			{
+				statement.setInt(1, staff.getUserid());
+				statement.setString(2, staff.getDescription());
+				statement.setString(3, staff.getStatus());
+				statement.executeUpdate();
+			
+				System.out.println("Staff Member whose id = " + staff.getUserid() + " has been given assigned a task!");
+			}
+		
+		}
+		
+		ChangeFeed.getInstance().publish(StaffTask.class, ChangeFeed.Kind.ADDED, 0, staff);
+	}
+
+	@Override
+	public void addAll(Collection<StaffTask> tasks) throws SQLException 
+	{
 		String sqlStatement = "INSERT INTO Staff_Tasks (user_id, task_description, status) VALUES (?, ?, ?)";
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		int added = JdbcBatch.insertAll(sqlStatement, tasks, (statement, staff) -> 
 		{
 			statement.setInt(1, staff.getUserid());
 			statement.setString(2, staff.getDescription());
 			statement.setString(3, staff.getStatus());
-			statement.executeUpdate();
-			
-			System.out.println("Staff Member whose id = " + staff.getUserid() + " has been given assigned a task!");
-			
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
-		
-		connect.close();
+		});
 		
+		System.out.println(added + " staff tasks have been assigned!");
+		ChangeFeed.getInstance().publish(StaffTask.class, ChangeFeed.Kind.ADDED);
 	}
 
 	@Override
 	public void view() throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "SELECT * FROM Staff_Tasks";
+		try(Connection connect = Database.getConnection())
+		{
+			String sqlStatement = "SELECT * FROM Staff_Tasks";
 		
-		ResultSet rs = null;
+			ResultSet rs = null;
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
-		{
-			rs = statement.executeQuery();
+			try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+			{
+				rs = statement.executeQuery();
 			
-			System.out.printf("%-7s %-7s %-32s %-14s %-25s %-20s\n", "TaskID", "UserID", "Description", "Status", "Time_Assigned", "Time_Completed");
+				System.out.printf("%-7s %-7s %-32s %-14s %-25s %-20s\n", "TaskID", "UserID", "Description", "Status", "Time_Assigned", "Time_Completed");
 			
-			while(rs.next())//Runs as long as there are rows in the table
-			{
-				int taskid = rs.getInt("task_id");
-				int userid = rs.getInt("user_id");
-				String description = rs.getString("task_description");
-				String status = rs.getString("status");
-				String assigned = rs.getString("assigned_at");
-				String completed = rs.getString("completed_at");
+				while(rs.next())//Runs as long as there are rows in the table
+				{
+					int taskid = rs.getInt("task_id");
+					int userid = rs.getInt("user_id");
+					String description = rs.getString("task_description");
+					String status = rs.getString("status");
+					String assigned = rs.getString("assigned_at");
+					String completed = rs.getString("completed_at");
 
-				System.out.printf("%-7d %-7d %-32s %-14s %-25s %-20s\n", taskid, userid, description, status, assigned, completed);
+					System.out.printf("%-7d %-7d %-32s %-14s %-25s %-20s\n", taskid, userid, description, status, assigned, completed);
+				}
 			}
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
 		
-		connect.close();
+		}
 		
 	}
 
 	public ArrayList<Integer> getTaskList() throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "SELECT * FROM Staff_Tasks";
-		
-		ResultSet rs = null;
-		
 		ArrayList<Integer> taskList = new ArrayList<>();
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		try(Connection connect = Database.getConnection())
 		{
-			rs = statement.executeQuery();
-			
-			while(rs.next())//Runs as long as there are rows in the table
+			String sqlStatement = "SELECT * FROM Staff_Tasks";
+		
+			ResultSet rs = null;
+		
+			try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
 			{
-				int id = rs.getInt("task_id");
-				taskList.add(id);		
+				rs = statement.executeQuery();
+			
+				while(rs.next())//Runs as long as there are rows in the table
+				{
+					int id = rs.getInt("task_id");
+					taskList.add(id);		
+				}
 			}
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
 		
-		connect.close();
+		}
 		
 		return taskList;
 	}
@@ -99,23 +119,89 @@ public class StaffTaskDAOImplement implements StaffTaskDAO
 	@Override
 	public void update(String status, int id, String time) throws SQLException 
 	{
-		Connection connect = Database.getConnection();
+		boolean updated = false;
 		
-		String sqlStatement = "UPDATE Staff_Tasks SET status = ?, completed_at = ? WHERE task_id = ?";
+		try(Connection connect = Database.getConnection())
+		{
+			try(PreparedStatement statement = connect.prepareStatement(UPDATE_SQL))
+			{			
+				statement.setString(1, status);
+				statement.setString(2, time);
+				statement.setInt(3, id);
+				updated = statement.executeUpdate() > 0;
+
+				System.out.println("Staff Task where id = " + id + " updated to " + status + "!");
+			}
+		
+		}
+		
+		if(updated)
+		{
+			ChangeFeed.getInstance().publish(StaffTask.class, ChangeFeed.Kind.UPDATED, id, null);
+		}
+	}
+	
+	@Override
+	public void update(String status, int id, String time, int expectedVersion) throws DAOException 
+	{
+		StaffTask.Status.valueOf(String.valueOf(status)); //Rejects an unknown status
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
-		{			
+		try(Connection connect = Database.getConnection();
+			PreparedStatement statement = connect.prepareStatement(UPDATE_VERSIONED_SQL))
+		{
 			statement.setString(1, status);
 			statement.setString(2, time);
 			statement.setInt(3, id);
-			statement.executeUpdate();
-
-			System.out.println("Staff Task where id = " + id + " updated to " + status + "!");
+			statement.setInt(4, expectedVersion);
+			
+			if(statement.executeUpdate() == 0
+					&& !RowVersions.checkConflict(connect, "StaffTask", "Staff_Tasks", "task_id", id, expectedVersion))
+			{
+				throw new DAOException("No staff task found with ID: " + id);
+			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			throw new DAOException("Error while updating staff task " + id, e);
 		}
 		
-		connect.close();
+		ChangeFeed.getInstance().publish(StaffTask.class, ChangeFeed.Kind.UPDATED, id, null);
+	}
+
+	@Override
+	public int updateAll(Collection<StatusUpdate> updates) throws SQLException 
+	{
+		int updated = JdbcBatch.updateAll(UPDATE_SQL, updates, (statement, update) -> 
+		{
+			statement.setString(1, update.getStatus());
+			statement.setString(2, update.getTime());
+			statement.setInt(3, update.getId());
+		});
+		
+		if(updated > 0)
+		{
+			ChangeFeed.getInstance().publish(StaffTask.class, ChangeFeed.Kind.UPDATED);
+		}
+		return updated;
+	}
+
+	@Override
+	public void forEach(RowHandler<? super StaffTask> handler) throws SQLException 
+	{
+		JdbcPaging.forEach(PAGE_SQL, "task_id", StaffTaskDAOImplement::mapRow, handler);
+	}
+	
+	@Override
+	public Page<StaffTask> viewPage(int afterKey, int pageSize) throws SQLException 
+	{
+		return JdbcPaging.page(PAGE_SQL, "task_id", afterKey, pageSize, StaffTaskDAOImplement::mapRow);
+	}
+	
+	//Builds a StaffTask from the current row
+	private static StaffTask mapRow(ResultSet rs) throws SQLException 
+	{
+		int status = StaffTask.Status.valueOf(rs.getString("status")).ordinal() + 1;
 		
+		StaffTask task = new StaffTask(rs.getInt("user_id"), rs.getString("task_description"), status);
+		task.setVersion(rs.getInt("version"));
+		return task;
 	}
 }
@@ -0,0 +1,227 @@
+package com.fantastic.restaurant;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The prepared statements of one pooled connection, kept open between borrows and reused
+ * whenever the same SQL is prepared again.
+ *
+ * The DAO implementations keep preparing their constant SQL and closing the statement at the
+ * end of every call. On a cached connection, closing a prepared statement only hands it back to
+ * this cache; the next prepareStatement with the same SQL and options gets the same statement,
+ * so a server-side prepared statement is parsed once per connection instead of once per call.
+ *
+ * - Efficiency: At most the configured number of statements stay open per connection; the
+ *   least recently used one is closed to make room for another.
+ * - Dependability: A statement is handed back with its parameters and batch cleared and any
+ *   fetch size, row limit or timeout the last user set restored. A statement that is still
+ *   open when its SQL is prepared again, e.g. in a nested loop, is not shared; the second caller
+ *   gets a statement of its own that is closed as usual.
+ *
+ * A cache belongs to one physical connection, which is only used by one borrower at a time, so
+ * it is not thread-safe.
+ */
+final class StatementCache {
+
+    private static final Logger logger = Logger.getLogger(StatementCache.class.getName());
+
+    private final Connection physical;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param physical the connection the statements are prepared on.
+     * @param capacity the maximum number of statements kept open.
+     * @param hits counts the prepares served from a cache, shared by the whole pool.
+     * @param misses counts the prepares that created a statement, shared by the whole pool.
+     */
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= capacity || eldest.getValue().inUse) {
+                    return false;
+                }
+                eldest.getValue().closeQuietly();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Prepares a statement, reusing a cached one if it is free.
+     *
+     * @param method the Connection.prepareStatement overload the borrower called.
+     * @param args its arguments, the SQL first.
+     * @return a cached statement, whose close() returns it to the cache, or a new statement of its own.
+     * @throws SQLException if the driver cannot prepare the statement.
+     */
+    PreparedStatement prepare(Method method, Object[] args) throws SQLException {
+        String key = key(args);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.inUse) {
+                hits.incrementAndGet();
+                entry.inUse = true;
+                return entry.handle;
+            }
+            misses.incrementAndGet();
+            return prepareOnDriver(method, args); // Still open further up the stack; don't share it
+        }
+        misses.incrementAndGet();
+        entry = new Entry(key, prepareOnDriver(method, args));
+        entries.put(key, entry);
+        return entry.handle;
+    }
+
+    /**
+     * Forgets every statement without closing it, as closing the physical connection closes them all.
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    private PreparedStatement prepareOnDriver(Method method, Object[] args) throws SQLException {
+        try {
+            return (PreparedStatement) method.invoke(physical, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Failed to prepare statement.", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new SQLException("Failed to prepare statement.", e);
+        }
+    }
+
+    // The SQL, plus the generated-key or result-set options of the other prepareStatement overloads.
+    private static String key(Object[] args) {
+        String sql = (String) args[0];
+        if (args.length == 1) {
+            return sql;
+        }
+        return sql + '\u0000' + Arrays.deepToString(Arrays.copyOfRange(args, 1, args.length));
+    }
+
+    /**
+     * One cached statement and the handle borrowers see.
+     */
+    private final class Entry {
+
+        private final String key;
+        private final PreparedStatement statement;
+        private final PreparedStatement handle;
+        private boolean inUse = true;
+        private boolean dirty; // Changed in a way that cannot be undone
+        private final Map<Method, Object> changedSettings = new HashMap<>(); // setter -> original value
+
+        private Entry(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    (proxy, method, args) -> invoke(proxy, method, args));
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+                default:
+                    break;
+            }
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            if (method.getName().startsWith("set") && args != null && args.length == 1) {
+                rememberSetting(method);
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Saves the value a statement setter (setFetchSize, setMaxRows, ...) is about to replace.
+        private void rememberSetting(Method setter) {
+            if (dirty || changedSettings.containsKey(setter)) {
+                return;
+            }
+            String property = setter.getName().substring(3);
+            for (String prefix : new String[] { "get", "is" }) {
+                try {
+                    Method getter = PreparedStatement.class.getMethod(prefix + property);
+                    changedSettings.put(setter, getter.invoke(statement));
+                    return;
+                } catch (NoSuchMethodException e) {
+                    // Try the next prefix
+                } catch (ReflectiveOperationException e) {
+                    break;
+                }
+            }
+            dirty = true; // e.g. setCursorName, which has no getter to restore from
+        }
+
+        // Called when the borrower closes the handle, or the connection goes back to the pool.
+        private void release() {
+            inUse = false;
+            try {
+                if (dirty || statement.isClosed()) {
+                    throw new SQLException("Statement cannot be reused.");
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                for (Map.Entry<Method, Object> setting : changedSettings.entrySet()) {
+                    setting.getKey().invoke(statement, setting.getValue());
+                }
+                changedSettings.clear();
+            } catch (SQLException | ReflectiveOperationException e) {
+                logger.log(Level.FINE, "Closing a cached statement that could not be reset.", e);
+                entries.remove(key, this);
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Failed to close a cached statement.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.fantastic.restaurant;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A set of inventory quantities set aside by {@link InventoryDAO#hold(Map)}.
+ * The stock is already deducted while the hold exists; committing the hold makes the
+ * deduction final, and releasing it puts the quantities back.
+ * 
+ * - Dependability: Holds are also recorded in the Inventory_Holds table, so a hold abandoned
+ *   by a crashed terminal can be returned with {@link InventoryDAO#releaseExpiredHolds(long)}.
+ */
+public final class StockHold {
+
+    private final String holdId;
+    private final Map<String, Integer> quantities;
+
+    /**
+     * Constructs a hold. Intended for DAO implementations.
+     * 
+     * @param holdId the unique ID the hold is stored under.
+     * @param quantities the quantity held per item name.
+     */
+    StockHold(String holdId, Map<String, Integer> quantities) {
+        this.holdId = holdId;
+        this.quantities = Collections.unmodifiableMap(new LinkedHashMap<>(quantities));
+    }
+
+    /**
+     * Gets the unique ID of this hold.
+     * 
+     * @return the hold ID.
+     */
+    public String getHoldId() {
+        return holdId;
+    }
+
+    /**
+     * Gets the quantities held by this hold.
+     * 
+     * @return an unmodifiable map from item name to quantity held.
+     */
+    public Map<String, Integer> getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * Provides a string representation of the hold.
+     * 
+     * @return the hold ID and the quantities it holds.
+     */
+    @Override
+    public String toString() {
+        return "StockHold " + holdId + " " + quantities;
+    }
+}
@@ -0,0 +1,134 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Fills a Swing table model from a DAO on a background thread.
+ *
+ * The rows are streamed with {@link DAO#forEach(DAO.RowHandler)} on the worker thread and handed
+ * to the event dispatch thread in chunks through publish/process, so the window stays responsive
+ * and the table fills in while a large result set is still being read. A loader can be cancelled,
+ * e.g. because a newer load of the same table was started; it then stops reading at the next row
+ * and adds nothing more to the model. Each load is recorded as a {@link FlightEvents.TableLoad}
+ * flight recorder event.
+ *
+ * @param <T> the type of entity being loaded.
+ */
+public class TableModelLoader<T> extends SwingWorker<Integer, Object[]> {
+
+    /**
+     * Streams the entities to load; usually a DAO's forEach method.
+     *
+     * @param <T> the type of entity streamed.
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void forEach(DAO.RowHandler<T> handler) throws SQLException, DAOException;
+    }
+
+    /**
+     * Converts one entity into the cells of a table row.
+     *
+     * @param <T> the type of entity converted.
+     */
+    @FunctionalInterface
+    public interface RowFormatter<T> {
+        Object[] toRow(int key, T entity);
+    }
+
+    private final DefaultTableModel model;
+    private final Source<T> source;
+    private final RowFormatter<T> formatter;
+    private final Consumer<String> status;
+    private final String description;
+    private int loaded; // Rows added to the model; only touched on the event dispatch thread
+
+    /**
+     * Constructs a loader. The model should be cleared, on the event dispatch thread, before
+     * {@link #execute()} is called.
+     *
+     * @param model the table model rows are added to.
+     * @param source streams the entities to load.
+     * @param formatter converts each entity into a row.
+     * @param description what is being loaded, e.g. "reservations", for status messages.
+     * @param status receives progress and completion messages on the event dispatch thread.
+     */
+    public TableModelLoader(DefaultTableModel model, Source<T> source, RowFormatter<T> formatter,
+            String description, Consumer<String> status) {
+        this.model = model;
+        this.source = source;
+        this.formatter = formatter;
+        this.description = description;
+        this.status = status;
+    }
+
+    /**
+     * Reads every entity from the source, publishing one row per entity.
+     *
+     * @return the number of rows read.
+     * @throws Exception if the source fails.
+     */
+    @Override
+    protected Integer doInBackground() throws Exception {
+        FlightEvents.TableLoad event = new FlightEvents.TableLoad();
+        event.begin();
+        int[] count = {0};
+        try {
+            source.forEach((key, entity) -> {
+                if (isCancelled()) {
+                    throw new CancellationException(); // Stops the scan; the paging query closes its resources
+                }
+                publish(formatter.toRow(key, entity));
+                count[0]++;
+            });
+        } finally {
+            event.table = description;
+            event.kind = "full";
+            event.rows = count[0];
+            event.commit();
+        }
+        return count[0];
+    }
+
+    /**
+     * Adds a chunk of rows to the model, unless the load has been superseded.
+     *
+     * @param rows the rows published since the last chunk.
+     */
+    @Override
+    protected void process(List<Object[]> rows) {
+        if (isCancelled()) {
+            return;
+        }
+        for (Object[] row : rows) {
+            model.addRow(row);
+        }
+        loaded += rows.size();
+        status.accept("Loading " + description + "... " + loaded + " rows");
+    }
+
+    /**
+     * Reports the outcome of the load.
+     */
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            status.accept("Loaded " + get() + " " + description + ".");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            status.accept("Error loading " + description + ": " + e.getCause().getMessage());
+        }
+    }
+}
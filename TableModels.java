@@ -0,0 +1,88 @@
+package com.fantastic.restaurant;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import com.fantastic.restaurant.PagedTableModel.Column;
+
+/**
+ * The paged table models shown by the App, one per kind of row, with their column layouts.
+ * Each model reads its rows from the given DAO's viewPage method.
+ */
+public final class TableModels {
+
+    // Private constructor to prevent instantiation
+    private TableModels() {}
+
+    /**
+     * Creates the reservations table model.
+     *
+     * @param dao the source of reservations.
+     * @param errors receives load errors on the event dispatch thread.
+     * @return an empty model; call {@link PagedTableModel#refresh()} to load it.
+     */
+    public static PagedTableModel<Reservation> reservations(ReservationDAO dao, Consumer<String> errors) {
+        return new PagedTableModel<>(Reservation.class, dao::viewPage, Arrays.asList(
+                Column.key("ID"),
+                Column.of("Customer", String.class, Reservation::getCustomerName),
+                Column.of("Email", String.class, Reservation::getCustomerEmail),
+                Column.of("Phone", String.class, Reservation::getCustomerPhoneNumber),
+                Column.ofInt("Table ID", Reservation::getTableId),
+                Column.of("Time", LocalDateTime.class, Reservation::getReservationTime),
+                Column.of("Status", String.class, Reservation::getStatus)),
+                PagedTableModel.DEFAULT_PAGE_SIZE, errors);
+    }
+
+    /**
+     * Creates the restaurant tables table model.
+     *
+     * @param dao the source of restaurant tables.
+     * @param errors receives load errors on the event dispatch thread.
+     * @return an empty model; call {@link PagedTableModel#refresh()} to load it.
+     */
+    public static PagedTableModel<RestaurantTable> restaurantTables(RestaurantTableDAO dao, Consumer<String> errors) {
+        return new PagedTableModel<>(RestaurantTable.class, dao::viewPage, Arrays.asList(
+                Column.key("Table ID"),
+                Column.ofInt("Number", RestaurantTable::getTableNumber),
+                Column.ofInt("Capacity", RestaurantTable::getTableCapacity),
+                Column.of("Status", String.class, RestaurantTable::getTableStatus)),
+                PagedTableModel.DEFAULT_PAGE_SIZE, errors);
+    }
+
+    /**
+     * Creates the menu table model.
+     *
+     * @param dao the source of menu items.
+     * @param errors receives load errors on the event dispatch thread.
+     * @return an empty model; call {@link PagedTableModel#refresh()} to load it.
+     */
+    public static PagedTableModel<Menu> menu(MenuDAO dao, Consumer<String> errors) {
+        return new PagedTableModel<>(Menu.class, dao::viewPage, Arrays.asList(
+                Column.key("ID"),
+                Column.of("Name", String.class, Menu::getName),
+                Column.of("Description", String.class, Menu::getDescription),
+                Column.ofDouble("Price", Menu::getCost),
+                Column.of("Category", String.class, Menu::getCategory),
+                Column.ofInt("Availability", Menu::getAvailability)),
+                PagedTableModel.DEFAULT_PAGE_SIZE, errors);
+    }
+
+    /**
+     * Creates the inventory table model.
+     *
+     * @param dao the source of inventory items.
+     * @param errors receives load errors on the event dispatch thread.
+     * @return an empty model; call {@link PagedTableModel#refresh()} to load it.
+     */
+    public static PagedTableModel<Inventory> inventory(InventoryDAO dao, Consumer<String> errors) {
+        return new PagedTableModel<>(Inventory.class, dao::viewPage, Arrays.asList(
+                Column.key("ID"),
+                Column.of("Name", String.class, Inventory::getItemName),
+                Column.ofInt("Quantity", Inventory::getQuantity),
+                Column.of("Unit", String.class, Inventory::getUnit),
+                Column.ofInt("Threshold", Inventory::getThreshold),
+                Column.of("Reorder", Boolean.class, Inventory::isReorderNeeded)),
+                PagedTableModel.DEFAULT_PAGE_SIZE, errors);
+    }
+}
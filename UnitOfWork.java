@@ -0,0 +1,319 @@
+package com.fantastic.restaurant;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A database transaction spanning calls to several DAOs.
+ *
+ * While a unit of work is open on a thread, {@link Database#getConnection()} returns its one
+ * connection to every DAO called on that thread, so their statements run in one transaction
+ * that is committed or rolled back as a whole. The DAO implementations need no changes: closing
+ * the shared connection leaves it open for the next DAO, and their own commit() and
+ * setAutoCommit() calls are left to the unit of work. A rollback() by a DAO marks the unit
+ * rollback-only, as the work before it can no longer be committed on its own.
+ *
+ * <pre>
+ * UnitOfWork.run(() -&gt; {
+ *     reservationDAO.update("completed", reservationId, reservation.getVersion());
+ *     floor.transition(tableNumber, Status.reserved, Status.occupied);
+ *     staffTaskDAO.add(new StaffTask(waiterId, "Serve table " + tableNumber, 1));
+ *     return null;
+ * });
+ * </pre>
+ *
+ * {@link ChangeFeed} notifications and other {@link #afterCommit(Runnable)} actions are held
+ * back until the commit, and dropped on rollback, so screens never show a write that was undone.
+ * State kept in memory can be restored with {@link #afterRollback(Runnable)}.
+ *
+ * A versioned update that conflicts inside a unit of work is not retried by
+ * {@link OptimisticRetry}, as the transaction keeps seeing the rows it has already read; retry
+ * the whole unit instead, by calling run() inside OptimisticRetry.run().
+ *
+ * A unit of work belongs to the thread that began it.
+ *
+ * - Efficiency: A business action borrows one connection and commits once, instead of once per DAO call.
+ * - Dependability: The action is atomic; a failure anywhere rolls back every write it made.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(UnitOfWork.class.getName());
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    /**
+     * The work done in a unit of work.
+     *
+     * @param <T> the result of the work.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException, DAOException;
+    }
+
+    private final Connection connection;
+    private final Connection shared;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> afterRollback = new ArrayList<>();
+    private boolean rollbackOnly;
+    private boolean finished;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.shared = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Participant());
+    }
+
+    /**
+     * Opens a unit of work on the current thread. It must be committed, or closed to roll it
+     * back, on the same thread; use it in a try-with-resources statement.
+     *
+     * @return the open unit of work.
+     * @throws IllegalStateException if a unit of work is already open on this thread.
+     * @throws DAOException if no connection can be borrowed.
+     */
+    public static UnitOfWork begin() throws DAOException {
+        if (current.get() != null) {
+            throw new IllegalStateException("A unit of work is already open on this thread.");
+        }
+        Connection connection = null;
+        try {
+            connection = Database.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            Database.closeConnection(connection);
+            throw new DAOException("Unable to begin a unit of work.", e);
+        }
+        UnitOfWork unit = new UnitOfWork(connection);
+        current.set(unit);
+        return unit;
+    }
+
+    /**
+     * Runs work in a unit of work and commits it, or rolls it back if the work throws.
+     * Called while a unit of work is already open, the work joins that unit instead, and a
+     * failure marks it rollback-only.
+     *
+     * @param <T> the result of the work.
+     * @param work the DAO calls to make atomic.
+     * @return what the work returned.
+     * @throws DAOException if the work fails or the commit fails; nothing it wrote is kept.
+     */
+    public static <T> T run(Work<T> work) throws DAOException {
+        UnitOfWork open = current.get();
+        if (open != null) {
+            try {
+                return open.perform(work);
+            } catch (DAOException | RuntimeException e) {
+                open.setRollbackOnly();
+                throw e;
+            }
+        }
+        try (UnitOfWork unit = begin()) {
+            T result = unit.perform(work);
+            unit.commit();
+            return result;
+        }
+    }
+
+    /**
+     * Tells whether a unit of work is open on the current thread.
+     *
+     * @return true if DAO calls on this thread join a unit of work.
+     */
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Runs an action once the current unit of work has committed, or now if there is none.
+     * Actions are dropped if the unit of work rolls back.
+     *
+     * @param action e.g. notifying subscribers of a write.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unit = current.get();
+        if (unit == null) {
+            action.run();
+        } else {
+            unit.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Runs an action if the current unit of work rolls back; does nothing if there is none.
+     *
+     * @param action e.g. undoing a change made to state kept in memory.
+     */
+    public static void afterRollback(Runnable action) {
+        UnitOfWork unit = current.get();
+        if (unit != null) {
+            unit.afterRollback.add(action);
+        }
+    }
+
+    /**
+     * Gets the connection DAO calls on this thread share.
+     *
+     * @return the unit of work's connection, or null if none is open on this thread.
+     */
+    static Connection currentConnection() {
+        UnitOfWork unit = current.get();
+        return unit == null ? null : unit.shared;
+    }
+
+    /**
+     * Makes the unit of work roll back however it ends.
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    /**
+     * Tells whether the unit of work can no longer be committed.
+     *
+     * @return true if a step failed or called rollback().
+     */
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Commits everything written in the unit of work and returns its connection to the pool.
+     *
+     * @throws IllegalStateException if the unit of work has already ended.
+     * @throws DAOException if the unit is rollback-only or the commit fails; it is then rolled back.
+     */
+    public void commit() throws DAOException {
+        checkOpen();
+        if (rollbackOnly) {
+            rollback();
+            throw new DAOException("The unit of work was rolled back because one of its steps failed.");
+        }
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new DAOException("Error while committing the unit of work.", e);
+        }
+        finish(afterCommit);
+    }
+
+    /**
+     * Undoes everything written in the unit of work and returns its connection to the pool.
+     * Does nothing if the unit of work has already ended.
+     */
+    public void rollback() {
+        if (finished) {
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to roll back a unit of work.", e);
+        }
+        finish(afterRollback);
+    }
+
+    /**
+     * Rolls the unit of work back unless it has been committed.
+     */
+    @Override
+    public void close() {
+        rollback();
+    }
+
+    private <T> T perform(Work<T> work) throws DAOException {
+        try {
+            return work.run();
+        } catch (SQLException e) {
+            throw new DAOException("Error in a unit of work.", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("The unit of work has already ended.");
+        }
+        if (current.get() != this) {
+            throw new IllegalStateException("A unit of work must end on the thread that began it.");
+        }
+    }
+
+    // Ends the unit of work, then runs the commit or rollback actions outside it.
+    private void finish(List<Runnable> actions) {
+        finished = true;
+        current.remove();
+        try {
+            connection.setAutoCommit(true); // Spares the pool a rollback when it takes the connection back
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Failed to restore auto-commit after a unit of work.", e);
+        }
+        Database.closeConnection(connection);
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Unit of work action " + action + " failed.", e);
+            }
+        }
+    }
+
+    /**
+     * The connection the DAOs see. Transaction control is left to the unit of work; every other
+     * call goes to the pooled connection.
+     */
+    private final class Participant implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitOfWork" + connection;
+                case "isClosed":
+                    return finished || connection.isClosed();
+                case "close":
+                    return null; // Stays open for the next DAO
+                default:
+                    break;
+            }
+            if (finished) {
+                throw new SQLException("The unit of work has already ended.");
+            }
+            switch (method.getName()) {
+                case "commit":
+                case "setAutoCommit":
+                    return null; // The unit of work commits once at the end
+                case "getAutoCommit":
+                    return false;
+                case "rollback":
+                    if (args == null || args.length == 0) {
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break; // Rolling back to a savepoint stays within the unit of work
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
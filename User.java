@@ -3,6 +3,7 @@ package com.fantastic.restaurant;
 /* |---------------------------------------------|
  * |				   User	  				     |
  * |---------------------------------------------|
+ * | - id: int									 |
  * | - username: String							 |
  * | - password: String							 |
  * | - role: String								 |
@@ -10,11 +11,13 @@ package com.fantastic.restaurant;
  * | - phone: String							 |
  * |---------------------------------------------|
  * | + Role: enum								 |
+ * | + setId(id: int): void						 |
  * | + setUsername(usernm: String): void		 |
  * | + setPassword(password: String: void        |
  * | + setRole()								 |
  * | + setEmail(email: String): void			 |
  * | + setPhone(phone: String): void			 |
+ * | + getId(): int								 |
  * | + getUsername(): String					 |
  * | + getPassword(): String					 |
  * | + getEmail(): String						 |
@@ -24,6 +27,7 @@ package com.fantastic.restaurant;
 
 public class User 
 {
+	private int id; //Set once saved; 0 for a new user
 	private String username;
 	private String password;
 	private String role;
@@ -46,6 +50,11 @@ public class User
 		customer
 	}
 	
+	public void setId(int id)
+	{
+		this.id = id;
+	}
+	
 	public void setUsername(String usernm)
 	{
 		this.username = usernm;
@@ -92,6 +101,11 @@ public class User
 		return username;
 	}
 	
+	public int getId()
+	{
+		return id;
+	}
+	
 	public String getPassword()
 	{
 		return password;
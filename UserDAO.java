@@ -8,4 +8,13 @@ public interface UserDAO extends DAO<User>
 	void showStaff() throws SQLException;
 	
 	ArrayList<Integer> getStaffList() throws SQLException;
+	
+	//Tells whether the user is a staff member, using the cached staff roster
+	boolean isStaff(int userId) throws SQLException;
+	
+	//Finds a user by username, ignoring case and surrounding spaces; null if there is none
+	User getUserByUsername(String username) throws SQLException;
+	
+	//Finds a user by user_id; null if there is none
+	User getUserById(int id) throws SQLException;
 }
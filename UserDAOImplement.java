@@ -4,138 +4,320 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
 
 public class UserDAOImplement implements UserDAO
 {
+	//Password hashes are never selected for display
+	private static final String VIEW_SQL = 
+			"SELECT user_id, username, role, email, phone FROM Users ORDER BY user_id";
+	
+	//Both role queries are answered from idx_users_role instead of scanning every customer
+	private static final String BY_ROLE_SQL = 
+			"SELECT user_id, username, role, email, phone FROM Users WHERE role = ? ORDER BY user_id";
+	
+	private static final String IDS_BY_ROLE_SQL = 
+			"SELECT user_id FROM Users WHERE role = ? ORDER BY user_id";
+	
+	private static final String HEADER = String.format("%-3s %-10s %-8s %-25s %-10s\n", "ID", "Name", "Role", "Email", "Phone");
+	
+	public static final long ROSTER_TTL_MS = Long.getLong("restaurant.cache.staff.ttlMs", 60_000L);
+	
+	//Staff IDs per role, shared by every instance and dropped whenever this application writes a user
+	private static final ReadThroughCache<String, Set<Integer>> rosters = 
+			new ReadThroughCache<>(User.Role.values().length, ROSTER_TTL_MS);
+	
+	//Single-row lookups through the unique idx_users_username index and the primary key
+	private static final String BY_USERNAME_SQL = 
+			"SELECT user_id, username, password_hash, role, email, phone FROM Users WHERE username = ?";
+	
+	private static final String BY_ID_SQL = 
+			"SELECT user_id, username, password_hash, role, email, phone FROM Users WHERE user_id = ?";
+	
+	public static final int USER_CACHE_SIZE = Integer.getInteger("restaurant.cache.users.maxSize", 10_000);
+	public static final long USER_TTL_MS = Long.getLong("restaurant.cache.users.ttlMs", 300_000L);
+	public static final long USER_NEGATIVE_TTL_MS = Long.getLong("restaurant.cache.users.negativeTtlMs", 30_000L);
+	
+	//Users by normalized username and by ID; unknown names are remembered too, so repeated failed logins stay off the database
+	//Entries are immutable snapshots and every caller gets its own User, so no caller can change what others are served
+	private static final ReadThroughCache<String, CachedUser> usersByName = 
+			new ReadThroughCache<>(USER_CACHE_SIZE, USER_TTL_MS, USER_NEGATIVE_TTL_MS);
+	
+	private static final ReadThroughCache<Integer, CachedUser> usersById = 
+			new ReadThroughCache<>(USER_CACHE_SIZE, USER_TTL_MS, USER_NEGATIVE_TTL_MS);
+	
+	private static final String PAGE_SQL = 
+			"SELECT user_id, username, password_hash, role, email, phone FROM Users WHERE user_id > ? ORDER BY user_id LIMIT ?";
 
 	@Override
 	public void add(User user) throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "INSERT INTO Users (username, password_hash, role, email, phone) VALUES (?, ?, ?, ?, ?)";
-		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		//Failures are thrown, not printed, so a unit of work the insert joined rolls back
+		try(Connection connect = Database.getConnection())
 		{
-			statement.setString(1, user.getUsername());
-			statement.setString(2, user.getPassword());
-			statement.setString(3, user.getRole());
-			statement.setString(4, user.getEmail());
-			statement.setString(5, user.getPhone());
-			statement.executeUpdate();
-			
-			System.out.println("New User Created!");
+			String sqlStatement = "INSERT INTO Users (username, password_hash, role, email, phone) VALUES (?, ?, ?, ?, ?)";
+		
+			try(PreparedStatement statement = connect.prepareStatement(sqlStatement, Statement.RETURN_GENERATED_KEYS))
+			{
+				statement.setString(1, user.getUsername());
+				statement.setString(2, user.getPassword());
+				statement.setString(3, user.getRole());
+				statement.setString(4, user.getEmail());
+				statement.setString(5, user.getPhone());
+				statement.executeUpdate();
+				
+				try(ResultSet keys = statement.getGeneratedKeys())
+				{
+					if(keys.next())
+					{
+						user.setId(keys.getInt(1));
+					}
+				}
+				
+				//Drops cached "not found" answers for the new user
+				rosters.invalidate(user.getRole());
+				usersByName.invalidate(normalize(user.getUsername()));
+				usersById.invalidate(user.getId());
 			
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+				System.out.println("New User Created!");
+			}
 		
-		connect.close();
+		}
 		
+		ChangeFeed.getInstance().publish(User.class, ChangeFeed.Kind.ADDED, user.getId(), user);
 	}
 
 	@Override
-	public void view() throws SQLException 
+	public void addAll(Collection<User> users) throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "SELECT * FROM Users";
+		String sqlStatement = "INSERT INTO Users (username, password_hash, role, email, phone) VALUES (?, ?, ?, ?, ?)";
 		
-		ResultSet rs = null;
+		int added;
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		try
 		{
-			rs = statement.executeQuery();
-			
-			System.out.printf("%-3s %-10s %-12s %-8s %-25s %-10s\n", "ID", "Name", "Password", "Role", "Email", "Phone");
+			added = JdbcBatch.insertAll(sqlStatement, users, (statement, user) -> 
+			{
+				statement.setString(1, user.getUsername());
+				statement.setString(2, user.getPassword());
+				statement.setString(3, user.getRole());
+				statement.setString(4, user.getEmail());
+				statement.setString(5, user.getPhone());
+			});
+		}
+		finally
+		{
+			//Earlier batches may be committed even if a later one failed
+			rosters.invalidateAll();
+			usersById.invalidateAll();
 			
-			while(rs.next())//Runs as long as there are rows in the table
+			for(User user : users)
 			{
-				int id = rs.getInt("user_id");
-				String username = rs.getString("username");
-				String password = rs.getString("password_hash");
-				String role = rs.getString("role");
-				String email = rs.getString("email");
-				String phone = rs.getString("phone");
-
-				System.out.printf("%-3d %-10s %-12s %-8s %-25s %-10s\n", id, username, password, role, email, phone);
+				usersByName.invalidate(normalize(user.getUsername()));
 			}
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
 		
-		connect.close();
+		System.out.println(added + " New Users Created!");
+		ChangeFeed.getInstance().publish(User.class, ChangeFeed.Kind.ADDED);
+	}
+
+	@Override
+	public void view() throws SQLException 
+	{
+		try(Connection connect = Database.getConnection();
+			PreparedStatement statement = connect.prepareStatement(VIEW_SQL))
+		{
+			printUsers(statement);
+		}
 	}
 
 	@Override
 	public void showStaff() throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "SELECT * FROM Users";
-		
-		ResultSet rs = null;
+		try(Connection connect = Database.getConnection();
+			PreparedStatement statement = connect.prepareStatement(BY_ROLE_SQL))
+		{
+			statement.setString(1, User.Role.staff.toString());
+			printUsers(statement);
+		}
+	}
+
+	@Override
+	public ArrayList<Integer> getStaffList() throws SQLException 
+	{
+		return new ArrayList<>(getRoster(User.Role.staff));
+	}
+	
+	@Override
+	public boolean isStaff(int userId) throws SQLException 
+	{
+		return getRoster(User.Role.staff).contains(userId);
+	}
+
+	@Override
+	public void forEach(RowHandler<? super User> handler) throws SQLException 
+	{
+		JdbcPaging.forEach(PAGE_SQL, "user_id", UserDAOImplement::mapRow, handler);
+	}
+	
+	@Override
+	public Page<User> viewPage(int afterKey, int pageSize) throws SQLException 
+	{
+		return JdbcPaging.page(PAGE_SQL, "user_id", afterKey, pageSize, UserDAOImplement::mapRow);
+	}
+	
+	@Override
+	public User getUserByUsername(String username) throws SQLException 
+	{
+		if(username == null || username.trim().isEmpty())
+		{
+			return null;
+		}
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		try
+		{
+			CachedUser cached = usersByName.get(normalize(username), name -> CachedUser.of(findOne(BY_USERNAME_SQL, name, "username " + name)));
+			return cached == null ? null : cached.toUser();
+		} catch (DAOException e) {
+			throw new SQLException(e.getMessage(), e.getCause());
+		}
+	}
+	
+	@Override
+	public User getUserById(int id) throws SQLException 
+	{
+		try
+		{
+			CachedUser cached = usersById.get(id, key -> CachedUser.of(findOne(BY_ID_SQL, key, "user_id " + key)));
+			return cached == null ? null : cached.toUser();
+		} catch (DAOException e) {
+			throw new SQLException(e.getMessage(), e.getCause());
+		}
+	}
+	
+	//Usernames are compared case-insensitively, like the column's collation
+	private static String normalize(String username)
+	{
+		return username.trim().toLowerCase(Locale.ROOT);
+	}
+	
+	//Runs a lookup that matches at most one user
+	private static User findOne(String sql, Object key, String description) throws DAOException 
+	{
+		try(Connection connect = Database.getConnection();
+			PreparedStatement statement = connect.prepareStatement(sql))
 		{
-			rs = statement.executeQuery();
+			statement.setObject(1, key);
 			
-			System.out.printf("%-3s %-10s %-12s %-8s %-25s %-10s\n", "ID", "Name", "Password", "Role", "Email", "Phone");
+			try(ResultSet rs = statement.executeQuery())
+			{
+				return rs.next() ? mapRow(rs) : null;
+			}
+		} catch (SQLException e) {
+			throw new DAOException("Error while looking up " + description, e);
+		}
+	}
+	
+	//Returns the IDs of every user with the role, reading them from the database only when not cached
+	private static Set<Integer> getRoster(User.Role role) throws SQLException 
+	{
+		try
+		{
+			return rosters.get(role.toString(), UserDAOImplement::loadRoster);
+		} catch (DAOException e) {
+			throw new SQLException(e.getMessage(), e.getCause());
+		}
+	}
+	
+	private static Set<Integer> loadRoster(String role) throws DAOException 
+	{
+		Set<Integer> ids = new LinkedHashSet<>();
+		
+		try(Connection connect = Database.getConnection();
+			PreparedStatement statement = connect.prepareStatement(IDS_BY_ROLE_SQL))
+		{
+			statement.setString(1, role);
 			
-			while(rs.next())//Runs as long as there are rows in the table
+			try(ResultSet rs = statement.executeQuery())
 			{
-				if(rs.getString("role").equalsIgnoreCase("staff"))
+				while(rs.next())
 				{
-					int id = rs.getInt("user_id");
-					String username = rs.getString("username");
-					String password = rs.getString("password_hash");
-					String role = rs.getString("role");
-					String email = rs.getString("email");
-					String phone = rs.getString("phone");
-	
-					System.out.printf("%-3d %-10s %-12s %-8s %-25s %-10s\n", id, username, password, role, email, phone);
+					ids.add(rs.getInt("user_id"));
 				}
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			throw new DAOException("Error while loading " + role + " roster.", e);
 		}
 		
-		connect.close();
-		
+		return Collections.unmodifiableSet(ids);
 	}
-
-	@Override
-	public ArrayList<Integer> getStaffList() throws SQLException 
+	
+	//Prints the users selected by the statement as one buffered block
+	private static void printUsers(PreparedStatement statement) throws SQLException 
 	{
-		Connection connect = Database.getConnection();
-		
-		String sqlStatement = "SELECT * FROM Users";
-		
-		ResultSet rs = null;
-		
-		ArrayList<Integer> userList = new ArrayList<>();
+		StringBuilder output = new StringBuilder(HEADER);
 		
-		try(PreparedStatement statement = connect.prepareStatement(sqlStatement))
+		try(ResultSet rs = statement.executeQuery())
 		{
-			rs = statement.executeQuery();
-			
 			while(rs.next())//Runs as long as there are rows in the table
 			{
-				if(rs.getString("role").equalsIgnoreCase("staff"))
-				{
-					int id = rs.getInt("user_id");
-					userList.add(id);
-				}
+				output.append(String.format("%-3d %-10s %-8s %-25s %-10s\n", rs.getInt("user_id"), rs.getString("username"), 
+						rs.getString("role"), rs.getString("email"), rs.getString("phone")));
 			}
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
 		
-		connect.close();
+		System.out.print(output);
+	}
+	
+	//Builds a User from the current row
+	private static User mapRow(ResultSet rs) throws SQLException 
+	{
+		int role = User.Role.valueOf(rs.getString("role")).ordinal() + 1;
+		
+		User user = new User(rs.getString("username"), rs.getString("password_hash"), role, rs.getString("email"), rs.getString("phone"));
+		user.setId(rs.getInt("user_id"));
 		
-		return userList;
+		return user;
+	}
+	
+	//An immutable copy of a User as it was read, handed out as a new User on every hit
+	private static final class CachedUser
+	{
+		private final int id;
+		private final String username;
+		private final String password;
+		private final int role;
+		private final String email;
+		private final String phone;
+		
+		private CachedUser(User user)
+		{
+			this.id = user.getId();
+			this.username = user.getUsername();
+			this.password = user.getPassword();
+			this.role = User.Role.valueOf(user.getRole()).ordinal() + 1;
+			this.email = user.getEmail();
+			this.phone = user.getPhone();
+		}
+		
+		//Null for a user that was not found, so the miss is cached too
+		private static CachedUser of(User user)
+		{
+			return user == null ? null : new CachedUser(user);
+		}
+		
+		private User toUser()
+		{
+			User user = new User(username, password, role, email, phone);
+			user.setId(id);
+			
+			return user;
+		}
 	}
-
-
 }
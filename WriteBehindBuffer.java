@@ -0,0 +1,437 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds back frequent writes to the same rows and writes them to the database in batches.
+ *
+ * Each pending write is kept under the key of the row it changes, and a newer write to the same
+ * row replaces the older one, so a table that flips from occupied to available and back within
+ * the window costs one UPDATE instead of three. Every window, or as soon as
+ * {@link Database#getBatchSize()} rows are pending, a background thread hands the latest write
+ * for each row to the writer in one batch.
+ *
+ * When a batch fails, its writes are tried one by one, so one bad row does not hold back the
+ * rest. A write that fails stays pending and is tried again with the next flush, unless a newer
+ * write to the same row replaced it meanwhile; after {@link Database#getWriteBehindAttempts()}
+ * failed flushes it is dropped and logged. Failures that say the database cannot be reached,
+ * rather than that the row is bad, are not counted, so an outage does not drop writes. Once
+ * {@link Database#getWriteBehindMaxPending()} rows are pending, a writer queueing a new row
+ * flushes the buffer itself first, so the buffer cannot grow without bound.
+ *
+ * A batch always commits on its own, even when the flush is asked for inside a
+ * {@link UnitOfWork}, as its writes were made outside that unit. Every open buffer is flushed
+ * when the JVM shuts down and by {@link Database#shutdown()}; writes are lost only if the
+ * process is killed outright.
+ *
+ * - Efficiency: Bursts of status changes cost one round trip and one commit per batch.
+ * - Dependability: Only the latest write to a row is kept, so writes to one row are never applied out of order.
+ *
+ * @param <K> the key of the row a write changes.
+ * @param <V> the write, e.g. the row's new state.
+ */
+public final class WriteBehindBuffer<K, V> implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(WriteBehindBuffer.class.getName());
+
+    // One thread flushes every buffer; writes are small, so it is never the bottleneck.
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<WriteBehindBuffer<?, ?>> open = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean hookInstalled = new AtomicBoolean();
+
+    /**
+     * Writes a batch of pending writes to the database.
+     *
+     * @param <V> the type of the writes.
+     */
+    @FunctionalInterface
+    public interface Writer<V> {
+        void write(List<V> values) throws SQLException, DAOException;
+    }
+
+    /**
+     * Folds a new write into the pending write to the same row, so both cost one write.
+     *
+     * @param <V> the type of the writes.
+     */
+    @FunctionalInterface
+    public interface Merger<V> {
+        V merge(V pending, V value) throws DAOException;
+    }
+
+    // A queued write and the number of flushes that failed to write it.
+    private static final class Pending<V> {
+        private final V value;
+        private int failures; // Guarded by flushing
+
+        private Pending(V value) {
+            this.value = value;
+        }
+    }
+
+    private final String name;
+    private final Writer<V> writer;
+    private final int flushThreshold;
+    private final int maxPending;
+    private final int maxAttempts;
+    // Replaced, never updated, by a newer write, so a flush only removes the writes it wrote
+    private final Map<K, Pending<V>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushing = new ReentrantLock(); // One batch at a time, so batches stay in order
+    private final ScheduledFuture<?> schedule;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final AtomicLong bufferedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Constructs a buffer that flushes every window and whenever a batch is full.
+     *
+     * @param name names the buffer in log messages, e.g. "Tables".
+     * @param writer writes a batch of pending writes.
+     * @param windowMillis how long a write may wait before it is flushed.
+     * @throws IllegalArgumentException if the window is not positive.
+     */
+    public WriteBehindBuffer(String name, Writer<V> writer, long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("The write-behind window must be positive.");
+        }
+        this.name = name;
+        this.writer = writer;
+        this.flushThreshold = Database.getBatchSize();
+        this.maxPending = Database.getWriteBehindMaxPending();
+        this.maxAttempts = Database.getWriteBehindAttempts();
+        this.schedule = flusher.scheduleWithFixedDelay(this::flushQuietly, windowMillis, windowMillis,
+                TimeUnit.MILLISECONDS);
+        open.add(this);
+        if (hookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(WriteBehindBuffer::flushAll, "write-behind-shutdown"));
+        }
+    }
+
+    /**
+     * Flushes every open buffer, logging rather than throwing if one fails.
+     * Called when the JVM shuts down and before the connection pool is closed.
+     */
+    public static void flushAll() {
+        for (WriteBehindBuffer<?, ?> buffer : open) {
+            buffer.flushQuietly();
+        }
+    }
+
+    /**
+     * Queues a write, replacing any write to the same row that has not been flushed yet. If the
+     * buffer is full, the pending writes are flushed first, on the caller's thread.
+     *
+     * @param key the key of the row the write changes.
+     * @param value the write.
+     * @throws IllegalStateException if the buffer has been closed.
+     * @throws SQLException if the buffer is full and cannot be flushed; the write is not queued.
+     * @throws DAOException if the buffer is full and the writer fails otherwise; the write is not queued.
+     */
+    public void put(K key, V value) throws SQLException, DAOException {
+        if (closed) {
+            throw new IllegalStateException("The " + name + " write-behind buffer is closed.");
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            try {
+                flush();
+            } catch (SQLException | DAOException e) {
+                if (pending.size() >= maxPending) {
+                    throw e;
+                }
+            }
+        }
+        bufferedCount.incrementAndGet();
+        if (pending.put(key, new Pending<>(value)) != null) {
+            coalescedCount.incrementAndGet();
+        }
+        if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Queues a write merged into the pending write to the same row, or as it is if there is none.
+     * No flush runs meanwhile, so the pending write merged into has not been written yet. Call it
+     * outside a {@link UnitOfWork}; a full buffer is then flushed on the caller's thread.
+     *
+     * @param key the key of the row the write changes.
+     * @param value the write.
+     * @param merger combines the pending write and the new one.
+     * @return the write now pending for the row.
+     * @throws IllegalStateException if the buffer has been closed.
+     * @throws SQLException if the buffer is full and cannot be flushed; the write is not queued.
+     * @throws DAOException if the merger rejects the write, or the buffer is full and the writer
+     *                      fails otherwise; the write is not queued.
+     */
+    public V merge(K key, V value, Merger<V> merger) throws SQLException, DAOException {
+        flushing.lock();
+        try {
+            Pending<V> queued = pending.get(key);
+            V merged = queued == null ? value : merger.merge(queued.value, value);
+            put(key, merged);
+            return merged;
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Gets the write pending for a row.
+     *
+     * @param key the key of the row.
+     * @return the pending write, or null if there is none.
+     */
+    public V peek(K key) {
+        Pending<V> queued = pending.get(key);
+        return queued == null ? null : queued.value;
+    }
+
+    /**
+     * Writes every pending write now, and waits until they are written. Callers flush before
+     * reading or before a write that must not be overtaken by a pending one.
+     *
+     * @return the number of writes flushed.
+     * @throws SQLException if a write cannot be written; it stays pending unless it was dropped.
+     * @throws DAOException if the writer fails otherwise; the write stays pending unless it was dropped.
+     */
+    public int flush() throws SQLException, DAOException {
+        flushRequested.set(false);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        if (UnitOfWork.isActive()) {
+            return flushOutsideUnitOfWork();
+        }
+        flushing.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            Map<K, Pending<V>> batch = new LinkedHashMap<>(pending);
+            List<V> values = new ArrayList<>(batch.size());
+            for (Pending<V> write : batch.values()) {
+                values.add(write.value);
+            }
+            try {
+                writer.write(values);
+            } catch (SQLException | DAOException | RuntimeException e) {
+                failureCount.incrementAndGet();
+                if (isOutage(e)) {
+                    throw e;
+                }
+                return writeOneByOne(batch);
+            }
+            // A write queued during the batch replaced its entry and is kept for the next flush
+            batch.forEach(pending::remove);
+            batchCount.incrementAndGet();
+            writtenCount.addAndGet(batch.size());
+            return batch.size();
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of writes waiting to be flushed.
+     *
+     * @return the number of rows with a pending write.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the number of writes handed to {@link #put(Object, Object)}, coalesced or not.
+     *
+     * @return the number of buffered writes.
+     */
+    public long getBufferedCount() {
+        return bufferedCount.get();
+    }
+
+    /**
+     * Gets the number of writes that replaced a pending write to the same row and so never
+     * reached the database themselves.
+     *
+     * @return the number of coalesced writes.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Gets the number of writes that reached the database, in batches or one row at a time.
+     *
+     * @return the number of written writes.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Gets the number of batches written in one round trip.
+     *
+     * @return the number of written batches.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Gets the number of batches that failed and were retried row by row.
+     *
+     * @return the number of failed batches.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Gets the number of writes given up on after failing every attempt. Each one is logged.
+     *
+     * @return the number of dropped writes.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops the background flushes and writes what is still pending.
+     *
+     * @throws SQLException if the last batch cannot be written.
+     * @throws DAOException if the writer fails otherwise.
+     */
+    @Override
+    public void close() throws SQLException, DAOException {
+        closed = true;
+        schedule.cancel(false);
+        try {
+            flush();
+        } finally {
+            open.remove(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s write-behind[pending=%d buffered=%d coalesced=%d written=%d batches=%d failures=%d dropped=%d]",
+                name, getPendingCount(), getBufferedCount(), getCoalescedCount(), getWrittenCount(),
+                getBatchCount(), getFailureCount(), getDroppedCount());
+    }
+
+    // Writes a failed batch one row at a time, dropping rows that have failed too often.
+    // Called holding the flushing lock; rethrows the last failure once every row was tried.
+    private int writeOneByOne(Map<K, Pending<V>> batch) throws SQLException, DAOException {
+        int written = 0;
+        Exception failure = null;
+        for (Map.Entry<K, Pending<V>> entry : batch.entrySet()) {
+            Pending<V> write = entry.getValue();
+            try {
+                writer.write(Collections.singletonList(write.value));
+            } catch (SQLException | DAOException | RuntimeException e) {
+                failure = e;
+                if (isOutage(e)) {
+                    break; // The remaining rows would fail the same way
+                }
+                if (++write.failures >= maxAttempts && pending.remove(entry.getKey(), write)) {
+                    droppedCount.incrementAndGet();
+                    logger.log(Level.SEVERE, "Dropped the " + name + " write " + write.value + " after "
+                            + write.failures + " failed flushes.", e);
+                }
+                continue;
+            }
+            pending.remove(entry.getKey(), write);
+            written++;
+        }
+        writtenCount.addAndGet(written);
+
+        if (failure instanceof SQLException) {
+            throw (SQLException) failure;
+        }
+        if (failure instanceof DAOException) {
+            throw (DAOException) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+        return written;
+    }
+
+    // Tells whether a failure says the database cannot be reached, rather than that a row is bad.
+    private static boolean isOutage(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("08")) { // Connection exceptions
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Writes the batch on the flusher thread, so it does not join the caller's unit of work.
+    private int flushOutsideUnitOfWork() throws SQLException, DAOException {
+        Future<Integer> flushed = flusher.submit(this::flush);
+        try {
+            return flushed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DAOException("Interrupted while flushing pending " + name + " writes.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof DAOException) {
+                throw (DAOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DAOException("Error while flushing pending " + name + " writes.", cause);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | DAOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to flush pending " + name + " writes; " + pending.size()
+                    + " will be retried.", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A StaffTaskDAO that holds back unversioned task status changes and writes them in batches.
+ *
+ * {@link #update(String, int, String)} queues the change in a {@link WriteBehindBuffer} and
+ * returns at once; repeated changes to the same task within the window are coalesced into the
+ * last one, and the rest are written with {@link StaffTaskDAO#updateAll(Collection)}. Every other
+ * call, including the versioned update, first flushes the pending changes, so it sees them and is
+ * never overtaken by them. Inside a {@link UnitOfWork} changes are written at once, so they
+ * commit or roll back with it.
+ *
+ * - Efficiency: Staff ticking through their tasks during a rush cost one round trip per batch.
+ * - Dependability: Pending changes are flushed on close(), by {@link Database#shutdown()} and when the JVM exits.
+ */
+public class WriteBehindStaffTaskDAO implements StaffTaskDAO, AutoCloseable {
+
+    // How completion times are written, e.g. by the CLI when a task is completed
+    private static final DateTimeFormatter COMPLETED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final StaffTaskDAO delegate;
+    private final WriteBehindBuffer<Integer, StatusUpdate> buffer;
+
+    /**
+     * Constructs a write-behind buffer in front of a StaffTaskDAO.
+     *
+     * @param delegate the DAO that reads and writes the database.
+     * @param windowMillis how long a change may wait before it is written.
+     * @throws IllegalArgumentException if the window is not positive.
+     */
+    public WriteBehindStaffTaskDAO(StaffTaskDAO delegate, long windowMillis) {
+        this.delegate = delegate;
+        this.buffer = new WriteBehindBuffer<>("Staff_Tasks", delegate::updateAll, windowMillis);
+    }
+
+    /**
+     * Queues a task's new status, replacing any change to the same task that has not been
+     * written yet.
+     *
+     * @param status the new status.
+     * @param id the task ID.
+     * @param time when the task was completed, or null.
+     * @throws IllegalArgumentException if the status is not a StaffTask status, or the time is
+     *                                  not written as yyyy-MM-dd HH:mm:ss.
+     * @throws SQLException if the change has to be written at once, or the buffer is full and
+     *                      cannot be flushed, and that fails.
+     */
+    @Override
+    public void update(String status, int id, String time) throws SQLException {
+        // A bad value would only fail later, in a batch, after the caller was told it succeeded
+        StaffTask.Status.valueOf(String.valueOf(status));
+        if (time != null) {
+            try {
+                LocalDateTime.parse(time, COMPLETED_AT);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid completion time: " + time, e);
+            }
+        }
+        if (UnitOfWork.isActive()) {
+            flush();
+            delegate.update(status, id, time);
+            return;
+        }
+        try {
+            buffer.put(id, new StatusUpdate(status, id, time));
+        } catch (DAOException e) {
+            throw new SQLException("Error while writing pending staff task updates", e);
+        }
+    }
+
+    /**
+     * Writes the pending changes, then updates the task if it still has the expected version.
+     *
+     * @param status the new status.
+     * @param id the task ID.
+     * @param time when the task was completed, or null.
+     * @param expectedVersion the version the task was read at.
+     * @throws ConcurrentUpdateException if the task was changed since it was read.
+     * @throws DAOException if the task cannot be updated.
+     */
+    @Override
+    public void update(String status, int id, String time, int expectedVersion) throws DAOException {
+        try {
+            flush();
+        } catch (SQLException e) {
+            throw new DAOException("Error while writing pending staff task updates", e);
+        }
+        delegate.update(status, id, time, expectedVersion);
+    }
+
+    @Override
+    public int updateAll(Collection<StatusUpdate> updates) throws SQLException {
+        flush();
+        return delegate.updateAll(updates);
+    }
+
+    @Override
+    public ArrayList<Integer> getTaskList() throws SQLException {
+        flush();
+        return delegate.getTaskList();
+    }
+
+    @Override
+    public void add(StaffTask task) throws SQLException, DAOException {
+        flush();
+        delegate.add(task);
+    }
+
+    @Override
+    public void addAll(Collection<StaffTask> tasks) throws SQLException, DAOException {
+        flush();
+        delegate.addAll(tasks);
+    }
+
+    @Override
+    public void view() throws SQLException, DAOException {
+        flush();
+        delegate.view();
+    }
+
+    @Override
+    public void forEach(RowHandler<? super StaffTask> handler) throws SQLException, DAOException {
+        flush();
+        delegate.forEach(handler);
+    }
+
+    @Override
+    public Page<StaffTask> viewPage(int afterKey, int pageSize) throws SQLException, DAOException {
+        flush();
+        return delegate.viewPage(afterKey, pageSize);
+    }
+
+    /**
+     * Writes every pending change now.
+     *
+     * @throws SQLException if the changes cannot be written; they stay pending.
+     */
+    public void flush() throws SQLException {
+        try {
+            buffer.flush();
+        } catch (DAOException e) {
+            throw new SQLException("Error while writing pending staff task updates", e);
+        }
+    }
+
+    /**
+     * Exposes the buffer for monitoring, e.g. its coalesced and written counts.
+     *
+     * @return the buffer holding the pending changes.
+     */
+    public WriteBehindBuffer<Integer, StatusUpdate> getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Stops the background flushes and writes the pending changes.
+     *
+     * @throws SQLException if the changes cannot be written.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            buffer.close();
+        } catch (DAOException e) {
+            throw new SQLException("Error while writing pending staff task updates", e);
+        }
+    }
+}
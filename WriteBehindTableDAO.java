@@ -0,0 +1,334 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A RestaurantTableDAO that holds back table updates and writes them in batches.
+ *
+ * Both update() methods queue the table's new state in a {@link WriteBehindBuffer} and return at
+ * once; repeated updates to the same table within the window are coalesced into one UPDATE.
+ * Unversioned updates are written with {@link RestaurantTableDAO#updateAll(Collection)} and
+ * report success even for a table that does not exist, as nothing is read before the write.
+ *
+ * The versioned update used by
+ * {@link FloorState#transition(int, RestaurantTable.Status, RestaurantTable.Status)} keeps its
+ * version check, made when the batch is written with
+ * {@link RestaurantTableDAO#updateAllVersioned(Collection)}: a transition on top of a pending one
+ * is folded into it and written only if the row still has the version the first was read at, and
+ * the table is given the version the row will have once it is. A transition that does not follow
+ * the pending one fails at once with a {@link ConcurrentUpdateException}. A transition that finds
+ * the row changed by another terminal when it is written is dropped, logged and reported to the
+ * conflict listener, which should make the floor read again, e.g. {@link FloorState#invalidate()}.
+ *
+ * Inside a {@link UnitOfWork} updates are queued once the unit commits, and dropped if it rolls
+ * back; the unit no longer covers the table's row. Every other call first flushes the pending
+ * updates, so it sees them and is never overtaken by them.
+ *
+ * Put it behind {@link FloorState}, which answers reads from memory, so reads do not force a
+ * flush: new FloorState(new WriteBehindTableDAO(new RestaurantTableDAOImplement(), 200)).
+ *
+ * - Efficiency: A burst of status flips costs one round trip and one commit per batch.
+ * - Dependability: Pending updates are flushed on close(), by {@link Database#shutdown()} and when the JVM exits.
+ */
+public class WriteBehindTableDAO implements RestaurantTableDAO, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(WriteBehindTableDAO.class.getName());
+
+    private final RestaurantTableDAO delegate;
+    private final WriteBehindBuffer<Integer, TableWrite> buffer;
+    private final AtomicLong conflictCount = new AtomicLong();
+    private volatile IntConsumer conflictListener = tableNumber -> { };
+
+    /**
+     * Constructs a write-behind buffer in front of a RestaurantTableDAO.
+     *
+     * @param delegate the DAO that reads and writes the database.
+     * @param windowMillis how long an update may wait before it is written.
+     * @throws IllegalArgumentException if the window is not positive.
+     */
+    public WriteBehindTableDAO(RestaurantTableDAO delegate, long windowMillis) {
+        this.delegate = delegate;
+        this.buffer = new WriteBehindBuffer<>("Tables", this::write, windowMillis);
+    }
+
+    /**
+     * Sets what is told about a held-back transition that could not be written because the table
+     * was changed elsewhere, or no longer exists. It is called on the flushing thread.
+     *
+     * @param listener receives the table number, e.g. to make the floor read again.
+     */
+    public void setConflictListener(IntConsumer listener) {
+        this.conflictListener = listener;
+    }
+
+    /**
+     * Queues a table's new capacity and status, replacing any update to the same table that has
+     * not been written yet.
+     *
+     * @param table the table with its new capacity and status.
+     * @return true; the update is written later.
+     * @throws DAOException if the buffer is full and cannot be flushed.
+     */
+    @Override
+    public boolean update(RestaurantTable table) throws DAOException {
+        TableWrite write = new TableWrite(table, false, 0);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCommit(() -> queueCommitted(write));
+            return true;
+        }
+        queue(write);
+        return true;
+    }
+
+    /**
+     * Queues a table's new capacity and status, to be written only if the table still has the
+     * expected version. Folded into a pending transition of the same table, it is written only if
+     * the table still has the version that one was read at. The table's version is set to the
+     * version the row will have once the update is written.
+     *
+     * @param table the table with its new capacity and status.
+     * @param expectedVersion the version the table was read at.
+     * @return true; the update is written later.
+     * @throws ConcurrentUpdateException if a pending update to the table does not lead to the expected version.
+     * @throws DAOException if the buffer is full and cannot be flushed.
+     */
+    @Override
+    public boolean update(RestaurantTable table, int expectedVersion) throws DAOException {
+        TableWrite write = new TableWrite(table, true, expectedVersion);
+        TableWrite queued;
+        if (UnitOfWork.isActive()) {
+            // Checked against the pending update now, and queued once the unit commits
+            TableWrite pending = buffer.peek(table.getTableNumber());
+            queued = pending == null ? write : TableWrite.merge(pending, write);
+            UnitOfWork.afterCommit(() -> queueCommitted(write));
+        } else {
+            queued = queue(write);
+        }
+        table.setVersion(queued.table.getVersion() + 1);
+        return true;
+    }
+
+    /**
+     * Writes the pending updates, then the given ones.
+     *
+     * @param tables the tables with their new capacities and statuses.
+     * @return the number of tables updated.
+     * @throws DAOException if a batch cannot be updated.
+     */
+    @Override
+    public int updateAll(Collection<RestaurantTable> tables) throws DAOException {
+        flush();
+        return delegate.updateAll(tables);
+    }
+
+    /**
+     * Writes the pending updates, then updates the tables that still have their versions.
+     *
+     * @param tables the tables with their new capacities and statuses and the versions they were read at.
+     * @return the tables that were changed since, or no longer exist.
+     * @throws DAOException if a batch cannot be updated.
+     */
+    @Override
+    public List<RestaurantTable> updateAllVersioned(Collection<RestaurantTable> tables) throws DAOException {
+        flush();
+        return delegate.updateAllVersioned(tables);
+    }
+
+    @Override
+    public RestaurantTable getById(int tableNumber) throws DAOException {
+        flush();
+        return delegate.getById(tableNumber);
+    }
+
+    @Override
+    public List<RestaurantTable> getAll() throws DAOException {
+        flush();
+        return delegate.getAll();
+    }
+
+    @Override
+    public boolean save(RestaurantTable table) throws DAOException {
+        flush();
+        return delegate.save(table);
+    }
+
+    @Override
+    public boolean delete(int tableNumber) throws DAOException {
+        flush();
+        return delegate.delete(tableNumber);
+    }
+
+    @Override
+    public void add(RestaurantTable table) throws SQLException, DAOException {
+        flush();
+        delegate.add(table);
+    }
+
+    @Override
+    public void addAll(Collection<RestaurantTable> tables) throws SQLException, DAOException {
+        flush();
+        delegate.addAll(tables);
+    }
+
+    @Override
+    public void view() throws SQLException, DAOException {
+        flush();
+        delegate.view();
+    }
+
+    @Override
+    public void forEach(RowHandler<? super RestaurantTable> handler) throws SQLException, DAOException {
+        flush();
+        delegate.forEach(handler);
+    }
+
+    @Override
+    public Page<RestaurantTable> viewPage(int afterKey, int pageSize) throws SQLException, DAOException {
+        flush();
+        return delegate.viewPage(afterKey, pageSize);
+    }
+
+    /**
+     * Writes every pending update now.
+     *
+     * @throws DAOException if the updates cannot be written; they stay pending.
+     */
+    public void flush() throws DAOException {
+        try {
+            buffer.flush();
+        } catch (SQLException e) {
+            throw new DAOException("Error while writing pending table updates", e);
+        }
+    }
+
+    /**
+     * Exposes the buffer for monitoring, e.g. its coalesced and written counts.
+     *
+     * @return the buffer holding the pending updates.
+     */
+    public WriteBehindBuffer<Integer, ?> getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Gets the number of held-back updates dropped because the table was changed elsewhere, or
+     * could not be queued once their unit of work committed. Each one is logged and reported to
+     * the conflict listener.
+     *
+     * @return the number of conflicting transitions.
+     */
+    public long getConflictCount() {
+        return conflictCount.get();
+    }
+
+    /**
+     * Stops the background flushes and writes the pending updates.
+     *
+     * @throws DAOException if the updates cannot be written.
+     */
+    @Override
+    public void close() throws DAOException {
+        try {
+            buffer.close();
+        } catch (SQLException e) {
+            throw new DAOException("Error while writing pending table updates", e);
+        }
+    }
+
+    private TableWrite queue(TableWrite write) throws DAOException {
+        try {
+            return buffer.merge(write.table.getTableNumber(), write, TableWrite::merge);
+        } catch (SQLException e) {
+            throw new DAOException("Error while writing pending table updates", e);
+        }
+    }
+
+    // Queues an update made in a unit of work that has committed; there is no caller left to tell.
+    private void queueCommitted(TableWrite write) {
+        try {
+            queue(write);
+        } catch (DAOException e) {
+            conflict(write.table.getTableNumber(), e);
+        }
+    }
+
+    // Writes a batch: unversioned updates as they are, transitions only where the version still matches.
+    private void write(List<TableWrite> writes) throws DAOException {
+        List<RestaurantTable> unversioned = new ArrayList<>();
+        List<RestaurantTable> versioned = new ArrayList<>();
+        for (TableWrite write : writes) {
+            // A copy, as a failed batch is written again row by row
+            RestaurantTable table = write.copy();
+            (write.versioned ? versioned : unversioned).add(table);
+        }
+        if (!unversioned.isEmpty()) {
+            delegate.updateAll(unversioned);
+        }
+        if (!versioned.isEmpty()) {
+            for (RestaurantTable skipped : delegate.updateAllVersioned(versioned)) {
+                conflict(skipped.getTableNumber(), null);
+            }
+        }
+    }
+
+    private void conflict(int tableNumber, DAOException cause) {
+        conflictCount.incrementAndGet();
+        logger.log(Level.WARNING, "Dropped a held-back update of table " + tableNumber
+                + (cause == null ? "; it was changed elsewhere or no longer exists." : "."), cause);
+        try {
+            conflictListener.accept(tableNumber);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "The conflict listener failed for table " + tableNumber + ".", e);
+        }
+    }
+
+    /**
+     * A held-back update: a copy of the table's new state, so later changes to the caller's
+     * object are not written, and for a transition the version the row must still have.
+     */
+    private static final class TableWrite {
+
+        private final RestaurantTable table; // Its version is the one the row must have
+        private final boolean versioned;
+
+        private TableWrite(RestaurantTable table, boolean versioned, int expectedVersion) {
+            this.table = new RestaurantTable(table.getTableNumber(), table.getTableCapacity(), table.getTableStatus());
+            this.table.setVersion(expectedVersion);
+            this.versioned = versioned;
+        }
+
+        // Folds a later update into a pending one. A transition keeps the version the pending
+        // transition was read at, as long as it was read at the version that one leads to.
+        static TableWrite merge(TableWrite pending, TableWrite next) throws ConcurrentUpdateException {
+            if (!next.versioned) {
+                return next;
+            }
+            int expected = next.table.getVersion();
+            if (!pending.versioned || pending.table.getVersion() + 1 != expected) {
+                // An unversioned update leads to a version not known until it is written
+                throw new ConcurrentUpdateException("RestaurantTable", next.table.getTableNumber(), expected,
+                        pending.versioned ? pending.table.getVersion() + 1 : -1);
+            }
+            return new TableWrite(next.table, true, pending.table.getVersion());
+        }
+
+        RestaurantTable copy() {
+            RestaurantTable copy = new RestaurantTable(table.getTableNumber(), table.getTableCapacity(), table.getTableStatus());
+            copy.setVersion(table.getVersion());
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "table " + table.getTableNumber() + " -> " + table.getTableStatus()
+                    + (versioned ? " at version " + table.getVersion() : "");
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.fantastic.restaurant;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of every DAO implementation against an embedded H2 database in MySQL mode.
+ *
+ * - Single operations are measured in sample-time mode, which reports latency percentiles
+ *   (p50, p99, p99.9) per call.
+ * - Batch inserts (addAll) are measured as rows per second; each invocation inserts
+ *   {@value #BATCH} rows.
+ * - Allocation per operation is reported by running with the GC profiler (-prof gc), as
+ *   gc.alloc.rate.norm in bytes per operation.
+ *
+ * Every trial starts from empty tables seeded with {@value #SEED_ROWS} rows each, so the lookups
+ * and updates hit indexes of a realistic size. Absolute numbers reflect H2 in memory, not a
+ * networked MySQL server; they are meant for comparing one version of the DAO code with another.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Drestaurant.db.url=" + EmbeddedDatabase.URL,
+        "-Drestaurant.db.user=sa",
+        "-Drestaurant.db.password="})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DAOBenchmark {
+
+    static final int SEED_ROWS = 1_000;
+    static final int BATCH = 100;
+
+    private static final LocalDateTime FIRST_BOOKING = LocalDateTime.of(2030, 1, 1, 17, 0);
+
+    private final InventoryDAOImplement inventoryDAO = new InventoryDAOImplement();
+    private final MenuDAOImplement menuDAO = new MenuDAOImplement();
+    private final ReservationDAOImplement reservationDAO = new ReservationDAOImplement();
+    private final UserDAOImplement userDAO = new UserDAOImplement();
+    private final StaffTaskDAOImplement staffTaskDAO = new StaffTaskDAOImplement();
+    private final RestaurantTableDAOImplement tableDAO = new RestaurantTableDAOImplement();
+    private final WriteBehindTableDAO writeBehindTableDAO = new WriteBehindTableDAO(tableDAO, 1_000);
+
+    private int sequence; // Makes every inserted name unique; one benchmark thread per fork
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        EmbeddedDatabase.silenceConsole();
+        EmbeddedDatabase.create();
+        EmbeddedDatabase.clear();
+
+        List<Inventory> items = new ArrayList<>();
+        List<Menu> menu = new ArrayList<>();
+        List<Reservation> reservations = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        List<StaffTask> tasks = new ArrayList<>();
+        List<RestaurantTable> tables = new ArrayList<>();
+        for (int i = 0; i < SEED_ROWS; i++) {
+            items.add(new Inventory("item-" + i, Integer.MAX_VALUE / 2, "kg", 10));
+            menu.add(newMenuItem(i));
+            reservations.add(newReservation(i));
+            users.add(newUser("user-" + i));
+            tasks.add(new StaffTask(1 + i % 50, "Task " + i, 1));
+            tables.add(new RestaurantTable(i + 1, 2 + i % 6, "available"));
+        }
+        inventoryDAO.addAll(items);
+        menuDAO.addAll(menu);
+        reservationDAO.addAll(reservations);
+        userDAO.addAll(users);
+        staffTaskDAO.addAll(tasks);
+        tableDAO.addAll(tables);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() throws DAOException {
+        writeBehindTableDAO.close();
+        Database.shutdown();
+    }
+
+    // ---- Single operations: latency per call ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void inventoryAdd() throws Exception {
+        inventoryDAO.add(new Inventory("new-item-" + sequence++, 100, "kg", 10));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean inventoryDecrement() throws Exception {
+        return inventoryDAO.decrementBy("item-" + (sequence++ % SEED_ROWS), 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Inventory inventoryGetByName() throws Exception {
+        return inventoryDAO.getInventoryByName("item-" + (sequence++ % SEED_ROWS));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void menuAdd() throws Exception {
+        menuDAO.add(newMenuItem(sequence++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Menu menuGetById() throws Exception {
+        return menuDAO.getMenuItemById(1 + sequence++ % SEED_ROWS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void reservationAdd() throws Exception {
+        reservationDAO.add(newReservation(sequence++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Reservation> reservationGetByDay() throws Exception {
+        LocalDate day = FIRST_BOOKING.toLocalDate().plusDays(sequence++ % 30);
+        return reservationDAO.getByDay(day);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Page<Reservation> reservationViewPage() throws Exception {
+        return reservationDAO.viewPage(sequence++ % SEED_ROWS, PagedTableModel.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void userAdd() throws Exception {
+        userDAO.add(newUser("new-user-" + sequence++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public User userGetByUsername() throws Exception {
+        return userDAO.getUserByUsername("user-" + (sequence++ % SEED_ROWS));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void staffTaskAdd() throws Exception {
+        staffTaskDAO.add(new StaffTask(1 + sequence++ % 50, "New task", 1));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void staffTaskUpdate() throws Exception {
+        staffTaskDAO.update("completed", 1 + sequence++ % SEED_ROWS, "2030-01-01 18:00:00");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void tableAdd() throws Exception {
+        tableDAO.add(new RestaurantTable(SEED_ROWS + 1 + sequence++, 4, "available"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean tableUpdate() throws Exception {
+        int number = 1 + sequence++ % SEED_ROWS;
+        return tableDAO.update(new RestaurantTable(number, 2 + number % 6, number % 2 == 0 ? "occupied" : "available"));
+    }
+
+    // ---- Composite actions: three DAO calls, committed separately or as one unit of work ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void seatReservationAutoCommit() throws Exception {
+        seatReservation(1 + sequence++ % SEED_ROWS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void seatReservationUnitOfWork() throws Exception {
+        int id = 1 + sequence++ % SEED_ROWS;
+        UnitOfWork.run(() -> {
+            seatReservation(id);
+            return null;
+        });
+    }
+
+    // ---- Status flips: updates per second, written one by one or held back and batched ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void tableStatusFlips() throws Exception {
+        flipTableStatuses(tableDAO);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void tableStatusFlipsWriteBehind() throws Exception {
+        flipTableStatuses(writeBehindTableDAO);
+        writeBehindTableDAO.flush(); // The batch write is part of the measured time
+    }
+
+    // ---- Batch inserts: rows per second ----
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void inventoryAddAll() throws Exception {
+        List<Inventory> items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            items.add(new Inventory("batch-item-" + sequence++, 100, "kg", 10));
+        }
+        inventoryDAO.addAll(items);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void menuAddAll() throws Exception {
+        List<Menu> menu = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            menu.add(newMenuItem(sequence++));
+        }
+        menuDAO.addAll(menu);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void reservationAddAll() throws Exception {
+        List<Reservation> reservations = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            reservations.add(newReservation(sequence++));
+        }
+        reservationDAO.addAll(reservations);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void userAddAll() throws Exception {
+        List<User> users = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            users.add(newUser("batch-user-" + sequence++));
+        }
+        userDAO.addAll(users);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void staffTaskAddAll() throws Exception {
+        List<StaffTask> tasks = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            tasks.add(new StaffTask(1 + sequence++ % 50, "Batch task", 1));
+        }
+        staffTaskDAO.addAll(tasks);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void tableAddAll() throws Exception {
+        List<RestaurantTable> tables = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            tables.add(new RestaurantTable(SEED_ROWS + 1 + sequence++, 4, "available"));
+        }
+        tableDAO.addAll(tables);
+    }
+
+    // Completes a reservation, occupies its table and gives a waiter the task of serving it
+    private void seatReservation(int id) throws SQLException, DAOException {
+        reservationDAO.update("completed", id);
+        tableDAO.update(new RestaurantTable(id, 2 + id % 6, "occupied"));
+        staffTaskDAO.add(new StaffTask(1 + id % 50, "Serve table " + id, 1));
+    }
+
+    // Flips BATCH statuses over 20 busy tables, as during a rush
+    private void flipTableStatuses(RestaurantTableDAO dao) throws DAOException {
+        for (int i = 0; i < BATCH; i++) {
+            int n = sequence++;
+            int table = 1 + n % 20;
+            dao.update(new RestaurantTable(table, 2 + (table - 1) % 6, n / 20 % 2 == 0 ? "occupied" : "available"));
+        }
+    }
+
+    private static Menu newMenuItem(int i) {
+        return new Menu("Dish " + i, "House special " + i, 9.5 + i % 20, "Mains", 1);
+    }
+
+    // Spreads bookings over 30 days, every quarter hour from 17:00
+    private static Reservation newReservation(int i) {
+        LocalDateTime time = FIRST_BOOKING.plusDays(i % 30).plusMinutes(15L * (i / 30 % 20));
+        return new Reservation("Guest " + i, "guest" + i + "@example.com", "5550000000", 1 + i % SEED_ROWS, time, 1);
+    }
+
+    private static User newUser(String username) {
+        return new User(username, "hash", 2, username + "@example.com", "5551234567");
+    }
+}
@@ -0,0 +1,359 @@
+package com.fantastic.restaurant;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A soak test that drives the DAO layer with a Friday-night mix of work against the embedded
+ * database and reports, every interval, how each kind of work is coping.
+ *
+ * Four kinds of work arrive independently, each as a Poisson process with its own rate:
+ * - hosts look for a free table and book it ({@link AvailabilityEngine});
+ * - servers place orders of one to four dishes, which holds and deducts their ingredients
+ *   ({@link OrderPipeline});
+ * - the kitchen moves placed orders to preparing and then to served;
+ * - managers open a dashboard: tonight's reservations, low stock, open orders and the floor.
+ *
+ * Arrivals are handed to a fixed pool of workers, and latency is measured from the moment an
+ * arrival was due, not from when a worker picked it up. When the system falls behind, the wait in
+ * the queue is therefore counted, as a guest would experience it, instead of the load generator
+ * quietly slowing down.
+ *
+ * Every interval it prints throughput, latency percentiles and the error rate per kind of work,
+ * and the peak connection pool usage, threads waiting for a connection and queued arrivals. The
+ * summary adds the time {@link OrderPipeline#place(Order)} itself took per order.
+ *
+ * Configured with system properties:
+ * - restaurant.load.durationS (default 120) and restaurant.load.reportIntervalS (10)
+ * - restaurant.load.workers (32): threads executing arrivals
+ * - restaurant.load.rate.hosts (5), .servers (20), .kitchen (20), .managers (1): arrivals per second; 0 disables
+ * - restaurant.db.pool.maxSize and the other pool settings read by {@link Database}
+ */
+public final class DinnerRushLoad {
+
+    private static final long DURATION_S = Long.getLong("restaurant.load.durationS", 120);
+    private static final long REPORT_INTERVAL_S = Long.getLong("restaurant.load.reportIntervalS", 10);
+    private static final int WORKERS = Integer.getInteger("restaurant.load.workers", 32);
+
+    private static final int TABLES = 60;
+    private static final int MENU_ITEMS = 40;
+    private static final int INGREDIENTS = 30;
+    private static final int STAFF = 20;
+
+    /**
+     * One unit of work of a scenario, run on a worker thread.
+     */
+    @FunctionalInterface
+    private interface Task {
+        void run(ThreadLocalRandom random) throws Exception;
+    }
+
+    /**
+     * A kind of work with its arrival rate and its measurements.
+     */
+    private static final class Scenario {
+        private final String name;
+        private final double rate; // Arrivals per second
+        private final Task task;
+        private final LatencyHistogram interval = new LatencyHistogram(); // Reset at every report
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicLong intervalErrors = new AtomicLong();
+        private final AtomicLong totalErrors = new AtomicLong();
+        private volatile String lastError;
+
+        private Scenario(String name, Task task) {
+            this.name = name;
+            this.rate = Double.parseDouble(System.getProperty("restaurant.load.rate." + name, defaultRate(name)));
+            this.task = task;
+        }
+
+        private static String defaultRate(String name) {
+            switch (name) {
+                case "hosts": return "5";
+                case "managers": return "1";
+                default: return "20";
+            }
+        }
+    }
+
+    private final PrintStream report;
+    private final ReservationDAO reservationDAO = new ReservationDAOImplement();
+    private final RestaurantTableDAO tableDAO = new RestaurantTableDAOImplement();
+    private final InventoryDAO inventoryDAO = new InventoryDAOImplement();
+    private final OrderDAO orderDAO = new OrderDAOImplement();
+    private final AvailabilityEngine availability = new AvailabilityEngine(reservationDAO, tableDAO);
+    private final SeatingOptimizer seatingOptimizer = new SeatingOptimizer(availability);
+    private final OrderPipeline pipeline = new OrderPipeline(orderDAO, new MenuDAOImplement(), inventoryDAO);
+
+    private final Queue<Integer> placedOrders = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> preparingOrders = new ConcurrentLinkedQueue<>();
+    private final List<Scenario> scenarios;
+
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>());
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+
+    private DinnerRushLoad(PrintStream report) {
+        this.report = report;
+        this.scenarios = Arrays.asList(
+                new Scenario("hosts", this::bookTable),
+                new Scenario("servers", this::placeOrder),
+                new Scenario("kitchen", this::advanceOrder),
+                new Scenario("managers", this::openDashboard));
+    }
+
+    /**
+     * Seeds the embedded database, runs the configured load and prints the reports.
+     *
+     * @param args not used.
+     * @throws Exception if the database cannot be set up.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("restaurant.db.url") == null) {
+            System.setProperty("restaurant.db.url", EmbeddedDatabase.URL);
+            System.setProperty("restaurant.db.user", "sa");
+            System.setProperty("restaurant.db.password", "");
+        }
+        PrintStream report = System.out;
+        EmbeddedDatabase.silenceConsole();
+
+        DinnerRushLoad load = new DinnerRushLoad(report);
+        try {
+            load.seed();
+            load.run();
+        } finally {
+            Database.shutdown();
+        }
+    }
+
+    // ---- The scenarios ----
+
+    private void bookTable(ThreadLocalRandom random) throws Exception {
+        int partySize = 1 + random.nextInt(8);
+        LocalDateTime time = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusMinutes(15L * (4 + random.nextInt(16)));
+        SeatingOptimizer.Seating seating = seatingOptimizer.suggest(partySize, time);
+        if (seating == null) {
+            return; // Fully booked is an answer, not an error
+        }
+        int n = random.nextInt(1_000_000);
+        for (int tableId : seating.getTableIds()) {
+            availability.book(new Reservation("Guest " + n, "guest" + n + "@example.com", "5550000000",
+                    tableId, time, 1));
+        }
+    }
+
+    private void placeOrder(ThreadLocalRandom random) throws Exception {
+        Order order = new Order(1 + random.nextInt(TABLES), 1 + random.nextInt(STAFF));
+        int dishes = 1 + random.nextInt(4);
+        for (int i = 0; i < dishes; i++) {
+            order.addItem(new OrderItem(1 + random.nextInt(MENU_ITEMS), 1 + random.nextInt(2), null));
+        }
+        pipeline.place(order);
+        placedOrders.add(order.getOrderId());
+    }
+
+    private void advanceOrder(ThreadLocalRandom random) throws Exception {
+        Integer orderId = preparingOrders.poll();
+        if (orderId != null) {
+            pipeline.updateStatus(orderId, Order.Status.served);
+            return;
+        }
+        orderId = placedOrders.poll();
+        if (orderId != null) {
+            pipeline.updateStatus(orderId, Order.Status.preparing);
+            preparingOrders.add(orderId);
+        }
+    }
+
+    private void openDashboard(ThreadLocalRandom random) throws Exception {
+        reservationDAO.getByDay(LocalDate.now());
+        inventoryDAO.getLowStockItems();
+        orderDAO.getOrdersByStatus(Order.Status.placed);
+        tableDAO.viewPage(0, PagedTableModel.DEFAULT_PAGE_SIZE);
+    }
+
+    // ---- Setup ----
+
+    private void seed() throws SQLException, DAOException {
+        EmbeddedDatabase.create();
+        EmbeddedDatabase.clear();
+
+        List<RestaurantTable> tables = new ArrayList<>();
+        for (int i = 1; i <= TABLES; i++) {
+            tables.add(new RestaurantTable(i, 2 + 2 * (i % 4), "available"));
+        }
+        tableDAO.addAll(tables);
+
+        List<Inventory> items = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS; i++) {
+            items.add(new Inventory("ingredient-" + i, 1_000_000, "g", 1_000));
+        }
+        inventoryDAO.addAll(items);
+
+        List<Menu> menu = new ArrayList<>();
+        List<int[]> recipes = new ArrayList<>();
+        for (int i = 1; i <= MENU_ITEMS; i++) {
+            menu.add(new Menu("Dish " + i, "Tonight's special", 12 + i % 15, i % 3 == 0 ? "Desserts" : "Mains", 1));
+            for (int j = 0; j < 3; j++) {
+                recipes.add(new int[]{i, (i * 7 + j * 11) % INGREDIENTS, 50 + 25 * j});
+            }
+        }
+        new MenuDAOImplement().addAll(menu);
+        JdbcBatch.insertAll("INSERT INTO Menu_Ingredients (menu_item_id, item_name, quantity) VALUES (?, ?, ?)",
+                recipes, (statement, recipe) -> {
+                    statement.setInt(1, recipe[0]);
+                    statement.setString(2, "ingredient-" + recipe[1]);
+                    statement.setInt(3, recipe[2]);
+                });
+
+        List<User> staff = new ArrayList<>();
+        for (int i = 1; i <= STAFF; i++) {
+            staff.add(new User("server-" + i, "hash", 2, "server" + i + "@example.com", "5551234567"));
+        }
+        new UserDAOImplement().addAll(staff);
+
+        availability.load();
+        pipeline.load();
+    }
+
+    // ---- Running and reporting ----
+
+    private void run() throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(DURATION_S);
+        report.printf("Dinner rush: %ds, %d workers, pool of %d connections%n",
+                DURATION_S, WORKERS, Database.getPool().getMaxSize());
+
+        ScheduledExecutorService monitor = Executors.newScheduledThreadPool(1);
+        monitor.scheduleAtFixedRate(this::sample, 100, 100, TimeUnit.MILLISECONDS);
+        monitor.scheduleAtFixedRate(() -> report(start), REPORT_INTERVAL_S, REPORT_INTERVAL_S, TimeUnit.SECONDS);
+
+        List<Thread> arrivals = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            if (scenario.rate > 0) {
+                Thread thread = new Thread(() -> arrive(scenario, end), "arrivals-" + scenario.name);
+                thread.start();
+                arrivals.add(thread);
+            }
+        }
+        for (Thread thread : arrivals) {
+            thread.join();
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            report.println("Workers did not finish within a minute of the end of the run; " + workers.getQueue().size() + " arrivals dropped.");
+            workers.shutdownNow();
+        }
+        monitor.shutdownNow();
+        summarize(start);
+    }
+
+    // Hands arrivals to the workers at exponentially distributed intervals until the end of the run.
+    private void arrive(Scenario scenario, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long due = System.nanoTime();
+        while (true) {
+            due += (long) (-Math.log(1 - random.nextDouble()) / scenario.rate * 1e9);
+            if (due >= end) {
+                return;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long arrival = due;
+            workers.execute(() -> execute(scenario, arrival));
+        }
+    }
+
+    private void execute(Scenario scenario, long due) {
+        try {
+            scenario.task.run(ThreadLocalRandom.current());
+        } catch (Exception e) {
+            scenario.intervalErrors.incrementAndGet();
+            scenario.totalErrors.incrementAndGet();
+            scenario.lastError = e.toString();
+        } finally {
+            long latency = System.nanoTime() - due; // Includes time queued behind earlier arrivals
+            scenario.interval.record(latency);
+            scenario.total.record(latency);
+        }
+    }
+
+    // Tracks the highest pool usage and backlog seen within the current interval.
+    private void sample() {
+        ConnectionPool pool = Database.getPool();
+        peakActive.accumulateAndGet(pool.getActiveCount(), Math::max);
+        peakPending.accumulateAndGet(pool.getPendingCount(), Math::max);
+        peakQueued.accumulateAndGet(workers.getQueue().size(), Math::max);
+    }
+
+    private void report(long start) {
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        StringBuilder out = new StringBuilder();
+        for (Scenario scenario : scenarios) {
+            long count = scenario.interval.getCount();
+            long errors = scenario.intervalErrors.getAndSet(0);
+            out.append(String.format("[%4ds] %-8s %s%n", elapsed, scenario.name,
+                    line(scenario.interval, count, errors, REPORT_INTERVAL_S)));
+            scenario.interval.reset();
+        }
+
+        ConnectionPool pool = Database.getPool();
+        LatencyHistogram wait = pool.getBorrowWaitHistogram();
+        out.append(String.format("[%4ds] pool     peak active %d/%d, peak waiting %d, borrow wait p99 %dus, timeouts %d, peak queued arrivals %d%n",
+                elapsed, peakActive.getAndSet(0), pool.getMaxSize(), peakPending.getAndSet(0),
+                wait.getPercentileMicros(99), pool.getTimeoutCount(), peakQueued.getAndSet(0)));
+        wait.reset();
+        report.print(out);
+    }
+
+    private void summarize(long start) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        report.println("Summary:");
+        for (Scenario scenario : scenarios) {
+            long errors = scenario.totalErrors.get();
+            report.printf("  %-8s %s%n", scenario.name, line(scenario.total, scenario.total.getCount(), errors, seconds));
+            if (scenario.lastError != null) {
+                report.printf("           last error: %s%n", scenario.lastError);
+            }
+        }
+        // The pipeline's own timing, without the wait in the queue, so a slow p99 can be told apart from a backlog
+        report.println("  OrderPipeline.place(): " + pipeline.getLatency());
+        report.println("  " + Database.getPool());
+        report.println("Statements by total time:");
+        Database.getPool().getStatementStats().values().stream()
+                .sorted(Comparator.comparingDouble(
+                        (StatementStats stats) -> stats.getLatency().getMeanMicros() * stats.getLatency().getCount()).reversed())
+                .limit(10)
+                .forEach(stats -> report.println("  " + stats));
+    }
+
+    private static String line(LatencyHistogram latency, long count, long errors, long seconds) {
+        return String.format("%7.1f ops/s  p50 %6dus  p99 %7dus  p99.9 %7dus  max %7dus  errors %5.1f%%",
+                (double) count / seconds, latency.getPercentileMicros(50), latency.getPercentileMicros(99),
+                latency.getPercentileMicros(99.9), latency.getMaxMicros(),
+                count == 0 ? 0.0 : 100.0 * errors / count);
+    }
+}
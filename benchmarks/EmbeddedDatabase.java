@@ -0,0 +1,134 @@
+package com.fantastic.restaurant;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates the restaurant schema in the embedded database the benchmarks run against.
+ *
+ * The benchmarks are started with restaurant.db.url pointing at an in-memory H2 database in MySQL
+ * mode, so {@link Database#getConnection()} and every DAO run unchanged. The tables below are the
+ * MySQL tables with every migration in sql/ applied, written in H2's dialect: the same columns, so
+ * every DAO query runs, and the same indexes, so query plans are comparable with the real database.
+ * A migration that adds a table, column or index needs a matching change here. Foreign keys are
+ * left out so tables can be truncated in any order.
+ */
+final class EmbeddedDatabase {
+
+    /** The URL the benchmark forks are started with. */
+    static final String URL = "jdbc:h2:mem:restaurant;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS Users ("
+            + "user_id INT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50) NOT NULL, "
+            + "password_hash VARCHAR(255) NOT NULL, role VARCHAR(20) NOT NULL, "
+            + "email VARCHAR(100), phone VARCHAR(20))",
+        "CREATE UNIQUE INDEX IF NOT EXISTS idx_users_username ON Users (username)",
+        "CREATE INDEX IF NOT EXISTS idx_users_role ON Users (role)",
+
+        "CREATE TABLE IF NOT EXISTS Staff_Tasks ("
+            + "task_id INT AUTO_INCREMENT PRIMARY KEY, user_id INT NOT NULL, "
+            + "task_description VARCHAR(255) NOT NULL, status VARCHAR(20) NOT NULL, "
+            + "assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, completed_at VARCHAR(30), "
+            + "version INT NOT NULL DEFAULT 0)",
+
+        "CREATE TABLE IF NOT EXISTS Tables ("
+            + "table_id INT AUTO_INCREMENT PRIMARY KEY, table_number INT NOT NULL, "
+            + "capacity INT NOT NULL, status VARCHAR(20) NOT NULL, version INT NOT NULL DEFAULT 0)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS idx_tables_number ON Tables (table_number)",
+
+        "CREATE TABLE IF NOT EXISTS Reservations ("
+            + "reservation_id INT AUTO_INCREMENT PRIMARY KEY, customer_name VARCHAR(100) NOT NULL, "
+            + "email VARCHAR(100), phone VARCHAR(20), table_id INT NOT NULL, "
+            + "date_time DATETIME NOT NULL, status VARCHAR(20) NOT NULL, version INT NOT NULL DEFAULT 0)",
+        "CREATE INDEX IF NOT EXISTS idx_reservations_time ON Reservations (date_time)",
+        "CREATE INDEX IF NOT EXISTS idx_reservations_table_time ON Reservations (table_id, date_time)",
+
+        "CREATE TABLE IF NOT EXISTS Menu_Items ("
+            + "menu_item_id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+            + "description VARCHAR(255), price DECIMAL(10,2) NOT NULL, category VARCHAR(50), "
+            + "availability INT NOT NULL)",
+
+        "CREATE TABLE IF NOT EXISTS Inventory ("
+            + "item_id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+            + "stock_quantity INT NOT NULL, unit VARCHAR(20) NOT NULL, threshold INT NOT NULL, "
+            + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
+            + "low_stock BOOLEAN GENERATED ALWAYS AS (stock_quantity < threshold), "
+            + "version INT NOT NULL DEFAULT 0)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS idx_inventory_name ON Inventory (name)",
+        "CREATE INDEX IF NOT EXISTS idx_inventory_low_stock ON Inventory (low_stock)",
+
+        "CREATE TABLE IF NOT EXISTS Inventory_Holds ("
+            + "hold_id CHAR(36) NOT NULL, item_name VARCHAR(100) NOT NULL, quantity INT NOT NULL, "
+            + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (hold_id, item_name))",
+        "CREATE INDEX IF NOT EXISTS idx_inventory_holds_created ON Inventory_Holds (created_at)",
+
+        "CREATE TABLE IF NOT EXISTS Orders ("
+            + "order_id INT AUTO_INCREMENT PRIMARY KEY, table_id INT NOT NULL, user_id INT NOT NULL, "
+            + "status VARCHAR(20) NOT NULL DEFAULT 'placed', total DECIMAL(10,2) NOT NULL DEFAULT 0, "
+            + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP)",
+        "CREATE INDEX IF NOT EXISTS idx_orders_status ON Orders (status, order_id)",
+
+        "CREATE TABLE IF NOT EXISTS Order_Items ("
+            + "order_item_id INT AUTO_INCREMENT PRIMARY KEY, order_id INT NOT NULL, menu_item_id INT NOT NULL, "
+            + "quantity INT NOT NULL, unit_price DECIMAL(10,2) NOT NULL, notes VARCHAR(255))",
+        "CREATE INDEX IF NOT EXISTS idx_order_items_order ON Order_Items (order_id)",
+
+        "CREATE TABLE IF NOT EXISTS Menu_Ingredients ("
+            + "menu_item_id INT NOT NULL, item_name VARCHAR(100) NOT NULL, quantity INT NOT NULL, "
+            + "PRIMARY KEY (menu_item_id, item_name))",
+
+        "CREATE TABLE IF NOT EXISTS Order_Ingredients ("
+            + "order_id INT NOT NULL, item_name VARCHAR(100) NOT NULL, quantity INT NOT NULL, "
+            + "PRIMARY KEY (order_id, item_name))",
+    };
+
+    private static final String[] TABLES = {
+        "Users", "Staff_Tasks", "Tables", "Reservations", "Menu_Items", "Inventory",
+        "Inventory_Holds", "Orders", "Order_Items", "Menu_Ingredients",
+        "Order_Ingredients"
+    };
+
+    // Private constructor to prevent instantiation
+    private EmbeddedDatabase() {}
+
+    /**
+     * Creates any missing tables and indexes through the application's own connection pool.
+     *
+     * @throws SQLException if the schema cannot be created.
+     */
+    static void create() throws SQLException {
+        try (Connection connect = Database.getConnection();
+             Statement statement = connect.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+    }
+
+    /**
+     * Deletes every row and restarts the generated keys, so each trial starts from the same state.
+     *
+     * @throws SQLException if a table cannot be truncated.
+     */
+    static void clear() throws SQLException {
+        try (Connection connect = Database.getConnection();
+             Statement statement = connect.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute("TRUNCATE TABLE " + table + " RESTART IDENTITY");
+            }
+        }
+    }
+
+    /**
+     * Discards console output. The DAOs print a line for most writes, which would otherwise be
+     * measured as part of every operation.
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
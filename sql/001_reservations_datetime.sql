@@ -0,0 +1,11 @@
+-- Reservations.date_time becomes a real DATETIME so that time-range queries can use an index.
+-- Older rows were written by LocalDateTime.toString() ("2024-05-01T18:30"); normalize them first.
+UPDATE Reservations SET date_time = REPLACE(date_time, 'T', ' ');
+
+ALTER TABLE Reservations MODIFY date_time DATETIME NOT NULL;
+
+-- Day and service-window views (ReservationDAO.getByDay / getBetween).
+CREATE INDEX idx_reservations_time ON Reservations (date_time);
+
+-- Per-table lookups (ReservationDAO.getByTable) and availability checks.
+CREATE INDEX idx_reservations_table_time ON Reservations (table_id, date_time);
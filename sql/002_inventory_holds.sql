@@ -0,0 +1,12 @@
+-- Relative stock updates (InventoryDAO.decrementBy / incrementBy / consume) look items up by name.
+CREATE UNIQUE INDEX idx_inventory_name ON Inventory (name);
+
+-- Stock set aside by InventoryDAO.hold() until the hold is committed or released.
+CREATE TABLE Inventory_Holds (
+    hold_id    CHAR(36)     NOT NULL,
+    item_name  VARCHAR(100) NOT NULL,
+    quantity   INT          NOT NULL,
+    created_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (hold_id, item_name),
+    INDEX idx_inventory_holds_created (created_at)
+);
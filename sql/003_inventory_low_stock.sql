@@ -0,0 +1,5 @@
+-- MySQL cannot index a comparison between two columns, so the low-stock flag is kept in a
+-- stored generated column and indexed. InventoryDAO.getLowStockItems() reads only the flagged rows.
+ALTER TABLE Inventory
+    ADD COLUMN low_stock TINYINT(1) AS (stock_quantity < threshold) STORED,
+    ADD INDEX idx_inventory_low_stock (low_stock);
@@ -0,0 +1,41 @@
+-- One row per ticket. The status is only changed through OrderDAO.updateStatus(), whose
+-- UPDATE is conditional on the current status so two terminals cannot both move an order.
+CREATE TABLE Orders (
+    order_id   INT           NOT NULL AUTO_INCREMENT,
+    table_id   INT           NOT NULL,
+    user_id    INT           NOT NULL,
+    status     ENUM('placed', 'preparing', 'served', 'paid', 'cancelled') NOT NULL DEFAULT 'placed',
+    total      DECIMAL(10,2) NOT NULL DEFAULT 0,
+    created_at TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (order_id),
+    INDEX idx_orders_status (status, order_id),
+    FOREIGN KEY (table_id) REFERENCES Tables (table_id),
+    FOREIGN KEY (user_id) REFERENCES Users (user_id)
+);
+
+-- The lines of each ticket, inserted in one batch with the order. unit_price is copied from
+-- Menu_Items when the order is placed.
+CREATE TABLE Order_Items (
+    order_item_id INT           NOT NULL AUTO_INCREMENT,
+    order_id      INT           NOT NULL,
+    menu_item_id  INT           NOT NULL,
+    quantity      INT           NOT NULL,
+    unit_price    DECIMAL(10,2) NOT NULL,
+    notes         VARCHAR(255),
+    PRIMARY KEY (order_item_id),
+    INDEX idx_order_items_order (order_id),
+    FOREIGN KEY (order_id) REFERENCES Orders (order_id) ON DELETE CASCADE,
+    FOREIGN KEY (menu_item_id) REFERENCES Menu_Items (menu_item_id)
+);
+
+-- What one serving of a menu item uses from the inventory. Read once by OrderPipeline so
+-- placing an order deducts ingredients without querying recipes per ticket.
+CREATE TABLE Menu_Ingredients (
+    menu_item_id INT          NOT NULL,
+    item_name    VARCHAR(100) NOT NULL,
+    quantity     INT          NOT NULL,
+    PRIMARY KEY (menu_item_id, item_name),
+    FOREIGN KEY (menu_item_id) REFERENCES Menu_Items (menu_item_id) ON DELETE CASCADE,
+    FOREIGN KEY (item_name) REFERENCES Inventory (name) ON UPDATE CASCADE
+);
@@ -0,0 +1,4 @@
+-- UserDAOImplement.showStaff() and the staff roster filter on role. InnoDB appends the
+-- primary key to secondary indexes, so this also serves "ORDER BY user_id" and the
+-- "SELECT user_id ... WHERE role = ?" roster query without touching the table rows.
+CREATE INDEX idx_users_role ON Users (role);
@@ -0,0 +1,5 @@
+-- UserDAO.getUserByUsername() is a single probe of this index. The column's default
+-- case-insensitive collation matches the lower-cased keys of the lookup cache, so "Alice"
+-- and "alice" are the same user both here and in the cache. InnoDB only builds B-tree
+-- indexes; its adaptive hash index takes over for the hottest equality lookups.
+CREATE UNIQUE INDEX idx_users_username ON Users (username);
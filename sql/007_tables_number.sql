@@ -0,0 +1,5 @@
+-- The DAO and the floor-state engine identify a table by its table_number: getById(),
+-- update() and delete() are single probes of this index instead of full scans of Tables.
+-- Two tables cannot share a number on the floor plan; remove any duplicates before
+-- applying this migration.
+CREATE UNIQUE INDEX idx_tables_number ON Tables (table_number);
@@ -0,0 +1,11 @@
+-- Row versions for optimistic concurrency. Every write increments a row's version, and the
+-- versioned DAO updates only apply WHERE version = the version the terminal read, so two
+-- terminals changing the same table, reservation, task or stock item cannot silently
+-- overwrite each other. Existing rows start at version 0.
+ALTER TABLE Tables ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Reservations ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Staff_Tasks ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE Inventory ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,21 @@
+-- What each order took from the inventory, written in the same transaction as the order and
+-- changed with it when a line is modified. Cancelling an order returns exactly these quantities,
+-- even if the recipes have changed since it was placed.
+CREATE TABLE Order_Ingredients (
+    order_id  INT          NOT NULL,
+    item_name VARCHAR(100) NOT NULL,
+    quantity  INT          NOT NULL,
+    PRIMARY KEY (order_id, item_name),
+    FOREIGN KEY (order_id) REFERENCES Orders (order_id) ON DELETE CASCADE,
+    FOREIGN KEY (item_name) REFERENCES Inventory (name) ON UPDATE CASCADE
+);
+
+-- Orders still waiting for the kitchen were placed before their usage was recorded; record
+-- what the current recipes say they took, so cancelling them still returns their stock.
+INSERT INTO Order_Ingredients (order_id, item_name, quantity)
+SELECT oi.order_id, mi.item_name, SUM(oi.quantity * mi.quantity)
+FROM Order_Items oi
+JOIN Orders o ON o.order_id = oi.order_id
+JOIN Menu_Ingredients mi ON mi.menu_item_id = oi.menu_item_id
+WHERE o.status = 'placed'
+GROUP BY oi.order_id, mi.item_name;